@@ -2,6 +2,7 @@ package org.arquillian.cube;
 
 import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -32,7 +33,35 @@ public interface CubeController {
     TopContainer top(String cubeId);
     TopContainer top(CubeID cubeId);
 
+    /**
+     * Captures the content of given directories of a running cube, for example the data directory of a database after
+     * it has been initialized.
+     */
+    void snapshot(String cubeId, String... directories);
+    void snapshot(CubeID cubeId, String... directories);
+
+    /**
+     * Recreates a cube with the content captured in its last snapshot. It is faster than a destroy and create cycle
+     * since the initialization done before the snapshot is not executed again.
+     */
+    void restore(String cubeId);
+    void restore(CubeID cubeId);
+
     //This method will be refactored when we have a model for configuration file.
     void copyLog(String cubeId, boolean follow, boolean stdout, boolean stderr, boolean timestamps, int tail, OutputStream outputStream);
     void copyLog(CubeID cubeId, boolean follow, boolean stdout, boolean stderr, boolean timestamps, int tail, OutputStream outputStream);
+
+    /**
+     * Returns the recent lines of a cube log selected by given query, without transferring the whole log when the
+     * log is captured in background.
+     */
+    List<LogLine> logLines(String cubeId, LogQuery query);
+    List<LogLine> logLines(CubeID cubeId, LogQuery query);
+
+    /**
+     * Waits until a line selected by given query is logged by a cube, including lines already logged.
+     * @return the first selected line, or null if none is logged before the timeout.
+     */
+    LogLine waitForLogLine(String cubeId, LogQuery query, long timeout, TimeUnit unit);
+    LogLine waitForLogLine(CubeID cubeId, LogQuery query, long timeout, TimeUnit unit);
 }
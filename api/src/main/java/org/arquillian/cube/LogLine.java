@@ -0,0 +1,36 @@
+package org.arquillian.cube;
+
+import java.io.Serializable;
+
+public class LogLine implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long timestamp;
+    private boolean stdErr;
+    private String text;
+
+    public LogLine(long timestamp, boolean stdErr, String text) {
+        this.timestamp = timestamp;
+        this.stdErr = stdErr;
+        this.text = text;
+    }
+
+    /**
+     * @return time in milliseconds when the line was logged.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+    public boolean isStdErr() {
+        return this.stdErr;
+    }
+    public String getText() {
+        return this.text;
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
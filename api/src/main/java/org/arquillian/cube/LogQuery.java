@@ -0,0 +1,121 @@
+package org.arquillian.cube;
+
+import java.io.Serializable;
+import java.util.regex.Pattern;
+
+/**
+ * Selects lines of a cube log by their content, the stream they were written to and the time they were logged.
+ *
+ * <pre>
+ * cubeController.logLines("tomcat", LogQuery.matching("Deployed .*\\.war").since(startTime));
+ * </pre>
+ */
+public class LogQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String substring;
+    private String regex;
+    private long since = Long.MIN_VALUE;
+    private long until = Long.MAX_VALUE;
+    private boolean stdout = true;
+    private boolean stderr = true;
+
+    private transient Pattern pattern;
+
+    private LogQuery() {
+    }
+
+    /**
+     * @return query selecting every line.
+     */
+    public static LogQuery all() {
+        return new LogQuery();
+    }
+
+    /**
+     * @return query selecting lines containing given text.
+     */
+    public static LogQuery containing(String substring) {
+        final LogQuery query = new LogQuery();
+        query.substring = substring;
+        return query;
+    }
+
+    /**
+     * @return query selecting lines where given regular expression is found.
+     */
+    public static LogQuery matching(String regex) {
+        final LogQuery query = new LogQuery();
+        query.regex = regex;
+        query.pattern = Pattern.compile(regex);
+        return query;
+    }
+
+    /**
+     * Only selects lines logged at given time in milliseconds or later.
+     */
+    public LogQuery since(long timestamp) {
+        this.since = timestamp;
+        return this;
+    }
+
+    /**
+     * Only selects lines logged at given time in milliseconds or before.
+     */
+    public LogQuery until(long timestamp) {
+        this.until = timestamp;
+        return this;
+    }
+
+    public LogQuery onlyStdOut() {
+        this.stdout = true;
+        this.stderr = false;
+        return this;
+    }
+
+    public LogQuery onlyStdErr() {
+        this.stdout = false;
+        this.stderr = true;
+        return this;
+    }
+
+    /**
+     * @return true if lines are selected by the time they were logged.
+     */
+    public boolean isTimeBounded() {
+        return since != Long.MIN_VALUE || until != Long.MAX_VALUE;
+    }
+
+    public boolean matches(LogLine line) {
+        if (line.getTimestamp() < since || line.getTimestamp() > until) {
+            return false;
+        }
+        if (line.isStdErr() ? !stderr : !stdout) {
+            return false;
+        }
+        if (substring != null && !line.getText().contains(substring)) {
+            return false;
+        }
+        if (regex != null) {
+            if (pattern == null) {
+                pattern = Pattern.compile(regex);
+            }
+            return pattern.matcher(line.getText()).find();
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder content = new StringBuilder("LogQuery[");
+        content.append(substring != null ? "containing " + substring : regex != null ? "matching " + regex : "all");
+        if (since != Long.MIN_VALUE) {
+            content.append(", since ").append(since);
+        }
+        if (until != Long.MAX_VALUE) {
+            content.append(", until ").append(until);
+        }
+        return content.append(']').toString();
+    }
+}
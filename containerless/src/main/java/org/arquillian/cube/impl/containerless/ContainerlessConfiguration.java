@@ -7,6 +7,8 @@ public class ContainerlessConfiguration implements ContainerConfiguration {
 
     private String containerlessDocker = null;
     private int embeddedPort = 0;
+    private String hotRedeployDirectory = null;
+    private String reloadCommand = null;
 
     public void setContainerlessDocker(String containerlessDocker) {
         this.containerlessDocker = containerlessDocker;
@@ -32,6 +34,30 @@ public class ContainerlessConfiguration implements ContainerConfiguration {
         return containerlessDocker;
     }
 
+    public void setHotRedeployDirectory(String hotRedeployDirectory) {
+        this.hotRedeployDirectory = hotRedeployDirectory;
+    }
+
+    public boolean isHotRedeploySet() {
+        return this.hotRedeployDirectory != null;
+    }
+
+    public String getHotRedeployDirectory() {
+        return hotRedeployDirectory;
+    }
+
+    public void setReloadCommand(String reloadCommand) {
+        this.reloadCommand = reloadCommand;
+    }
+
+    public boolean isReloadCommandSet() {
+        return this.reloadCommand != null;
+    }
+
+    public String getReloadCommand() {
+        return reloadCommand;
+    }
+
     @Override
     public void validate() throws ConfigurationException {
     }
@@ -3,7 +3,9 @@ package org.arquillian.cube.impl.containerless;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,6 +18,10 @@ import org.arquillian.cube.spi.event.CubeControlEvent;
 import org.arquillian.cube.spi.event.DestroyCube;
 import org.arquillian.cube.spi.event.StartCube;
 import org.arquillian.cube.spi.event.StopCube;
+import org.arquillian.cube.spi.metadata.CanCopyToContainer;
+import org.arquillian.cube.spi.metadata.CanExecuteProcessInContainer;
+import org.arquillian.cube.spi.metadata.CanExecuteProcessInContainer.ExecResult;
+import org.arquillian.cube.spi.metadata.CanRestart;
 import org.arquillian.cube.spi.metadata.HasPortBindings;
 import org.arquillian.cube.spi.metadata.IsBuildable;
 import org.arquillian.cube.spi.metadata.HasPortBindings.PortAddress;
@@ -30,8 +36,11 @@ import org.jboss.arquillian.core.api.Event;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.Filters;
 import org.jboss.shrinkwrap.api.GenericArchive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.exporter.TarExporter;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.descriptor.api.Descriptor;
@@ -43,6 +52,9 @@ public class ContainerlessDockerDeployableContainer implements DeployableContain
     
     private ContainerlessConfiguration configuration;
 
+    // paths of current deployment inside the hot redeploy directory, so they can be removed when it is replaced
+    private Set<String> deployedPaths = new LinkedHashSet<>();
+
     @Inject
     private Instance<CubeRegistry> cubeRegistryInstance;
 
@@ -66,7 +78,15 @@ public class ContainerlessDockerDeployableContainer implements DeployableContain
 
     @Override
     public void stop() throws LifecycleException {
-        // should be done at undeployment time.
+        // should be done at undeployment time, except in hot redeploy mode where the container lives until now.
+        if (this.configuration.isHotRedeploySet()) {
+            final Cube<?> cube = resolveMainCube(cubeRegistryInstance.get());
+            if (cube.state() == Cube.State.STARTED) {
+                controlEvent.fire(new StopCube(cube));
+                controlEvent.fire(new DestroyCube(cube));
+            }
+            deployedPaths.clear();
+        }
     }
 
     @Override
@@ -80,6 +100,12 @@ public class ContainerlessDockerDeployableContainer implements DeployableContain
 
         Cube<?> cube = resolveMainCube(cubeRegistry);
 
+        if (this.configuration.isHotRedeploySet() && cube.state() == Cube.State.STARTED) {
+            // image and container are already there from a previous deployment, only the deployment is replaced.
+            redeploy(cube, archive);
+            return createProtocolMetadata(cube, archive);
+        }
+
         if(cube.hasMetadata(IsBuildable.class)) {
             File location = new File(cube.getMetadata(IsBuildable.class).getTemplatePath());
             if (location.isDirectory()) {
@@ -90,6 +116,7 @@ public class ContainerlessDockerDeployableContainer implements DeployableContain
                     // fire events as usually.
                     controlEvent.fire(new CreateCube(cube));
                     controlEvent.fire(new StartCube(cube));
+                    deployedPaths = deployedPaths(archive);
                     return createProtocolMetadata(cube, archive);
                 } catch (FileNotFoundException e) {
                     throw new IllegalArgumentException("Containerless Docker container requires a file named "
@@ -105,6 +132,92 @@ public class ContainerlessDockerDeployableContainer implements DeployableContain
         }
     }
 
+    private void redeploy(Cube<?> cube, Archive<?> archive) throws DeploymentException {
+        final String directory = this.configuration.getHotRedeployDirectory();
+        if (!cube.hasMetadata(CanCopyToContainer.class)) {
+            throw new IllegalArgumentException("Containerless Docker container " + cube.getId() + " does not support copying files.");
+        }
+
+        final Set<String> paths = deployedPaths(archive);
+        removeStalePaths(cube, directory, paths);
+
+        if(archive instanceof GenericArchive) {
+            // same as when it is added by the Dockerfile, its content is expanded.
+            cube.getMetadata(CanCopyToContainer.class).copyArchive(archive, directory);
+        } else {
+            final GenericArchive deployable = ShrinkWrap.create(GenericArchive.class)
+                    .add(archive, "/", ZipExporter.class);
+            cube.getMetadata(CanCopyToContainer.class).copyArchive(deployable, directory);
+        }
+        deployedPaths = paths;
+        log.fine(String.format("Deployment %s copied to %s of %s.", archive.getName(), directory, cube.getId()));
+
+        if (this.configuration.isReloadCommandSet()) {
+            if (!cube.hasMetadata(CanExecuteProcessInContainer.class)) {
+                throw new IllegalArgumentException("Containerless Docker container " + cube.getId() + " does not support executing commands.");
+            }
+            final ExecResult result = cube.getMetadata(CanExecuteProcessInContainer.class)
+                    .exec("sh", "-c", this.configuration.getReloadCommand());
+            if (!result.isRunning() && result.getExitCode() != 0) {
+                throw new DeploymentException(String.format("Reload command of %s exited with %s: %s",
+                        cube.getId(), result.getExitCode(), result.getOutput()));
+            }
+        } else if (cube.hasMetadata(CanRestart.class)) {
+            // without a reload command only the container is restarted, the image is not built again.
+            cube.getMetadata(CanRestart.class).restart();
+        } else {
+            // stop and start actions of the cube are run again
+            controlEvent.fire(new StopCube(cube));
+            controlEvent.fire(new StartCube(cube));
+        }
+    }
+
+    /**
+     * Removes the files of previous deployment that are not part of the new one, so they are not picked up anymore.
+     */
+    private void removeStalePaths(Cube<?> cube, String directory, Set<String> paths) throws DeploymentException {
+        final List<String> command = new ArrayList<>();
+        command.add("rm");
+        command.add("-f");
+        command.add("--");
+        for (String path : deployedPaths) {
+            if (!paths.contains(path)) {
+                command.add(directory + path);
+            }
+        }
+        if (command.size() == 3) {
+            return;
+        }
+
+        if (!cube.hasMetadata(CanExecuteProcessInContainer.class)) {
+            log.warning(String.format("Files of previous deployment cannot be removed from %s of %s.", directory, cube.getId()));
+            return;
+        }
+        final ExecResult result = cube.getMetadata(CanExecuteProcessInContainer.class)
+                .exec(command.toArray(new String[command.size()]));
+        if (!result.isRunning() && result.getExitCode() != 0) {
+            throw new DeploymentException(String.format("Files of previous deployment cannot be removed from %s of %s: %s",
+                    directory, cube.getId(), result.getOutput()));
+        }
+    }
+
+    /**
+     * @return paths the archive is copied to, relative to the hot redeploy directory.
+     */
+    private static Set<String> deployedPaths(Archive<?> archive) {
+        final Set<String> paths = new LinkedHashSet<>();
+        if (archive instanceof GenericArchive) {
+            for (Map.Entry<ArchivePath, Node> entry : archive.getContent().entrySet()) {
+                if (entry.getValue().getAsset() != null) {
+                    paths.add(entry.getKey().get());
+                }
+            }
+        } else {
+            paths.add("/" + archive.getName());
+        }
+        return paths;
+    }
+
     private Cube<?> resolveMainCube(CubeRegistry cubeRegistry) {
         Cube<?> cube = null;
         if(this.configuration.isContainerlessDockerSet()) {
@@ -202,6 +315,10 @@ public class ContainerlessDockerDeployableContainer implements DeployableContain
 
     @Override
     public void undeploy(Archive<?> archive) throws DeploymentException {
+        if (this.configuration.isHotRedeploySet()) {
+            // container is kept running for next deployments and removed when this container is stopped.
+            return;
+        }
 
         final CubeRegistry cubeRegistry = cubeRegistryInstance.get();
         Cube<?> cube = resolveMainCube(cubeRegistry);
@@ -0,0 +1,162 @@
+package org.arquillian.cube.impl.containerless;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.arquillian.cube.spi.Cube;
+import org.arquillian.cube.spi.CubeRegistry;
+import org.arquillian.cube.spi.event.DestroyCube;
+import org.arquillian.cube.spi.event.StartCube;
+import org.arquillian.cube.spi.event.StopCube;
+import org.arquillian.cube.spi.metadata.CanCopyToContainer;
+import org.arquillian.cube.spi.metadata.CanExecuteProcessInContainer;
+import org.arquillian.cube.spi.metadata.CanExecuteProcessInContainer.ExecResult;
+import org.arquillian.cube.spi.metadata.CanRestart;
+import org.arquillian.cube.spi.metadata.HasPortBindings;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.arquillian.core.api.Injector;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.ApplicationScoped;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.test.AbstractManagerTestBase;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.GenericArchive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ContainerlessDockerDeployableContainerTest extends AbstractManagerTestBase {
+
+    private static final String CUBE_ID = "app";
+    private static final String DIRECTORY = "/opt/app";
+
+    @Mock
+    private Cube<?> cube;
+
+    @Mock
+    private CubeRegistry cubeRegistry;
+
+    @Mock
+    private CanCopyToContainer copyToContainer;
+
+    @Mock
+    private CanExecuteProcessInContainer executeProcessInContainer;
+
+    @Mock
+    private CanRestart restart;
+
+    @Mock
+    private HasPortBindings portBindings;
+
+    @Inject
+    private Instance<Injector> injectorInst;
+
+    private ContainerlessConfiguration configuration;
+
+    private ContainerlessDockerDeployableContainer container;
+
+    @Before
+    public void setup() {
+        when(cube.getId()).thenReturn(CUBE_ID);
+        when(cube.state()).thenReturn(Cube.State.STARTED);
+        when(cube.hasMetadata(CanCopyToContainer.class)).thenReturn(true);
+        when(cube.getMetadata(CanCopyToContainer.class)).thenReturn(copyToContainer);
+        when(cube.hasMetadata(CanExecuteProcessInContainer.class)).thenReturn(true);
+        when(cube.getMetadata(CanExecuteProcessInContainer.class)).thenReturn(executeProcessInContainer);
+        when(cube.hasMetadata(CanRestart.class)).thenReturn(true);
+        when(cube.getMetadata(CanRestart.class)).thenReturn(restart);
+        when(cube.getMetadata(HasPortBindings.class)).thenReturn(portBindings);
+        when(portBindings.getContainerIP()).thenReturn("localhost");
+        doReturn(cube).when(cubeRegistry).getCube(CUBE_ID);
+        when(executeProcessInContainer.exec(anyVararg())).thenReturn(new ExecResult("", false, 0));
+        bind(ApplicationScoped.class, CubeRegistry.class, cubeRegistry);
+
+        configuration = new ContainerlessConfiguration();
+        configuration.setContainerlessDocker(CUBE_ID);
+        configuration.setEmbeddedPort(8080);
+        configuration.setHotRedeployDirectory(DIRECTORY);
+        container = injectorInst.get().inject(new ContainerlessDockerDeployableContainer());
+        container.setup(configuration);
+    }
+
+    @Test
+    public void shouldReloadNextDeploymentWithReloadCommand() throws DeploymentException {
+        configuration.setReloadCommand("kill -HUP 1");
+
+        container.deploy(deployment("index.js"));
+
+        verify(copyToContainer).copyArchive(any(Archive.class), eq(DIRECTORY));
+        verify(executeProcessInContainer).exec("sh", "-c", "kill -HUP 1");
+        verify(restart, never()).restart();
+        assertEventFired(StopCube.class, 0);
+        assertEventFired(StartCube.class, 0);
+    }
+
+    @Test
+    public void shouldRestartContainerInPlaceWithoutReloadCommand() throws DeploymentException {
+        container.deploy(deployment("index.js"));
+
+        verify(copyToContainer).copyArchive(any(Archive.class), eq(DIRECTORY));
+        verify(restart).restart();
+        assertEventFired(StopCube.class, 0);
+        assertEventFired(StartCube.class, 0);
+    }
+
+    @Test
+    public void shouldStopAndStartCubesThatCannotBeRestarted() throws DeploymentException {
+        when(cube.hasMetadata(CanRestart.class)).thenReturn(false);
+
+        container.deploy(deployment("index.js"));
+
+        assertEventFired(StopCube.class, 1);
+        assertEventFired(StartCube.class, 1);
+    }
+
+    @Test(expected = DeploymentException.class)
+    public void shouldFailDeploymentWhenReloadCommandFails() throws DeploymentException {
+        configuration.setReloadCommand("kill -HUP 1");
+        when(executeProcessInContainer.exec("sh", "-c", "kill -HUP 1")).thenReturn(new ExecResult("no process", false, 1));
+
+        container.deploy(deployment("index.js"));
+    }
+
+    @Test
+    public void shouldRemoveFilesOfPreviousDeployment() throws DeploymentException {
+        container.deploy(deployment("index.js", "old.js"));
+        container.deploy(deployment("index.js"));
+
+        verify(executeProcessInContainer, times(1)).exec(anyVararg());
+        verify(executeProcessInContainer).exec("rm", "-f", "--", DIRECTORY + "/old.js");
+        verify(copyToContainer, times(2)).copyArchive(any(Archive.class), eq(DIRECTORY));
+    }
+
+    @Test
+    public void shouldKeepContainerOnUndeployAndRemoveItWhenStopped() throws Exception {
+        container.undeploy(deployment("index.js"));
+        assertEventFired(StopCube.class, 0);
+        assertEventFired(DestroyCube.class, 0);
+
+        container.stop();
+        assertEventFired(StopCube.class, 1);
+        assertEventFired(DestroyCube.class, 1);
+    }
+
+    private static GenericArchive deployment(String... files) {
+        final GenericArchive archive = ShrinkWrap.create(GenericArchive.class, "app.tar");
+        for (String file : files) {
+            archive.add(new StringAsset(file), file);
+        }
+        return archive;
+    }
+}
@@ -2,10 +2,13 @@ package org.arquillian.cube.impl.client;
 
 import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.arquillian.cube.ChangeLog;
 import org.arquillian.cube.CubeController;
 import org.arquillian.cube.CubeID;
+import org.arquillian.cube.LogLine;
+import org.arquillian.cube.LogQuery;
 import org.arquillian.cube.TopContainer;
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.CubeRegistry;
@@ -17,6 +20,7 @@ import org.arquillian.cube.spi.event.StopCube;
 import org.arquillian.cube.spi.metadata.CanCopyFromContainer;
 import org.arquillian.cube.spi.metadata.CanSeeChangesOnFilesystem;
 import org.arquillian.cube.spi.metadata.CanSeeTop;
+import org.arquillian.cube.spi.metadata.CanSnapshot;
 import org.jboss.arquillian.core.api.Event;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
@@ -150,6 +154,42 @@ public class ClientCubeController implements CubeController {
         copyLog(containerId.get(), follow, stdout, stderr, timestamps, tail, outputStream);
     }
 
+    @Override
+    public List<LogLine> logLines(String cubeId, LogQuery query) {
+        Cube<?> cube = cubeRegistry.get().getCube(cubeId);
+
+        Validate.notNull(cube, "Cube with id '" + cubeId + "' to get log lines does not exist.");
+
+        if(cube.hasMetadata(CanCopyFromContainer.class)) {
+            return cube.getMetadata(CanCopyFromContainer.class).logLines(query);
+        } else {
+            throw new IllegalArgumentException("Cube " + cubeId + " does not provide the " + CanCopyFromContainer.class.getSimpleName() + " metadata");
+        }
+    }
+
+    @Override
+    public List<LogLine> logLines(CubeID cubeId, LogQuery query) {
+        return logLines(cubeId.get(), query);
+    }
+
+    @Override
+    public LogLine waitForLogLine(String cubeId, LogQuery query, long timeout, TimeUnit unit) {
+        Cube<?> cube = cubeRegistry.get().getCube(cubeId);
+
+        Validate.notNull(cube, "Cube with id '" + cubeId + "' to wait for a log line does not exist.");
+
+        if(cube.hasMetadata(CanCopyFromContainer.class)) {
+            return cube.getMetadata(CanCopyFromContainer.class).waitForLogLine(query, timeout, unit);
+        } else {
+            throw new IllegalArgumentException("Cube " + cubeId + " does not provide the " + CanCopyFromContainer.class.getSimpleName() + " metadata");
+        }
+    }
+
+    @Override
+    public LogLine waitForLogLine(CubeID cubeId, LogQuery query, long timeout, TimeUnit unit) {
+        return waitForLogLine(cubeId.get(), query, timeout, unit);
+    }
+
     @Override
     public TopContainer top(String cubeId) {
         Cube<?> cube = cubeRegistry.get().getCube(cubeId);
@@ -167,4 +207,38 @@ public class ClientCubeController implements CubeController {
         return top(cubeId.get());
     }
 
+    @Override
+    public void snapshot(String cubeId, String... directories) {
+        Cube<?> cube = cubeRegistry.get().getCube(cubeId);
+
+        Validate.notNull(cube, "Cube with id '" + cubeId + "' to snapshot does not exist.");
+        if(cube.hasMetadata(CanSnapshot.class)) {
+            cube.getMetadata(CanSnapshot.class).snapshot(directories);
+        } else {
+            throw new IllegalArgumentException("Cube " + cubeId + " does not provide the " + CanSnapshot.class.getSimpleName() + " metadata");
+        }
+    }
+
+    @Override
+    public void snapshot(CubeID cubeId, String... directories) {
+        snapshot(cubeId.get(), directories);
+    }
+
+    @Override
+    public void restore(String cubeId) {
+        Cube<?> cube = cubeRegistry.get().getCube(cubeId);
+
+        Validate.notNull(cube, "Cube with id '" + cubeId + "' to restore does not exist.");
+        if(cube.hasMetadata(CanSnapshot.class)) {
+            cube.getMetadata(CanSnapshot.class).restore();
+        } else {
+            throw new IllegalArgumentException("Cube " + cubeId + " does not provide the " + CanSnapshot.class.getSimpleName() + " metadata");
+        }
+    }
+
+    @Override
+    public void restore(CubeID cubeId) {
+        restore(cubeId.get());
+    }
+
 }
@@ -2,30 +2,126 @@ package org.arquillian.cube.impl.client;
 
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.CubeRegistry;
+import org.arquillian.cube.spi.metadata.IsShared;
 import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.AfterSuite;
 import org.jboss.arquillian.test.spi.event.suite.BeforeClass;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class ForceStopDockerContainersShutdownHook {
 
+    private static final Logger log = Logger.getLogger(ForceStopDockerContainersShutdownHook.class.getName());
+
+    static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final AtomicBoolean attached = new AtomicBoolean(false);
+    // registries of the suites running in this JVM, for example when suites run in parallel
+    private static final Set<CubeRegistry> cubeRegistries = Collections.newSetFromMap(new ConcurrentHashMap<CubeRegistry, Boolean>());
+
     public void attachShutDownHookForceStopDcokerContainers(@Observes BeforeClass event, final CubeRegistry cubeRegistry) {
-        Runtime.getRuntime().addShutdownHook(new Thread() {
+        cubeRegistries.add(cubeRegistry);
+
+        // Only one hook per JVM, it works with the registries of all running suites
+        if (attached.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    forceStop(cubeRegistries, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+            });
+        }
+    }
+
+    public void detachCubeRegistry(@Observes(precedence = -300) AfterSuite event, CubeRegistry cubeRegistry) {
+        // cubes of the suite have been stopped already
+        cubeRegistries.remove(cubeRegistry);
+    }
+
+    static void forceStop(CubeRegistry cubeRegistry, long timeout, TimeUnit unit) {
+        if (cubeRegistry == null) {
+            return;
+        }
+        forceStop(Collections.singleton(cubeRegistry), timeout, unit);
+    }
+
+    static void forceStop(Collection<CubeRegistry> cubeRegistries, long timeout, TimeUnit unit) {
+        final List<Cube<?>> startedCubes = new ArrayList<>();
+        for (CubeRegistry cubeRegistry : cubeRegistries) {
+            for (Cube<?> cube : cubeRegistry.getCubes()) {
+                // If container is started, and we are exiting we need to stop it.
+                // Notice that in case of STARTORCONNECT and STARTORCONNECTANDLEAVE the state is PRE_RUNNING
+                // so they are not going to be stopped
+                if (Cube.State.STARTED.equals(cube.state()) && !isUsedByOthers(cube)) {
+                    startedCubes.add(cube);
+                }
+            }
+        }
+
+        if (startedCubes.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(startedCubes.size(), new ThreadFactory() {
             @Override
-            public void run() {
-                final List<Cube<?>> cubes = cubeRegistry.getCubes();
-                for (Cube cube : cubes) {
-                    // If container is started, and we are exiting we need to stop it.
-                    // Notice that in case of STARTORCONNECT and STARTORCONNECTANDLEAVE the state is PRE_RUNNING
-                    // so they are not going to be stopped
-                    if (Cube.State.STARTED.equals(cube.state())) {
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "cube-force-stop");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        for (final Cube<?> cube : startedCubes) {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
                         cube.stop();
                         cube.destroy();
+                    } catch (RuntimeException e) {
+                        log.log(Level.WARNING, String.format("Could not force stop cube %s", cube.getId()), e);
                     }
                 }
+            });
+        }
 
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(timeout, unit)) {
+                log.warning(String.format("Not all cubes could be force stopped in %s %s", timeout, unit));
             }
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static Set<CubeRegistry> getCubeRegistries() {
+        return Collections.unmodifiableSet(cubeRegistries);
+    }
+
+    private static boolean isUsedByOthers(Cube<?> cube) {
+        // shared cubes keep running for the other JVMs, which remove them when they release their last lease
+        if (!cube.hasMetadata(IsShared.class)) {
+            return false;
+        }
+        try {
+            return cube.getMetadata(IsShared.class).isUsedByOthers();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, String.format("Could not check whether cube %s is shared", cube.getId()), e);
+            return false;
+        }
     }
 
 }
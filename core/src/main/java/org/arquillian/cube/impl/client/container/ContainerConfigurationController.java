@@ -1,7 +1,5 @@
 package org.arquillian.cube.impl.client.container;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -11,6 +9,7 @@ import java.util.Map.Entry;
 import java.util.regex.Pattern;
 
 import org.arquillian.cube.impl.util.ContainerUtil;
+import org.arquillian.cube.impl.util.ReflectionUtil;
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.CubeRegistry;
 import org.arquillian.cube.spi.metadata.HasPortBindings;
@@ -108,20 +107,12 @@ public class ContainerConfigurationController {
 
         List<PropertyDescriptor> fields = new ArrayList<PropertyDescriptor>();
 
-        try {
-            PropertyDescriptor[] propertyDescriptors = Introspector.getBeanInfo(configurationClass, Object.class)
-                    .getPropertyDescriptors();
-
-            for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-                String propertyName = propertyDescriptor.getName();
+        for (PropertyDescriptor propertyDescriptor : ReflectionUtil.getPropertyDescriptors(configurationClass)) {
+            String propertyName = propertyDescriptor.getName();
 
-                if (portPattern.matcher(propertyName).matches()) {
-                    fields.add(propertyDescriptor);
-                }
+            if (portPattern.matcher(propertyName).matches()) {
+                fields.add(propertyDescriptor);
             }
-
-        } catch (IntrospectionException e) {
-            throw new IllegalArgumentException(e);
         }
 
         return fields;
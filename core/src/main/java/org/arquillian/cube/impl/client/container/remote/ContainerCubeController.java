@@ -2,10 +2,13 @@ package org.arquillian.cube.impl.client.container.remote;
 
 import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.arquillian.cube.ChangeLog;
 import org.arquillian.cube.CubeController;
 import org.arquillian.cube.CubeID;
+import org.arquillian.cube.LogLine;
+import org.arquillian.cube.LogQuery;
 import org.arquillian.cube.TopContainer;
 import org.arquillian.cube.impl.client.container.remote.command.ChangesOnFilesystemCommand;
 import org.arquillian.cube.impl.client.container.remote.command.CopyFileDirectoryCommand;
@@ -100,6 +103,26 @@ public class ContainerCubeController implements CubeController {
         copyLog(containerId.get(), follow, stdout, stderr, timestamps, tail, outputStream);
     }
 
+    @Override
+    public List<LogLine> logLines(String cubeId, LogQuery query) {
+        throw new UnsupportedOperationException("This operation is only supported for tests running in client mode. https://docs.jboss.org/author/display/ARQ/Test+run+modes");
+    }
+
+    @Override
+    public List<LogLine> logLines(CubeID cubeId, LogQuery query) {
+        return logLines(cubeId.get(), query);
+    }
+
+    @Override
+    public LogLine waitForLogLine(String cubeId, LogQuery query, long timeout, TimeUnit unit) {
+        throw new UnsupportedOperationException("This operation is only supported for tests running in client mode. https://docs.jboss.org/author/display/ARQ/Test+run+modes");
+    }
+
+    @Override
+    public LogLine waitForLogLine(CubeID cubeId, LogQuery query, long timeout, TimeUnit unit) {
+        return waitForLogLine(cubeId.get(), query, timeout, unit);
+    }
+
     @Override
     public TopContainer top(String cubeId) {
         return getCommandService().execute(new TopCommand(cubeId));
@@ -110,6 +133,26 @@ public class ContainerCubeController implements CubeController {
         return top(cubeId.get());
     }
 
+    @Override
+    public void snapshot(String cubeId, String... directories) {
+        throw new UnsupportedOperationException("This operation is only supported for tests running in client mode. https://docs.jboss.org/author/display/ARQ/Test+run+modes");
+    }
+
+    @Override
+    public void snapshot(CubeID cubeId, String... directories) {
+        snapshot(cubeId.get(), directories);
+    }
+
+    @Override
+    public void restore(String cubeId) {
+        throw new UnsupportedOperationException("This operation is only supported for tests running in client mode. https://docs.jboss.org/author/display/ARQ/Test+run+modes");
+    }
+
+    @Override
+    public void restore(CubeID cubeId) {
+        restore(cubeId.get());
+    }
+
     private CommandService getCommandService()
     {
        ServiceLoader loader = serviceLoader.get();
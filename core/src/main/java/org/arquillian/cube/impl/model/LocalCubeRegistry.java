@@ -3,37 +3,51 @@ package org.arquillian.cube.impl.model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.CubeRegistry;
 import org.arquillian.cube.spi.metadata.CubeMetadata;
 
+/**
+ * Thread safe registry of cubes.
+ *
+ * Cubes are indexed by id. Reads are lock free and iterations work on a snapshot, so cubes can be registered and
+ * removed from parallel start threads or enrichers while others are reading. Cubes are looked up by metadata on each
+ * request, so metadata added to a cube after it is registered is found as well.
+ */
 public class LocalCubeRegistry implements CubeRegistry {
 
-    private List<Cube<?>> cubes;
+    private final List<Cube<?>> cubes;
+    private final ConcurrentMap<String, Cube<?>> cubesById;
 
     public LocalCubeRegistry() {
-        this.cubes = new ArrayList<Cube<?>>();
+        this.cubes = new CopyOnWriteArrayList<Cube<?>>();
+        this.cubesById = new ConcurrentHashMap<String, Cube<?>>();
     }
 
     @Override
-    public void addCube(Cube<?> cube) {
+    public synchronized void addCube(Cube<?> cube) {
+        final Cube<?> previous = this.cubesById.put(cube.getId(), cube);
+        if (previous != null) {
+            this.cubes.remove(previous);
+        }
         this.cubes.add(cube);
     }
 
     @Override
-    public void removeCube(String id) {
-        for (int i = 0 ; i < this.cubes.size(); i++) {
-            if (this.cubes.get(i).getId().equals(id)) {
-                this.cubes.remove(i);
-                break;
-            }
+    public synchronized void removeCube(String id) {
+        final Cube<?> cube = this.cubesById.remove(id);
+        if (cube != null) {
+            this.cubes.remove(cube);
         }
     }
 
     @Override
     public List<Cube<?>> getByMetadata(Class<? extends CubeMetadata> metadata) {
-        List<Cube<?>> cubes = new ArrayList<>();
+        final List<Cube<?>> cubes = new ArrayList<>();
         for (Cube<?> cube : this.cubes) {
             if (cube.hasMetadata(metadata)) {
                 cubes.add(cube);
@@ -44,12 +58,7 @@ public class LocalCubeRegistry implements CubeRegistry {
 
     @Override
     public Cube<?> getCube(String id) {
-        for(Cube<?> cube : this.cubes) {
-            if(cube.getId().equals(id)) {
-                return cube;
-            }
-        }
-        return null;
+        return this.cubesById.get(id);
     }
 
     @Override
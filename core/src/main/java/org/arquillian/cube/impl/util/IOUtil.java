@@ -1,14 +1,15 @@
 package org.arquillian.cube.impl.util;
 
-import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.text.StrLookup;
 import org.apache.commons.lang3.text.StrSubstitutor;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
@@ -18,6 +19,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringWriter;
 import java.util.ArrayList;
@@ -28,8 +30,8 @@ import java.util.Stack;
 
 public class IOUtil {
 
-    private static final int BUFFER = 2048;
     private static final String INDENT_STRING = "    ";
+    private static final int TAR_SPOOL_THRESHOLD = 1024 * 1024;
 
     private IOUtil() {
         super();
@@ -55,36 +57,77 @@ public class IOUtil {
 
 
 
-    public static void untar(InputStream tarContent, File destination) throws IOException {
-        BufferedInputStream bufferedLogs = new BufferedInputStream(tarContent);
-        try (TarArchiveInputStream compressedInputStream = new TarArchiveInputStream(bufferedLogs)) {
-            ArchiveEntry entry = null;
-            while ((entry = compressedInputStream.getNextEntry()) != null) {
-
-                File file = new File(destination, entry.getName());
+    /**
+     * Writes the content of given archive as a tar into given stream. Entries are written one by one. The content of
+     * an asset whose size is unknown (any asset but a file) is held in memory while it is written if it is small, and
+     * spooled to a temporary file otherwise, like nested archives, so archives are never fully held in memory.
+     */
+    public static void tar(Archive<?> archive, OutputStream output) throws IOException {
+        final TarArchiveOutputStream tarArchiveOutputStream = new TarArchiveOutputStream(output);
+        tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tarArchiveOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
 
-                if (entry.isDirectory()) {
-                    file.mkdirs();
-                } else {
-
-                    if (!file.getParentFile().exists()) {
-                        file.getParentFile().mkdirs();
-                    }
+        for (Node node : archive.getContent().values()) {
+            final String name = node.getPath().get().substring(1);
+            final Asset asset = node.getAsset();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (asset == null) {
+                tarArchiveOutputStream.putArchiveEntry(new TarArchiveEntry(name + "/"));
+            } else if (asset instanceof FileAsset) {
+                final File source = ((FileAsset) asset).getSource();
+                final TarArchiveEntry entry = new TarArchiveEntry(name);
+                entry.setSize(source.length());
+                tarArchiveOutputStream.putArchiveEntry(entry);
+                try (InputStream content = new FileInputStream(source)) {
+                    IOUtils.copy(content, tarArchiveOutputStream);
+                }
+            } else {
+                try (InputStream stream = asset.openStream()) {
+                    tarStream(name, stream, tarArchiveOutputStream);
+                }
+            }
+            tarArchiveOutputStream.closeArchiveEntry();
+        }
+        tarArchiveOutputStream.finish();
+        tarArchiveOutputStream.flush();
+    }
 
-                    int count;
-                    byte data[] = new byte[BUFFER];
+    private static void tarStream(String name, InputStream stream, TarArchiveOutputStream tarArchiveOutputStream) throws IOException {
+        final byte[] head = new byte[TAR_SPOOL_THRESHOLD];
+        final int headSize = IOUtils.read(stream, head);
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        if (headSize < head.length) {
+            entry.setSize(headSize);
+            tarArchiveOutputStream.putArchiveEntry(entry);
+            tarArchiveOutputStream.write(head, 0, headSize);
+            return;
+        }
 
-                    FileOutputStream fos = new FileOutputStream(file);
-                    BufferedOutputStream dest = new BufferedOutputStream(fos, 2048);
-                    while ((count = compressedInputStream.read(data, 0, 2048)) != -1) {
-                        dest.write(data, 0, count);
-                    }
-                    dest.close();
-                }
+        // the size of a tar entry is written before its content, so larger content is counted on disk first
+        final File spool = File.createTempFile("arquillian-cube-tar", ".tmp");
+        try {
+            try (OutputStream out = new FileOutputStream(spool)) {
+                out.write(head);
+                IOUtils.copy(stream, out);
+            }
+            entry.setSize(spool.length());
+            tarArchiveOutputStream.putArchiveEntry(entry);
+            try (InputStream content = new FileInputStream(spool)) {
+                IOUtils.copy(content, tarArchiveOutputStream);
+            }
+        } finally {
+            if (!spool.delete()) {
+                spool.deleteOnExit();
             }
         }
     }
 
+    public static void untar(InputStream tarContent, File destination) throws IOException {
+        TarExtractor.extract(tarContent, destination);
+    }
+
     public static String replacePlaceholders(String templateContent, Map<String, String> values) {
         StrSubstitutor sub = new StrSubstitutor(values);
         return sub.replace(templateContent);
@@ -0,0 +1,185 @@
+package org.arquillian.cube.impl.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Map;
+
+/**
+ * Reader resolving <code>${name}</code> placeholders while the content is read, so the content is never held as a
+ * whole.
+ *
+ * A placeholder is replaced by the system property with that name, or else by the environment variable, or else by
+ * the default value given as <code>${name:-default}</code>, which can contain placeholders too. Unresolved
+ * placeholders are replaced by an empty string. <code>$${name}</code> is read as a literal <code>${name}</code>.
+ * Resolved values are inserted as they are, placeholders inside them are not resolved.
+ */
+public class PlaceholderResolvingReader extends Reader {
+
+    private static final char ESCAPE = '$';
+    private static final char PREFIX_START = '$';
+    private static final char PREFIX_END = '{';
+    private static final char SUFFIX = '}';
+    private static final String DEFAULT_VALUE_DELIMITER = ":-";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Reader source;
+    private final Map<String, String> environment;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfSource = false;
+
+    // resolved value or literal content not returned yet
+    private String pending = "";
+    private int pendingPosition = 0;
+
+    public PlaceholderResolvingReader(Reader source) {
+        this(source, System.getenv());
+    }
+
+    public PlaceholderResolvingReader(Reader source, Map<String, String> environment) {
+        this.source = source;
+        this.environment = environment;
+    }
+
+    /**
+     * @return content with its placeholders resolved.
+     */
+    public static String resolve(String content) {
+        return resolve(content, System.getenv());
+    }
+
+    private static String resolve(String content, Map<String, String> environment) {
+        final StringBuilder resolved = new StringBuilder(content.length());
+        try (Reader reader = new PlaceholderResolvingReader(new StringReader(content), environment)) {
+            final char[] chunk = new char[BUFFER_SIZE];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                resolved.append(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return resolved.toString();
+    }
+
+    @Override
+    public int read(char[] destination, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int written = 0;
+        while (written < length) {
+            if (pendingPosition < pending.length()) {
+                final int count = Math.min(length - written, pending.length() - pendingPosition);
+                pending.getChars(pendingPosition, pendingPosition + count, destination, offset + written);
+                pendingPosition += count;
+                written += count;
+                continue;
+            }
+            if (!ensure(1)) {
+                break;
+            }
+            if (buffer[position] != PREFIX_START) {
+                // plain content is copied as a run up to the next possible placeholder
+                int end = position;
+                final int maxEnd = Math.min(limit, position + length - written);
+                while (end < maxEnd && buffer[end] != PREFIX_START) {
+                    end++;
+                }
+                System.arraycopy(buffer, position, destination, offset + written, end - position);
+                written += end - position;
+                position = end;
+                continue;
+            }
+            setPending(readPlaceholder());
+        }
+        return written == 0 ? -1 : written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Reads a sequence starting with <code>$</code>, at the current position.
+     * @return the sequence resolved.
+     */
+    private String readPlaceholder() throws IOException {
+        ensure(3);
+        final int available = limit - position;
+        if (available >= 3 && buffer[position + 1] == ESCAPE && buffer[position + 2] == PREFIX_END) {
+            // escaped placeholder, the rest is read as plain content
+            position += 2;
+            return "$";
+        }
+        if (available < 2 || buffer[position + 1] != PREFIX_END) {
+            position++;
+            return "$";
+        }
+        position += 2;
+
+        final StringBuilder expression = new StringBuilder();
+        int depth = 1;
+        while (ensure(1)) {
+            final char c = buffer[position++];
+            if (c == SUFFIX && --depth == 0) {
+                return resolveExpression(expression.toString());
+            }
+            if (c == PREFIX_END && expression.length() > 0 && expression.charAt(expression.length() - 1) == PREFIX_START) {
+                depth++;
+            }
+            expression.append(c);
+            if (c == '\n') {
+                break;
+            }
+        }
+        // not terminated, so it is not a placeholder
+        return "${" + expression;
+    }
+
+    private String resolveExpression(String expression) {
+        final int delimiter = expression.indexOf(DEFAULT_VALUE_DELIMITER);
+        final String name = delimiter >= 0 ? expression.substring(0, delimiter) : expression;
+
+        String value = System.getProperty(name);
+        if (value == null && environment != null) {
+            value = environment.get(name);
+        }
+        if (value == null && delimiter >= 0) {
+            value = resolve(expression.substring(delimiter + DEFAULT_VALUE_DELIMITER.length()), environment);
+        }
+        return value != null ? value : "";
+    }
+
+    private void setPending(String content) {
+        pending = content;
+        pendingPosition = 0;
+    }
+
+    /**
+     * Makes at least given number of chars available from the current position, unless the source ends before.
+     * @return true if at least one char is available.
+     */
+    private boolean ensure(int count) throws IOException {
+        if (limit - position < count && !endOfSource) {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+            while (limit < count && !endOfSource) {
+                final int read = source.read(buffer, limit, buffer.length - limit);
+                if (read == -1) {
+                    endOfSource = true;
+                } else {
+                    limit += read;
+                }
+            }
+        }
+        return limit > position;
+    }
+}
@@ -1,5 +1,8 @@
 package org.arquillian.cube.impl.util;
 
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -9,7 +12,11 @@ import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * SecurityActions
@@ -21,6 +28,17 @@ import java.util.List;
  */
 public final class ReflectionUtil {
 
+    /**
+     * Annotated members and properties of each class, computed once per class since enrichers look them up for every
+     * test instance and container object.
+     */
+    private static final ClassValue<ClassMembers> CLASS_MEMBERS = new ClassValue<ClassMembers>() {
+        @Override
+        protected ClassMembers computeValue(Class<?> type) {
+            return new ClassMembers(type);
+        }
+    };
+
     // -------------------------------------------------------------------------------||
     // Constructor
     // ------------------------------------------------------------------||
@@ -150,14 +168,66 @@ public final class ReflectionUtil {
         }
     }
 
+    /**
+     * @return accessible fields of given class and its superclasses annotated with given annotation. The returned list
+     * is shared and cannot be modified.
+     */
     public static List<Field> getFieldsWithAnnotation(final Class<?> source,
             final Class<? extends Annotation> annotationClass) {
-        List<Field> declaredAccessableFields = AccessController
-                .doPrivileged(new PrivilegedAction<List<Field>>() {
+        return CLASS_MEMBERS.get(source).getFieldsWithAnnotation(annotationClass);
+    }
+
+    public static boolean isClassWithAnnotation(final Class<?> source,
+            final Class<? extends Annotation> annotationClass) {
+        return CLASS_MEMBERS.get(source).isClassWithAnnotation(annotationClass);
+    }
+
+    /**
+     * @return accessible methods declared by given class annotated with given annotation. The returned list is shared
+     * and cannot be modified.
+     */
+    public static List<Method> getMethodsWithAnnotation(final Class<?> source,
+            final Class<? extends Annotation> annotationClass) {
+        return CLASS_MEMBERS.get(source).getMethodsWithAnnotation(annotationClass);
+    }
+
+    /**
+     * @return bean properties of given class, excluding the ones of {@link Object}. The returned list is shared and
+     * cannot be modified.
+     * @throws IllegalArgumentException if the class cannot be introspected.
+     */
+    public static List<PropertyDescriptor> getPropertyDescriptors(final Class<?> source) {
+        return CLASS_MEMBERS.get(source).getPropertyDescriptors();
+    }
+
+    // -------------------------------------------------------------------------------||
+    // Inner Classes
+    // ----------------------------------------------------------------||
+    // -------------------------------------------------------------------------------||
+
+    /**
+     * Reflection metadata of a class, each kind computed the first time it is requested.
+     */
+    private static final class ClassMembers {
+
+        private final Class<?> type;
+        private final ConcurrentMap<Class<? extends Annotation>, List<Field>> fieldsWithAnnotation = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Class<? extends Annotation>, List<Method>> methodsWithAnnotation = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Class<? extends Annotation>, Boolean> classWithAnnotation = new ConcurrentHashMap<>();
+        private volatile List<PropertyDescriptor> propertyDescriptors;
+
+        ClassMembers(Class<?> type) {
+            this.type = type;
+        }
+
+        List<Field> getFieldsWithAnnotation(final Class<? extends Annotation> annotationClass) {
+            List<Field> fields = fieldsWithAnnotation.get(annotationClass);
+            if (fields == null) {
+                fields = AccessController.doPrivileged(new PrivilegedAction<List<Field>>() {
                     public List<Field> run() {
                         List<Field> foundFields = new ArrayList<Field>();
-                        Class<?> nextSource = source;
-                        while (nextSource != Object.class) {
+                        Class<?> nextSource = type;
+                        while (nextSource != null && nextSource != Object.class) {
                             for (Field field : nextSource.getDeclaredFields()) {
                                 if (field.isAnnotationPresent(annotationClass)) {
                                     if (!field.isAccessible()) {
@@ -168,37 +238,21 @@ public final class ReflectionUtil {
                             }
                             nextSource = nextSource.getSuperclass();
                         }
-                        return foundFields;
+                        return Collections.unmodifiableList(foundFields);
                     }
                 });
-        return declaredAccessableFields;
-    }
-
-    public static boolean isClassWithAnnotation(final Class<?> source,
-            final Class<? extends Annotation> annotationClass) {
-        return AccessController.doPrivileged( new PrivilegedAction<Boolean>() {
-            @Override
-            public Boolean run() {
-                boolean annotationPresent = false;
-                Class<?> nextSource = source;
-                while (nextSource != Object.class) {
-                    if (nextSource.isAnnotationPresent(annotationClass)) {
-                        return true;
-                    }
-                    nextSource = source.getSuperclass();
-                }
-                return annotationPresent;
+                fieldsWithAnnotation.putIfAbsent(annotationClass, fields);
             }
-        });
-    }
+            return fields;
+        }
 
-    public static List<Method> getMethodsWithAnnotation(final Class<?> source,
-            final Class<? extends Annotation> annotationClass) {
-        List<Method> declaredAccessableMethods = AccessController
-                .doPrivileged(new PrivilegedAction<List<Method>>() {
+        List<Method> getMethodsWithAnnotation(final Class<? extends Annotation> annotationClass) {
+            List<Method> methods = methodsWithAnnotation.get(annotationClass);
+            if (methods == null) {
+                methods = AccessController.doPrivileged(new PrivilegedAction<List<Method>>() {
                     public List<Method> run() {
                         List<Method> foundMethods = new ArrayList<Method>();
-                        for (Method method : source.getDeclaredMethods()) {
+                        for (Method method : type.getDeclaredMethods()) {
                             if (method.isAnnotationPresent(annotationClass)) {
                                 if (!method.isAccessible()) {
                                     method.setAccessible(true);
@@ -206,16 +260,49 @@ public final class ReflectionUtil {
                                 foundMethods.add(method);
                             }
                         }
-                        return foundMethods;
+                        return Collections.unmodifiableList(foundMethods);
                     }
                 });
-        return declaredAccessableMethods;
-    }
+                methodsWithAnnotation.putIfAbsent(annotationClass, methods);
+            }
+            return methods;
+        }
 
-    // -------------------------------------------------------------------------------||
-    // Inner Classes
-    // ----------------------------------------------------------------||
-    // -------------------------------------------------------------------------------||
+        boolean isClassWithAnnotation(final Class<? extends Annotation> annotationClass) {
+            Boolean annotationPresent = classWithAnnotation.get(annotationClass);
+            if (annotationPresent == null) {
+                annotationPresent = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+                    @Override
+                    public Boolean run() {
+                        Class<?> nextSource = type;
+                        while (nextSource != null && nextSource != Object.class) {
+                            if (nextSource.isAnnotationPresent(annotationClass)) {
+                                return true;
+                            }
+                            nextSource = nextSource.getSuperclass();
+                        }
+                        return false;
+                    }
+                });
+                classWithAnnotation.putIfAbsent(annotationClass, annotationPresent);
+            }
+            return annotationPresent;
+        }
+
+        List<PropertyDescriptor> getPropertyDescriptors() {
+            List<PropertyDescriptor> descriptors = propertyDescriptors;
+            if (descriptors == null) {
+                try {
+                    descriptors = Collections.unmodifiableList(
+                            Arrays.asList(Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()));
+                } catch (IntrospectionException e) {
+                    throw new IllegalArgumentException(e);
+                }
+                propertyDescriptors = descriptors;
+            }
+            return descriptors;
+        }
+    }
 
     /**
      * Single instance to get the TCCL
@@ -0,0 +1,419 @@
+package org.arquillian.cube.impl.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+/**
+ * Extracts tar streams, usually coming from a container, into a directory.
+ *
+ * The calling thread reads and parses the stream while a second thread writes the entries to disk, so network reads
+ * and disk writes overlap. Content is moved between both threads in a small pool of large buffers that are reused
+ * for the whole archive, which also bounds the memory used by the extraction. File modes are restored when the file
+ * system supports posix permissions, and symbolic and hard links are recreated. Entries resolving outside of the
+ * destination, written through a link pointing outside of it, or hard linked to a path outside of it, are rejected.
+ * Files already present are replaced instead of being written in place, so read only files and files hard linked
+ * elsewhere can be extracted again.
+ */
+public class TarExtractor {
+
+    private static final Logger log = Logger.getLogger(TarExtractor.class.getName());
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int CHUNKS = 8;
+    private static final long END_POLL_MILLIS = 100;
+
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    private final Path root;
+    private final EntryFilter filter;
+    private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(CHUNKS);
+    private final BlockingQueue<Operation> operations = new ArrayBlockingQueue<>(CHUNKS * 4);
+
+    private volatile IOException writeFailure;
+    private volatile boolean aborted;
+
+    private TarExtractor(File destination, EntryFilter filter) {
+        this.root = destination.toPath().toAbsolutePath().normalize();
+        this.filter = filter;
+        for (int i = 0; i < CHUNKS; i++) {
+            freeBuffers.add(ByteBuffer.allocate(CHUNK_SIZE));
+        }
+    }
+
+    public static void extract(InputStream tarContent, File destination) throws IOException {
+        new TarExtractor(destination, null).extract(tarContent);
+    }
+
+    /**
+     * Extracts only the entries accepted by given filter. Content of rejected entries is skipped without being written.
+     */
+    public static void extract(InputStream tarContent, File destination, EntryFilter filter) throws IOException {
+        new TarExtractor(destination, filter).extract(tarContent);
+    }
+
+    private void extract(InputStream tarContent) throws IOException {
+        Files.createDirectories(root);
+        final Writer writer = new Writer(root.toRealPath());
+        final Thread writerThread = new Thread(writer, "arquillian-cube-untar");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new BufferedInputStream(tarContent, CHUNK_SIZE))) {
+            TarArchiveEntry entry;
+            while (writeFailure == null && (entry = tar.getNextTarEntry()) != null) {
+                if (filter != null && !filter.accept(entry)) {
+                    continue;
+                }
+                final Path target = resolve(entry.getName());
+                if (entry.isDirectory()) {
+                    enqueue(new Operation(Kind.DIRECTORY, target, entry.getMode()));
+                } else if (entry.isSymbolicLink()) {
+                    enqueue(new Operation(Kind.SYMBOLIC_LINK, target, entry.getLinkName()));
+                } else if (entry.isLink()) {
+                    enqueue(new Operation(Kind.HARD_LINK, target, resolve(entry.getLinkName()).toString()));
+                } else if (entry.isFile()) {
+                    enqueue(new Operation(Kind.OPEN, target, entry.getMode()));
+                    readContent(tar);
+                    enqueue(new Operation(Kind.CLOSE, target, entry.getMode()));
+                } else {
+                    log.fine(String.format("Entry %s is skipped since it is not a file, a directory or a link.", entry.getName()));
+                }
+            }
+        } finally {
+            finish(writerThread);
+        }
+
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    /**
+     * Delivers the end of the archive to the writer and waits for it, even when the reading thread is interrupted, so
+     * the writer never waits forever for more operations. Operations still queued by an interrupted extraction are
+     * skipped.
+     */
+    private void finish(Thread writerThread) throws IOException {
+        boolean interrupted = Thread.interrupted();
+        boolean delivered = false;
+        final Operation end = new Operation(Kind.END, null, 0);
+        while (writerThread.isAlive()) {
+            if (interrupted) {
+                aborted = true;
+            }
+            try {
+                if (!delivered) {
+                    delivered = operations.offer(end, END_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } else {
+                    writerThread.join();
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting tar");
+        }
+    }
+
+    private void readContent(TarArchiveInputStream tar) throws IOException {
+        int read = 0;
+        while (read != -1) {
+            final ByteBuffer buffer = take(freeBuffers);
+            while (buffer.hasRemaining() && (read = tar.read(buffer.array(), buffer.position(), buffer.remaining())) != -1) {
+                buffer.position(buffer.position() + read);
+            }
+            buffer.flip();
+            enqueue(new Operation(buffer));
+        }
+    }
+
+    private Path resolve(String name) throws IOException {
+        String relative = name;
+        while (relative.startsWith("/")) {
+            relative = relative.substring(1);
+        }
+        final Path target = root.resolve(relative).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException(String.format("Entry %s is outside of %s", name, root));
+        }
+        return target;
+    }
+
+    private void enqueue(Operation operation) throws IOException {
+        try {
+            operations.put(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting tar", e);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) throws IOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting tar", e);
+        }
+    }
+
+    public interface EntryFilter {
+        boolean accept(TarArchiveEntry entry);
+    }
+
+    private enum Kind {
+        DIRECTORY, OPEN, DATA, CLOSE, SYMBOLIC_LINK, HARD_LINK, END
+    }
+
+    private static final class Operation {
+        private final Kind kind;
+        private final Path path;
+        private final int mode;
+        private final String link;
+        private final ByteBuffer buffer;
+
+        private Operation(Kind kind, Path path, int mode) {
+            this.kind = kind;
+            this.path = path;
+            this.mode = mode;
+            this.link = null;
+            this.buffer = null;
+        }
+
+        private Operation(Kind kind, Path path, String link) {
+            this.kind = kind;
+            this.path = path;
+            this.mode = 0;
+            this.link = link;
+            this.buffer = null;
+        }
+
+        private Operation(ByteBuffer buffer) {
+            this.kind = Kind.DATA;
+            this.path = null;
+            this.mode = 0;
+            this.link = null;
+            this.buffer = buffer;
+        }
+    }
+
+    private final class Writer implements Runnable {
+
+        private final Path realRoot;
+        // modes of directories are set at the end, so read only directories can still be filled
+        private final Map<Path, Integer> directoryModes = new LinkedHashMap<>();
+        private final Map<Path, Set<PosixFilePermission>> readOnlyDirectories = new LinkedHashMap<>();
+        private Path checkedParent;
+        private FileChannel channel;
+
+        private Writer(Path realRoot) {
+            this.realRoot = realRoot;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Operation operation;
+                try {
+                    operation = take(operations);
+                } catch (IOException e) {
+                    fail(e);
+                    return;
+                }
+
+                if (operation.kind == Kind.END) {
+                    closeChannel();
+                    if (writeFailure == null && !aborted) {
+                        applyDirectoryModes();
+                    }
+                    return;
+                }
+
+                try {
+                    if (writeFailure == null && !aborted) {
+                        write(operation);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    closeChannel();
+                    fail(e instanceof IOException ? (IOException) e : new IOException(e));
+                } finally {
+                    if (operation.buffer != null) {
+                        operation.buffer.clear();
+                        freeBuffers.add(operation.buffer);
+                    }
+                }
+            }
+        }
+
+        private void write(Operation operation) throws IOException {
+            switch (operation.kind) {
+                case DIRECTORY:
+                    prepare(operation.path);
+                    Files.createDirectories(operation.path);
+                    directoryModes.put(operation.path, operation.mode);
+                    break;
+                case OPEN:
+                    prepare(operation.path);
+                    // a file extracted before may be read only, or be hard linked to another file
+                    if (Files.isRegularFile(operation.path, LinkOption.NOFOLLOW_LINKS)) {
+                        Files.delete(operation.path);
+                    }
+                    channel = FileChannel.open(operation.path,
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    break;
+                case DATA:
+                    while (operation.buffer.hasRemaining()) {
+                        channel.write(operation.buffer);
+                    }
+                    break;
+                case CLOSE:
+                    closeChannel();
+                    setMode(operation.path, operation.mode);
+                    break;
+                case SYMBOLIC_LINK:
+                    prepare(operation.path);
+                    Files.createSymbolicLink(operation.path, Paths.get(operation.link));
+                    checkedParent = null;
+                    break;
+                case HARD_LINK:
+                    prepare(operation.path);
+                    final Path target = Paths.get(operation.link);
+                    // the copy fallback follows links, so the target must not lead outside of the destination
+                    if (!target.toRealPath().startsWith(realRoot)) {
+                        throw new IOException(String.format("Entry %s links to %s outside of %s", operation.path, target, root));
+                    }
+                    try {
+                        Files.createLink(operation.path, target);
+                    } catch (UnsupportedOperationException | IOException e) {
+                        Files.copy(target, operation.path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Creates the parent of given path and checks it is not reached through a link pointing outside of the
+         * destination. A link previously extracted at the path itself is removed, so it is not followed.
+         */
+        private void prepare(Path path) throws IOException {
+            final Path parent = path.getParent();
+            if (!parent.equals(checkedParent)) {
+                Files.createDirectories(parent);
+                if (!parent.toRealPath().startsWith(realRoot)) {
+                    throw new IOException(String.format("Entry %s is written through a link outside of %s", path, root));
+                }
+                makeWritable(parent);
+                checkedParent = parent;
+            }
+            if (Files.isSymbolicLink(path)) {
+                Files.delete(path);
+            }
+        }
+
+        /**
+         * Lets the content of a directory made read only by a previous extraction be replaced. Its mode is restored at
+         * the end, unless the archive sets it.
+         */
+        private void makeWritable(Path directory) throws IOException {
+            if (!POSIX || Files.isWritable(directory)) {
+                return;
+            }
+            final Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory);
+            if (!readOnlyDirectories.containsKey(directory)) {
+                readOnlyDirectories.put(directory, EnumSet.copyOf(permissions));
+            }
+            permissions.add(PosixFilePermission.OWNER_WRITE);
+            Files.setPosixFilePermissions(directory, permissions);
+        }
+
+        private void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    fail(e);
+                }
+                channel = null;
+            }
+        }
+
+        private void applyDirectoryModes() {
+            for (Map.Entry<Path, Set<PosixFilePermission>> readOnly : readOnlyDirectories.entrySet()) {
+                if (!directoryModes.containsKey(readOnly.getKey())) {
+                    try {
+                        Files.setPosixFilePermissions(readOnly.getKey(), readOnly.getValue());
+                    } catch (IOException e) {
+                        fail(e);
+                    }
+                }
+            }
+            final List<Path> directories = new ArrayList<>(directoryModes.keySet());
+            // children first, so a read only parent does not prevent changing them
+            for (int i = directories.size() - 1; i >= 0; i--) {
+                final Path directory = directories.get(i);
+                try {
+                    // a directory replaced by a link afterwards keeps its mode, so the link target is never changed
+                    if (!Files.isSymbolicLink(directory) && directory.getParent().toRealPath().startsWith(realRoot)) {
+                        setMode(directory, directoryModes.get(directory));
+                    }
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        private void fail(IOException e) {
+            if (writeFailure == null) {
+                writeFailure = e;
+            }
+        }
+    }
+
+    private static void setMode(Path path, int mode) throws IOException {
+        if (!POSIX || (mode & 0777) == 0) {
+            return;
+        }
+        final Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        final PosixFilePermission[] values = {
+            PosixFilePermission.OTHERS_EXECUTE, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ,
+            PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_READ,
+            PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_READ
+        };
+        for (int bit = 0; bit < values.length; bit++) {
+            if ((mode & (1 << bit)) != 0) {
+                permissions.add(values[bit]);
+            }
+        }
+        Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS).setPermissions(permissions);
+    }
+}
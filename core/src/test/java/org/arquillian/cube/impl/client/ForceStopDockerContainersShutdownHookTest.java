@@ -0,0 +1,133 @@
+package org.arquillian.cube.impl.client;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.arquillian.cube.impl.model.LocalCubeRegistry;
+import org.arquillian.cube.spi.Cube;
+import org.arquillian.cube.spi.CubeRegistry;
+import org.arquillian.cube.spi.metadata.IsShared;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ForceStopDockerContainersShutdownHookTest {
+
+    @Test
+    public void shouldStopOnlyStartedCubes() {
+        Cube<?> started = cube("started", Cube.State.STARTED);
+        Cube<?> preRunning = cube("prerunning", Cube.State.PRE_RUNNING);
+
+        CubeRegistry cubeRegistry = new LocalCubeRegistry();
+        cubeRegistry.addCube(started);
+        cubeRegistry.addCube(preRunning);
+
+        ForceStopDockerContainersShutdownHook.forceStop(cubeRegistry, 5, TimeUnit.SECONDS);
+
+        verify(started).stop();
+        verify(started).destroy();
+        verify(preRunning, never()).stop();
+        verify(preRunning, never()).destroy();
+    }
+
+    @Test
+    public void shouldNotStopSharedCubesUsedByOthers() {
+        Cube<?> used = cube("used", Cube.State.STARTED);
+        shared(used, true);
+        Cube<?> unused = cube("unused", Cube.State.STARTED);
+        shared(unused, false);
+
+        CubeRegistry cubeRegistry = new LocalCubeRegistry();
+        cubeRegistry.addCube(used);
+        cubeRegistry.addCube(unused);
+
+        ForceStopDockerContainersShutdownHook.forceStop(cubeRegistry, 5, TimeUnit.SECONDS);
+
+        verify(used, never()).stop();
+        verify(unused).stop();
+        verify(unused).destroy();
+    }
+
+    @Test
+    public void shouldStopCubesConcurrently() {
+        // each stop waits until all cubes are being stopped, so it only finishes if they run in parallel
+        final CountDownLatch allStopping = new CountDownLatch(3);
+        final AtomicBoolean concurrent = new AtomicBoolean(true);
+        CubeRegistry cubeRegistry = new LocalCubeRegistry();
+        Cube<?>[] cubes = new Cube<?>[3];
+        for (int i = 0; i < cubes.length; i++) {
+            cubes[i] = cube("cube" + i, Cube.State.STARTED);
+            doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) throws Throwable {
+                    allStopping.countDown();
+                    if (!allStopping.await(2, TimeUnit.SECONDS)) {
+                        concurrent.set(false);
+                    }
+                    return null;
+                }
+            }).when(cubes[i]).stop();
+            cubeRegistry.addCube(cubes[i]);
+        }
+
+        ForceStopDockerContainersShutdownHook.forceStop(cubeRegistry, 5, TimeUnit.SECONDS);
+
+        assertThat(concurrent.get(), is(true));
+        for (Cube<?> cube : cubes) {
+            verify(cube).destroy();
+        }
+    }
+
+    @Test
+    public void shouldForceStopCubesOfEveryRunningSuite() {
+        Cube<?> first = cube("first", Cube.State.STARTED);
+        CubeRegistry firstRegistry = new LocalCubeRegistry();
+        firstRegistry.addCube(first);
+        Cube<?> second = cube("second", Cube.State.STARTED);
+        CubeRegistry secondRegistry = new LocalCubeRegistry();
+        secondRegistry.addCube(second);
+
+        ForceStopDockerContainersShutdownHook hook = new ForceStopDockerContainersShutdownHook();
+        hook.attachShutDownHookForceStopDcokerContainers(null, firstRegistry);
+        hook.attachShutDownHookForceStopDcokerContainers(null, secondRegistry);
+        try {
+            assertThat(ForceStopDockerContainersShutdownHook.getCubeRegistries(), hasItem(firstRegistry));
+            assertThat(ForceStopDockerContainersShutdownHook.getCubeRegistries(), hasItem(secondRegistry));
+
+            hook.detachCubeRegistry(null, firstRegistry);
+            assertThat(ForceStopDockerContainersShutdownHook.getCubeRegistries(), not(hasItem(firstRegistry)));
+
+            ForceStopDockerContainersShutdownHook.forceStop(ForceStopDockerContainersShutdownHook.getCubeRegistries(), 5, TimeUnit.SECONDS);
+            verify(first, never()).stop();
+            verify(second).stop();
+            verify(second).destroy();
+        } finally {
+            hook.detachCubeRegistry(null, secondRegistry);
+        }
+    }
+
+    private Cube<?> cube(String id, Cube.State state) {
+        Cube<?> cube = mock(Cube.class);
+        when(cube.getId()).thenReturn(id);
+        when(cube.state()).thenReturn(state);
+        return cube;
+    }
+
+    private void shared(Cube<?> cube, boolean usedByOthers) {
+        IsShared shared = mock(IsShared.class);
+        when(shared.isUsedByOthers()).thenReturn(usedByOthers);
+        when(cube.hasMetadata(IsShared.class)).thenReturn(true);
+        when(cube.getMetadata(IsShared.class)).thenReturn(shared);
+    }
+}
@@ -0,0 +1,92 @@
+package org.arquillian.cube.impl.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.arquillian.cube.spi.Cube;
+import org.arquillian.cube.spi.metadata.CanSeeTop;
+import org.arquillian.cube.spi.metadata.IsBuildable;
+import org.junit.Test;
+
+public class LocalCubeRegistryTest {
+
+    @Test
+    public void shouldFindCubesByIdAndMetadata() {
+        LocalCubeRegistry registry = new LocalCubeRegistry();
+        Cube<?> buildable = cube("a", IsBuildable.class);
+        Cube<?> other = cube("b", CanSeeTop.class);
+        registry.addCube(buildable);
+        registry.addCube(other);
+
+        assertThat(registry.getCube("a") == buildable, is(true));
+        assertThat(registry.getByMetadata(IsBuildable.class).size(), is(1));
+
+        Cube<?> another = cube("c", IsBuildable.class);
+        registry.addCube(another);
+        assertThat(registry.getByMetadata(IsBuildable.class).size(), is(2));
+
+        registry.removeCube("a");
+        assertThat(registry.getCube("a"), is(nullValue()));
+        assertThat(registry.getByMetadata(IsBuildable.class).get(0) == another, is(true));
+        assertThat(registry.getCubes().size(), is(2));
+    }
+
+    @Test
+    public void shouldFindMetadataAddedAfterRegistration() {
+        LocalCubeRegistry registry = new LocalCubeRegistry();
+        Cube<?> cube = cube("a", CanSeeTop.class);
+        registry.addCube(cube);
+        assertThat(registry.getByMetadata(IsBuildable.class).size(), is(0));
+
+        when(cube.hasMetadata(IsBuildable.class)).thenReturn(true);
+
+        assertThat(registry.getByMetadata(IsBuildable.class).size(), is(1));
+    }
+
+    @Test
+    public void shouldAllowConcurrentRegistrationWhileIterating() throws Exception {
+        final LocalCubeRegistry registry = new LocalCubeRegistry();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final int thread = i;
+            results.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < 100; j++) {
+                        registry.addCube(cube(thread + "-" + j, IsBuildable.class));
+                        for (Cube<?> cube : registry.getCubes()) {
+                            cube.getId();
+                        }
+                        registry.getByMetadata(IsBuildable.class);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        executorService.shutdown();
+
+        assertThat(registry.getCubes().size(), is(400));
+        assertThat(registry.getByMetadata(IsBuildable.class).size(), is(400));
+    }
+
+    private static Cube<?> cube(String id, Class<? extends org.arquillian.cube.spi.metadata.CubeMetadata> metadata) {
+        Cube<?> cube = mock(Cube.class);
+        when(cube.getId()).thenReturn(id);
+        when(cube.hasMetadata(metadata)).thenReturn(true);
+        return cube;
+    }
+}
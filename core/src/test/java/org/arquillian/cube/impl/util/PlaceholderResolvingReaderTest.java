@@ -0,0 +1,69 @@
+package org.arquillian.cube.impl.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PlaceholderResolvingReaderTest {
+
+    @After
+    public void clearProperties() {
+        System.clearProperty("cube.test.image");
+    }
+
+    @Test
+    public void shouldResolvePropertiesThenEnvironmentThenDefaults() throws IOException {
+        System.setProperty("cube.test.image", "tomcat:8");
+        Map<String, String> environment = new HashMap<>();
+        environment.put("cube.test.image", "tomcat:7");
+        environment.put("PORT", "8080");
+
+        String resolved = read("image: ${cube.test.image}\nports: [\"${PORT}:${PORT}\"]\nuser: ${USER_NAME:-${DEFAULT_USER:-admin}}\nhost: ${HOST}.\n",
+            environment);
+
+        assertThat(resolved, is("image: tomcat:8\nports: [\"8080:8080\"]\nuser: admin\nhost: .\n"));
+    }
+
+    @Test
+    public void shouldKeepEscapedAndIncompletePlaceholders() throws IOException {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("NAME", "value");
+
+        assertThat(read("cost: 5$ $${NAME} ${NAME} ${NAME\nnext: $", environment), is("cost: 5$ ${NAME} value ${NAME\nnext: $"));
+    }
+
+    @Test
+    public void shouldResolvePlaceholdersAcrossBufferBoundaries() throws IOException {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("VERSION", "1.0");
+
+        StringBuilder content = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("v").append(i).append(": ${VERSION}\n");
+            expected.append("v").append(i).append(": 1.0\n");
+        }
+
+        assertThat(read(content.toString(), environment), is(expected.toString()));
+    }
+
+    private static String read(String content, Map<String, String> environment) throws IOException {
+        StringBuilder resolved = new StringBuilder();
+        try (Reader reader = new PlaceholderResolvingReader(new StringReader(content), environment)) {
+            char[] chunk = new char[7];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                resolved.append(chunk, 0, read);
+            }
+        }
+        return resolved.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package org.arquillian.cube.impl.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ReflectionUtilTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marked {
+    }
+
+    @Marked
+    static class Parent {
+        @Marker
+        private String parentField;
+    }
+
+    static class Child extends Parent {
+        @Marker
+        private int childField;
+
+        private String port;
+
+        public String getPort() {
+            return port;
+        }
+
+        public void setPort(String port) {
+            this.port = port;
+        }
+    }
+
+    static class GrandChild extends Child {
+    }
+
+    @Test
+    public void shouldFindAnnotatedFieldsOfHierarchyOnce() {
+        List<Field> fields = ReflectionUtil.getFieldsWithAnnotation(GrandChild.class, Marker.class);
+
+        assertThat(fields.size(), is(2));
+        assertThat(fields.get(0).getName(), is("childField"));
+        assertThat(fields.get(1).getName(), is("parentField"));
+        assertThat(fields.get(1).isAccessible(), is(true));
+        assertThat(ReflectionUtil.getFieldsWithAnnotation(GrandChild.class, Marker.class), sameInstance(fields));
+    }
+
+    @Test
+    public void shouldFindClassAnnotationOfSuperclasses() {
+        assertThat(ReflectionUtil.isClassWithAnnotation(GrandChild.class, Marked.class), is(true));
+        assertThat(ReflectionUtil.isClassWithAnnotation(GrandChild.class, Inherited.class), is(false));
+    }
+
+    @Test
+    public void shouldIntrospectPropertiesExceptTheOnesOfObject() {
+        List<PropertyDescriptor> properties = ReflectionUtil.getPropertyDescriptors(Child.class);
+
+        assertThat(properties.size(), is(1));
+        assertThat(properties.get(0).getName(), is("port"));
+        assertThat(ReflectionUtil.getPropertyDescriptors(Child.class), sameInstance(properties));
+    }
+}
@@ -0,0 +1,184 @@
+package org.arquillian.cube.impl.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TarExtractorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldExtractContentLargerThanBuffers() throws IOException {
+        byte[] content = new byte[5 * 1024 * 1024 + 7];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            addFile(out, "reports/heap.hprof", content, 0644);
+            addFile(out, "reports/empty.txt", new byte[0], 0644);
+        }
+
+        File destination = temporaryFolder.newFolder();
+        TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), destination);
+
+        assertThat(Arrays.equals(Files.readAllBytes(new File(destination, "reports/heap.hprof").toPath()), content), is(true));
+        assertThat(new File(destination, "reports/empty.txt").length(), is(0L));
+    }
+
+    @Test
+    public void shouldRestoreModesAndSymbolicLinks() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            addFile(out, "bin/run.sh", "echo".getBytes(), 0750);
+            TarArchiveEntry link = new TarArchiveEntry("bin/start.sh", TarArchiveEntry.LF_SYMLINK);
+            link.setLinkName("run.sh");
+            out.putArchiveEntry(link);
+            out.closeArchiveEntry();
+        }
+
+        File destination = temporaryFolder.newFolder();
+        TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), destination);
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(new File(destination, "bin/run.sh").toPath())), is("rwxr-x---"));
+        assertThat(Files.readSymbolicLink(new File(destination, "bin/start.sh").toPath()), is(Paths.get("run.sh")));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectEntriesOutsideOfDestination() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            addFile(out, "../escaped.txt", "x".getBytes(), 0644);
+        }
+
+        TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), temporaryFolder.newFolder());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectEntriesWrittenThroughLinksOutsideOfDestination() throws IOException {
+        File outside = temporaryFolder.newFolder();
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            TarArchiveEntry link = new TarArchiveEntry("data", TarArchiveEntry.LF_SYMLINK);
+            link.setLinkName(outside.getAbsolutePath());
+            out.putArchiveEntry(link);
+            out.closeArchiveEntry();
+            addFile(out, "data/escaped.txt", "x".getBytes(), 0644);
+        }
+
+        TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), temporaryFolder.newFolder());
+    }
+
+    @Test
+    public void shouldRejectDirectoriesCreatedThroughLinksOutsideOfDestination() throws IOException {
+        File outside = temporaryFolder.newFolder();
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            addSymbolicLink(out, "data", outside.getAbsolutePath());
+            TarArchiveEntry directory = new TarArchiveEntry("data/planted/");
+            directory.setMode(0777);
+            out.putArchiveEntry(directory);
+            out.closeArchiveEntry();
+        }
+
+        try {
+            TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), temporaryFolder.newFolder());
+            fail("Directory written through a link outside of the destination should be rejected");
+        } catch (IOException e) {
+            assertThat(new File(outside, "planted").exists(), is(false));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectHardLinksToPathsOutsideOfDestination() throws IOException {
+        File outside = temporaryFolder.newFile();
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            addSymbolicLink(out, "secret", outside.getAbsolutePath());
+            TarArchiveEntry link = new TarArchiveEntry("copy", TarArchiveEntry.LF_LINK);
+            link.setLinkName("secret");
+            out.putArchiveEntry(link);
+            out.closeArchiveEntry();
+        }
+
+        TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), temporaryFolder.newFolder());
+    }
+
+    @Test
+    public void shouldExtractReadOnlyFilesAgain() throws IOException {
+        File destination = temporaryFolder.newFolder();
+        for (String content : new String[] {"first", "second"}) {
+            ByteArrayOutputStream tar = new ByteArrayOutputStream();
+            try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+                TarArchiveEntry directory = new TarArchiveEntry("conf/");
+                directory.setMode(0555);
+                out.putArchiveEntry(directory);
+                out.closeArchiveEntry();
+                addFile(out, "conf/server.xml", content.getBytes(), 0444);
+            }
+
+            TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), destination);
+        }
+
+        assertThat(new String(Files.readAllBytes(new File(destination, "conf/server.xml").toPath())), is("second"));
+    }
+
+    @Test
+    public void shouldStopWriterWhenInterrupted() throws Exception {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            addFile(out, "reports/report.txt", "x".getBytes(), 0644);
+        }
+
+        Thread.currentThread().interrupt();
+        try {
+            TarExtractor.extract(new ByteArrayInputStream(tar.toByteArray()), temporaryFolder.newFolder());
+            fail("Interrupted extraction should fail");
+        } catch (IOException e) {
+            assertThat(Thread.interrupted(), is(true));
+        }
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("arquillian-cube-untar".equals(thread.getName())) {
+                thread.join(5000);
+                assertThat(thread.isAlive(), is(false));
+            }
+        }
+    }
+
+    private static void addSymbolicLink(TarArchiveOutputStream out, String name, String target) throws IOException {
+        TarArchiveEntry link = new TarArchiveEntry(name, TarArchiveEntry.LF_SYMLINK);
+        link.setLinkName(target);
+        out.putArchiveEntry(link);
+        out.closeArchiveEntry();
+    }
+
+    private static void addFile(TarArchiveOutputStream out, String name, byte[] content, int mode) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        entry.setMode(mode);
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+}
@@ -2,11 +2,10 @@ package org.arquillian.cube.docker.impl.await;
 
 import org.arquillian.cube.docker.impl.client.config.Await;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.impl.util.ReflectionUtil;
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.await.AwaitStrategy;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -53,7 +52,7 @@ public class CustomAwaitStrategyInstantiator implements AwaitStrategy {
 
             // Inject if there is a setter for Cube, DockerClientExecutor or Await
             for(PropertyDescriptor propertyDescriptor :
-                    Introspector.getBeanInfo(customStrategyInstance.getClass()).getPropertyDescriptors()){
+                    ReflectionUtil.getPropertyDescriptors(customStrategyInstance.getClass())){
                 final Method writeMethod = propertyDescriptor.getWriteMethod();
                 if (writeMethod != null) {
                     if (writeMethod.getParameterTypes()[0].isAssignableFrom(Cube.class)) {
@@ -72,7 +71,7 @@ public class CustomAwaitStrategyInstantiator implements AwaitStrategy {
 
             // Finally we call the await method
             return customStrategyInstance.await();
-        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | IntrospectionException | InvocationTargetException e) {
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
             throw new IllegalArgumentException(e);
         }
 
@@ -3,15 +3,20 @@ package org.arquillian.cube.docker.impl.await;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.regex.Pattern;
 
+import org.arquillian.cube.LogQuery;
 import org.arquillian.cube.docker.impl.client.config.Await;
+import org.arquillian.cube.docker.impl.docker.ContainerLogFollower;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
 import org.arquillian.cube.docker.impl.util.Ping;
 import org.arquillian.cube.docker.impl.util.PingCommand;
 import org.arquillian.cube.spi.Cube;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.Info;
 import com.github.dockerjava.core.async.ResultCallbackTemplate;
@@ -36,6 +41,8 @@ public class LogScanningAwaitStrategy extends SleepingAwaitStrategyBase {
     private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
     
     private final LogMatcher matcher; 
+
+    private final LogQuery query;
     
     public LogScanningAwaitStrategy(Cube<?> cube, DockerClientExecutor dockerClientExecutor, Await params) {
         super(params.getSleepPollingTime());
@@ -51,9 +58,18 @@ public class LogScanningAwaitStrategy extends SleepingAwaitStrategyBase {
         this.stdErr = params.isStdErr();
 
         if (params.getMatch().startsWith(REGEXP_PREFIX)) {
-            matcher = new RegexpLogMatcher(params.getMatch().substring(REGEXP_PREFIX.length()));
+            final String regexp = params.getMatch().substring(REGEXP_PREFIX.length());
+            matcher = new RegexpLogMatcher(regexp);
+            // captured lines are matched as a whole, as lines read from docker are
+            query = LogQuery.matching("(?s)^(?:" + regexp + ")$");
         } else {
             matcher = new ContainsLogMatcher(params.getMatch());
+            query = LogQuery.containing(params.getMatch());
+        }
+        if (!stdErr) {
+            query.onlyStdOut();
+        } else if (!stdOut) {
+            query.onlyStdErr();
         }
     }
     
@@ -71,6 +87,11 @@ public class LogScanningAwaitStrategy extends SleepingAwaitStrategyBase {
 
     @Override
     public boolean await() {
+        final ContainerLogFollower follower = dockerClientExecutor.getLogFollower(cube.getId());
+        if (follower != null) {
+            return awaitCapturedLog(follower);
+        }
+
         final DockerClient client = dockerClientExecutor.getDockerClient();
         
         Info info = client.infoCmd().exec();
@@ -82,21 +103,57 @@ public class LogScanningAwaitStrategy extends SleepingAwaitStrategyBase {
         return Ping.ping(pollIterations, getSleepTime(), getTimeUnit(), new PingCommand() {
             @Override
             public boolean call() {
-                try {
-                    client.logContainerCmd(cube.getId())
-                            .withStdOut(stdOut).withStdErr(stdErr)
-                            .withTimestamps(true).withSince(callback.getLastTimestamp())
-                            .exec(callback).awaitCompletion();
-                }
-                catch (InterruptedException e) {
-                    // do nothing
-                }
-                
-                return callback.isFound();
+                return scanLog(client, callback);
             }
         });
     }
+
+    private boolean scanLog(DockerClient client, LogContainerResultCallback callback) {
+        try {
+            client.logContainerCmd(cube.getId())
+                    .withStdOut(stdOut).withStdErr(stdErr)
+                    .withTimestamps(true).withSince(callback.getLastTimestamp())
+                    .exec(callback).awaitCompletion();
+        }
+        catch (InterruptedException e) {
+            // do nothing
+        }
+        
+        return callback.isFound();
+    }
     
+    /**
+     * Waits for the lines captured in background instead of requesting the log on each iteration. When lines were
+     * dropped from memory before being scanned, the log of the container since it was started is read once.
+     */
+    private boolean awaitCapturedLog(final ContainerLogFollower follower) {
+        // lines logged before the container was restarted do not count
+        final long from = follower.getFollowedFrom();
+        try {
+            if (follower.waitForLine(query, from, pollIterations * getTimeUnit().toMillis(getSleepTime())) != null) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (follower.getDroppedLines() <= from) {
+            return false;
+        }
+
+        final DockerClient client = dockerClientExecutor.getDockerClient();
+        final InspectContainerResponse container = client.inspectContainerCmd(cube.getId()).exec();
+        return scanLog(client, new LogContainerResultCallback(parseStartedAt(container.getState().getStartedAt())));
+    }
+
+    private int parseStartedAt(String startedAt) {
+        try {
+            return (int) Instant.parse(startedAt).getEpochSecond();
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Timestamp parse failure: " + startedAt, e);
+        }
+    }
+
     private int parseTimestamp(String s) {
         try {
             return (int) dateFormat.parse(s.substring(0, s.indexOf('.'))).getTime() / 1000;
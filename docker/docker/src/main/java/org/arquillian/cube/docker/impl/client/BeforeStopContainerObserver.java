@@ -1,13 +1,25 @@
 package org.arquillian.cube.docker.impl.client;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 
 import org.arquillian.cube.docker.impl.client.config.BeforeStop;
 import org.arquillian.cube.docker.impl.client.config.Copy;
@@ -16,32 +28,109 @@ import org.arquillian.cube.docker.impl.client.config.Log;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
 import org.arquillian.cube.docker.impl.model.DockerCube;
 import org.arquillian.cube.impl.util.IOUtil;
+import org.arquillian.cube.impl.util.TarExtractor;
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.CubeRegistry;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.core.api.annotation.Observes;
-
+import org.jboss.arquillian.core.api.threading.ExecutorService;
+
+/**
+ * Executes the beforeStop actions of a cube.
+ *
+ * Cubes of the same stop step are already stopped concurrently, and the actions of a cube run concurrently as well,
+ * so collecting artifacts takes as long as the slowest action instead of the sum of all of them. Copied directories
+ * can be filtered and stored as a single <code>tar.gz</code> streamed from Docker without being extracted, and logs
+ * can be compressed while they are written.
+ */
 public class BeforeStopContainerObserver {
 
+    private static final int BUFFER = 64 * 1024;
+
+    @Inject
+    private Instance<ExecutorService> executorServiceInst;
+
     public void processCommands(@Observes org.arquillian.cube.spi.event.lifecycle.BeforeStop beforeStop, CubeRegistry cubeRegistry,
-            DockerClientExecutor dockerClientExecutor) throws IOException {
+            final DockerClientExecutor dockerClientExecutor) throws IOException {
 
         Cube<CubeContainer> cube = cubeRegistry.getCube(beforeStop.getCubeId(), DockerCube.class);
         CubeContainer configuration = cube.configuration();
+        final String containerId = beforeStop.getCubeId();
 
         if (configuration.getBeforeStop() != null) {
             Collection<BeforeStop> beforeStopConfiguration = configuration.getBeforeStop();
 
+            final List<Callable<Void>> actions = new ArrayList<>();
             for (BeforeStop map : beforeStopConfiguration) {
                 if (map.getCopy() != null) {
-                    Copy copyConfiguration = map.getCopy();
-                    executeCopyAction(dockerClientExecutor, beforeStop.getCubeId(), copyConfiguration);
+                    final Copy copyConfiguration = map.getCopy();
+                    actions.add(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            executeCopyAction(dockerClientExecutor, containerId, copyConfiguration);
+                            return null;
+                        }
+                    });
                 } else {
                     if (map.getLog() != null) {
-                        Log logConfiguration = map.getLog();
-                        executeLogAction(dockerClientExecutor, beforeStop.getCubeId(), logConfiguration);
+                        final Log logConfiguration = map.getLog();
+                        actions.add(new Callable<Void>() {
+                            @Override
+                            public Void call() throws Exception {
+                                executeLogAction(dockerClientExecutor, containerId, logConfiguration);
+                                return null;
+                            }
+                        });
                     }
                 }
             }
+            executeActions(actions);
+        }
+    }
+
+    private void executeActions(List<Callable<Void>> actions) throws IOException {
+        final ExecutorService executorService = executorServiceInst.get();
+        if (actions.size() == 1 || executorService == null) {
+            for (Callable<Void> action : actions) {
+                call(action);
+            }
+            return;
+        }
+
+        final List<Future<Void>> results = new ArrayList<>();
+        for (Callable<Void> action : actions) {
+            results.add(executorService.submit(action));
+        }
+        // every action is awaited before failing, so no copy is still running against a stopping container
+        Throwable failure = null;
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while executing beforeStop actions", e);
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+        }
+    }
+
+    private static void call(Callable<Void> action) throws IOException {
+        try {
+            action.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
         }
     }
 
@@ -87,7 +176,13 @@ public class BeforeStopContainerObserver {
 
         Path toDirectory = toPath.getParent();
         Files.createDirectories(toDirectory);
-        dockerClientExecutor.copyLog(containerId, follow, stdout, stderr, timestamps, tail, new FileOutputStream(toPathFile));
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(toPathFile), BUFFER);
+        if (Boolean.TRUE.equals(configurationParameters.getCompress())) {
+            output = new GZIPOutputStream(output, BUFFER);
+        }
+        try (OutputStream log = output) {
+            dockerClientExecutor.copyLog(containerId, follow, stdout, stderr, timestamps, tail, log);
+        }
     }
     private void executeCopyAction(DockerClientExecutor dockerClientExecutor, String containerId, Copy configurationParameters) throws IOException {
         String to = null;
@@ -109,6 +204,40 @@ public class BeforeStopContainerObserver {
 
         Files.createDirectories(toPath);
 
-        IOUtil.untar(response, toPathFile);
+        final CopyFilter filter = CopyFilter.from(configurationParameters);
+        if (Boolean.TRUE.equals(configurationParameters.getCompress())) {
+            final Path fromName = Paths.get(from).getFileName();
+            final File archive = new File(toPathFile, (fromName != null ? fromName.toString() : "root") + ".tar.gz");
+            compress(response, archive, filter);
+        } else if (filter.isFiltering()) {
+            try (InputStream tar = response) {
+                TarExtractor.extract(tar, toPathFile, filter);
+            }
+        } else {
+            IOUtil.untar(response, toPathFile);
+        }
+    }
+
+    private static void compress(InputStream response, File archive, CopyFilter filter) throws IOException {
+        try (TarArchiveInputStream in = new TarArchiveInputStream(response);
+             TarArchiveOutputStream out = new TarArchiveOutputStream(new GZIPOutputStream(new FileOutputStream(archive), BUFFER))) {
+            out.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            out.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            final byte[] buffer = new byte[BUFFER];
+            TarArchiveEntry entry;
+            while ((entry = in.getNextTarEntry()) != null) {
+                if (!filter.accept(entry)) {
+                    continue;
+                }
+                out.putArchiveEntry(entry);
+                if (entry.isFile()) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                out.closeArchiveEntry();
+            }
+        }
     }
 }
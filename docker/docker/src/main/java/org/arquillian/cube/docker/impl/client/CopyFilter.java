@@ -0,0 +1,79 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.arquillian.cube.docker.impl.client.config.Copy;
+import org.arquillian.cube.impl.util.TarExtractor;
+
+/**
+ * Selects the entries collected by a beforeStop copy action using its include and exclude globs and its maximum file
+ * size. Globs are matched against the entry name inside the tar returned by Docker, which starts with the name of the
+ * copied file or directory.
+ *
+ * Globs follow {@link java.nio.file.FileSystem#getPathMatcher(String)}: <code>*</code> matches within a single
+ * directory and <code>**</code> across directories, so <code>logs/**.log</code> selects the logs at any depth while
+ * <code>logs/**&#47;*.log</code> needs at least one directory below <code>logs</code>. Files are selected when no
+ * include is set or any include matches, and no exclude matches. Directories are always kept, so excluded files leave
+ * their directories behind.
+ */
+class CopyFilter implements TarExtractor.EntryFilter {
+
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final long maxSize;
+
+    private CopyFilter(List<PathMatcher> includes, List<PathMatcher> excludes, long maxSize) {
+        this.includes = includes;
+        this.excludes = excludes;
+        this.maxSize = maxSize;
+    }
+
+    static CopyFilter from(Copy copy) {
+        return new CopyFilter(matchers(copy.getInclude()), matchers(copy.getExclude()),
+                copy.getMaxSize() != null ? copy.getMaxSize() : -1);
+    }
+
+    boolean isFiltering() {
+        return !includes.isEmpty() || !excludes.isEmpty() || maxSize >= 0;
+    }
+
+    @Override
+    public boolean accept(TarArchiveEntry entry) {
+        if (entry.isDirectory()) {
+            return true;
+        }
+        if (maxSize >= 0 && entry.getSize() > maxSize) {
+            return false;
+        }
+        String name = entry.getName();
+        while (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        return (includes.isEmpty() || matches(includes, name)) && !matches(excludes, name);
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, String name) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(Paths.get(name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathMatcher> matchers(Collection<String> globs) {
+        final List<PathMatcher> matchers = new ArrayList<>();
+        if (globs != null) {
+            for (String glob : globs) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+            }
+        }
+        return matchers;
+    }
+}
@@ -3,9 +3,16 @@ package org.arquillian.cube.docker.impl.client;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.apache.commons.lang.StringUtils;
@@ -46,6 +53,24 @@ public class CubeDockerConfiguration {
     public static final String CUBE_SPECIFIC_PROPERTIES = "cubeSpecificProperties";
     public static final String CLEAN = "clean";
     public static final String REMOVE_VOLUMES = "removeVolumes";
+    public static final String LIFECYCLE_PARALLELISM = "lifecycleParallelism";
+    public static final String IMAGE_OPERATIONS_PARALLELISM = "imageOperationsParallelism";
+    public static final String SHARE_CONTAINERS = "shareContainers";
+    public static final String SHARED_CONTAINERS_IDLE_TIMEOUT = "sharedContainersIdleTimeout";
+    public static final String SHARED_CONTAINERS_WAIT_TIMEOUT = "sharedContainersWaitTimeout";
+    public static final String RESOURCE_ADMISSION_CONTROL = "resourceAdmissionControl";
+    public static final String RESOURCE_ADMISSION_TIMEOUT = "resourceAdmissionTimeout";
+    public static final String IMAGE_CACHE_DIRECTORY = "imageCacheDirectory";
+    public static final String POPULATE_IMAGE_CACHE = "populateImageCache";
+    public static final String CUBE_IMAGES_TO_KEEP = "cubeImagesToKeep";
+    public static final String REUSE_NETWORKS = "reuseNetworks";
+    public static final String CAPTURE_LOGS = "captureLogs";
+    public static final String LOG_CAPTURE_DIRECTORY = "logCaptureDirectory";
+    public static final String LOG_CAPTURE_MAX_FILE_SIZE = "logCaptureMaxFileSize";
+    public static final String LOG_CAPTURE_MAX_FILES = "logCaptureMaxFiles";
+    public static final String LOG_BUFFER_LINES = "logBufferLines";
+    public static final String SAMPLE_STATISTICS = "sampleStatistics";
+    public static final String DEFINITIONS_CACHE_DIRECTORY = "definitionsCacheDirectory";
 
     private String dockerServerVersion;
     private String dockerServerUri;
@@ -63,6 +88,24 @@ public class CubeDockerConfiguration {
     private boolean dockerInsideDockerResolution = true;
     private boolean clean = false;
     private boolean removeVolumes = true;
+    private int lifecycleParallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private int imageOperationsParallelism = 2;
+    private boolean shareContainers = false;
+    private int sharedContainersIdleTimeout = 0;
+    private int sharedContainersWaitTimeout = 300;
+    private boolean resourceAdmissionControl = false;
+    private int resourceAdmissionTimeout = 300;
+    private String imageCacheDirectory;
+    private boolean populateImageCache = false;
+    private int cubeImagesToKeep = -1;
+    private boolean reuseNetworks = false;
+    private boolean captureLogs = false;
+    private String logCaptureDirectory;
+    private long logCaptureMaxFileSize = 10 * 1024 * 1024;
+    private int logCaptureMaxFiles = 3;
+    private int logBufferLines = 1000;
+    private boolean sampleStatistics = false;
+    private String definitionsCacheDirectory;
     private AutoStartParser autoStartContainers = null;
     private DockerAutoStartOrder dockerAutoStartOrder = null;
 
@@ -141,6 +184,82 @@ public class CubeDockerConfiguration {
         return removeVolumes;
     }
 
+    public int getLifecycleParallelism() {
+        return lifecycleParallelism;
+    }
+
+    public int getImageOperationsParallelism() {
+        return imageOperationsParallelism;
+    }
+
+    public boolean isShareContainers() {
+        return shareContainers;
+    }
+
+    public int getSharedContainersIdleTimeout() {
+        return sharedContainersIdleTimeout;
+    }
+
+    public int getSharedContainersWaitTimeout() {
+        return sharedContainersWaitTimeout;
+    }
+
+    public boolean isResourceAdmissionControl() {
+        return resourceAdmissionControl;
+    }
+
+    public int getResourceAdmissionTimeout() {
+        return resourceAdmissionTimeout;
+    }
+
+    public String getImageCacheDirectory() {
+        return imageCacheDirectory;
+    }
+
+    public boolean isPopulateImageCache() {
+        return populateImageCache;
+    }
+
+    public int getCubeImagesToKeep() {
+        return cubeImagesToKeep;
+    }
+
+    public boolean isImageGarbageCollection() {
+        return cubeImagesToKeep >= 0;
+    }
+
+    public boolean isReuseNetworks() {
+        return reuseNetworks;
+    }
+
+    public boolean isCaptureLogs() {
+        return captureLogs;
+    }
+
+    public String getLogCaptureDirectory() {
+        return logCaptureDirectory;
+    }
+
+    public long getLogCaptureMaxFileSize() {
+        return logCaptureMaxFileSize;
+    }
+
+    public int getLogCaptureMaxFiles() {
+        return logCaptureMaxFiles;
+    }
+
+    public int getLogBufferLines() {
+        return logBufferLines;
+    }
+
+    public boolean isSampleStatistics() {
+        return sampleStatistics;
+    }
+
+    public String getDefinitionsCacheDirectory() {
+        return definitionsCacheDirectory;
+    }
+
     void setAutoStartContainers(AutoStartParser autoStartParser) {
         this.autoStartContainers = autoStartParser;
     }
@@ -213,54 +332,11 @@ public class CubeDockerConfiguration {
             cubeConfiguration.definitionFormat = DefinitionFormat.valueOf(DefinitionFormat.class, definitionContent);
         }
 
-        if (map.containsKey(DOCKER_CONTAINERS)) {
-            String content = map.get(DOCKER_CONTAINERS);
-            cubeConfiguration.dockerContainersContent = DockerContainerDefinitionParser.convert(content, cubeConfiguration.definitionFormat);
+        if (map.containsKey(DEFINITIONS_CACHE_DIRECTORY)) {
+            cubeConfiguration.definitionsCacheDirectory = map.get(DEFINITIONS_CACHE_DIRECTORY);
         }
 
-        if (map.containsKey(DOCKER_CONTAINERS_FILE)) {
-            final String location = map.get(DOCKER_CONTAINERS_FILE);
-            final List<URI> resolveUri = new ArrayList<>();
-            try {
-                final URI uri = URI.create(location);
-                resolveUri.add(uri);
-
-                if (System.getProperty(CUBE_ENVIRONMENT) != null) {
-                    final String resolveFilename = resolveFilename(uri);
-                    final String environmentUri = uri.toString().replace(resolveFilename, resolveFilename + "." + System.getProperty(CUBE_ENVIRONMENT));
-                    resolveUri.add(URI.create(environmentUri));
-                }
-
-                cubeConfiguration.dockerContainersContent = DockerContainerDefinitionParser.convert(cubeConfiguration.definitionFormat, resolveUri.toArray(new URI[resolveUri.size()]));
-            } catch (IOException e) {
-                throw new IllegalArgumentException(e);
-            }
-        }
-
-        if (map.containsKey(DOCKER_CONTAINERS_FILES)) {
-
-            String locations = map.get(DOCKER_CONTAINERS_FILES);
-            List<URI> realLocations = getUris(locations);
-            try {
-                cubeConfiguration.dockerContainersContent = DockerContainerDefinitionParser.convert(cubeConfiguration.definitionFormat, realLocations.toArray(new URI[realLocations.size()]));
-            } catch (IOException e) {
-                throw new IllegalArgumentException(e);
-            }
-        }
-
-        if (!map.containsKey(DOCKER_CONTAINERS) && !map.containsKey(DOCKER_CONTAINERS_FILE) && !map.containsKey(DOCKER_CONTAINERS_FILES)) {
-            try {
-                cubeConfiguration.dockerContainersContent = DockerContainerDefinitionParser.convertDefault(cubeConfiguration.definitionFormat);
-            } catch (IOException e) {
-                throw new IllegalArgumentException(e);
-            }
-        }
-
-        if (map.containsKey(CUBE_SPECIFIC_PROPERTIES)) {
-            String content = map.get(CUBE_SPECIFIC_PROPERTIES);
-            final DockerCompositions overrideInformation = DockerContainerDefinitionParser.convert(content, DefinitionFormat.CUBE);
-            cubeConfiguration.dockerContainersContent.overrideCubeProperties(overrideInformation);
-        }
+        cubeConfiguration.dockerContainersContent = loadDefinitions(map, cubeConfiguration.definitionFormat, cubeConfiguration.definitionsCacheDirectory);
 
         if (map.containsKey(AUTO_START_CONTAINERS)) {
             String expression = map.get(AUTO_START_CONTAINERS);
@@ -284,6 +360,74 @@ public class CubeDockerConfiguration {
             cubeConfiguration.removeVolumes = Boolean.parseBoolean(map.get(REMOVE_VOLUMES));
         }
         
+        if (map.containsKey(LIFECYCLE_PARALLELISM)) {
+            cubeConfiguration.lifecycleParallelism = Integer.parseInt(map.get(LIFECYCLE_PARALLELISM));
+        }
+
+        if (map.containsKey(IMAGE_OPERATIONS_PARALLELISM)) {
+            cubeConfiguration.imageOperationsParallelism = Integer.parseInt(map.get(IMAGE_OPERATIONS_PARALLELISM));
+        }
+
+        if (map.containsKey(SHARE_CONTAINERS)) {
+            cubeConfiguration.shareContainers = Boolean.parseBoolean(map.get(SHARE_CONTAINERS));
+        }
+
+        if (map.containsKey(SHARED_CONTAINERS_IDLE_TIMEOUT)) {
+            cubeConfiguration.sharedContainersIdleTimeout = Integer.parseInt(map.get(SHARED_CONTAINERS_IDLE_TIMEOUT));
+        }
+
+        if (map.containsKey(SHARED_CONTAINERS_WAIT_TIMEOUT)) {
+            cubeConfiguration.sharedContainersWaitTimeout = Integer.parseInt(map.get(SHARED_CONTAINERS_WAIT_TIMEOUT));
+        }
+
+        if (map.containsKey(RESOURCE_ADMISSION_CONTROL)) {
+            cubeConfiguration.resourceAdmissionControl = Boolean.parseBoolean(map.get(RESOURCE_ADMISSION_CONTROL));
+        }
+
+        if (map.containsKey(RESOURCE_ADMISSION_TIMEOUT)) {
+            cubeConfiguration.resourceAdmissionTimeout = Integer.parseInt(map.get(RESOURCE_ADMISSION_TIMEOUT));
+        }
+
+        if (map.containsKey(IMAGE_CACHE_DIRECTORY)) {
+            cubeConfiguration.imageCacheDirectory = map.get(IMAGE_CACHE_DIRECTORY);
+        }
+
+        if (map.containsKey(POPULATE_IMAGE_CACHE)) {
+            cubeConfiguration.populateImageCache = Boolean.parseBoolean(map.get(POPULATE_IMAGE_CACHE));
+        }
+
+        if (map.containsKey(CUBE_IMAGES_TO_KEEP)) {
+            cubeConfiguration.cubeImagesToKeep = Integer.parseInt(map.get(CUBE_IMAGES_TO_KEEP));
+        }
+
+        if (map.containsKey(REUSE_NETWORKS)) {
+            cubeConfiguration.reuseNetworks = Boolean.parseBoolean(map.get(REUSE_NETWORKS));
+        }
+
+        if (map.containsKey(CAPTURE_LOGS)) {
+            cubeConfiguration.captureLogs = Boolean.parseBoolean(map.get(CAPTURE_LOGS));
+        }
+
+        if (map.containsKey(LOG_CAPTURE_DIRECTORY)) {
+            cubeConfiguration.logCaptureDirectory = map.get(LOG_CAPTURE_DIRECTORY);
+        }
+
+        if (map.containsKey(LOG_CAPTURE_MAX_FILE_SIZE)) {
+            cubeConfiguration.logCaptureMaxFileSize = Long.parseLong(map.get(LOG_CAPTURE_MAX_FILE_SIZE));
+        }
+
+        if (map.containsKey(LOG_CAPTURE_MAX_FILES)) {
+            cubeConfiguration.logCaptureMaxFiles = Integer.parseInt(map.get(LOG_CAPTURE_MAX_FILES));
+        }
+
+        if (map.containsKey(LOG_BUFFER_LINES)) {
+            cubeConfiguration.logBufferLines = Integer.parseInt(map.get(LOG_BUFFER_LINES));
+        }
+
+        if (map.containsKey(SAMPLE_STATISTICS)) {
+            cubeConfiguration.sampleStatistics = Boolean.parseBoolean(map.get(SAMPLE_STATISTICS));
+        }
+
         for (CubeContainer container : cubeConfiguration.dockerContainersContent.getContainers().values()) {
             if (container.getRemoveVolumes() == null) {
                 container.setRemoveVolumes(cubeConfiguration.isRemoveVolumes());
@@ -293,6 +437,103 @@ public class CubeDockerConfiguration {
         return cubeConfiguration;
     }
 
+    private static DockerCompositions loadDefinitions(Map<String, String> map, DefinitionFormat definitionFormat, String cacheDirectory) {
+        final URI[] locations = definitionLocations(map, definitionFormat);
+
+        DefinitionsCache definitionsCache = null;
+        String cacheKey = null;
+        if (cacheDirectory != null) {
+            definitionsCache = new DefinitionsCache(new File(HomeResolverUtil.resolveHomeDirectoryChar(cacheDirectory)));
+            cacheKey = definitionsKey(map, definitionFormat, locations);
+            if (cacheKey != null) {
+                final DockerCompositions cached = definitionsCache.load(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+
+        final Set<Path> referencedFiles = new LinkedHashSet<>();
+        final DockerCompositions definitions;
+        try {
+            if (map.containsKey(DOCKER_CONTAINERS_FILES) || map.containsKey(DOCKER_CONTAINERS_FILE)) {
+                definitions = DockerContainerDefinitionParser.convert(definitionFormat, referencedFiles, locations);
+            } else if (map.containsKey(DOCKER_CONTAINERS)) {
+                definitions = DockerContainerDefinitionParser.convert(map.get(DOCKER_CONTAINERS), definitionFormat, referencedFiles);
+            } else {
+                definitions = DockerContainerDefinitionParser.convertDefault(definitionFormat, referencedFiles);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        if (map.containsKey(CUBE_SPECIFIC_PROPERTIES)) {
+            String content = map.get(CUBE_SPECIFIC_PROPERTIES);
+            final DockerCompositions overrideInformation = DockerContainerDefinitionParser.convert(content, DefinitionFormat.CUBE);
+            definitions.overrideCubeProperties(overrideInformation);
+        }
+
+        if (cacheKey != null) {
+            definitionsCache.store(cacheKey, definitions, referencedFiles);
+        }
+        return definitions;
+    }
+
+    /**
+     * @return locations of the definition files, <code>dockerContainersFiles</code> taking precedence over
+     * <code>dockerContainersFile</code>, or the default definition when no definition is configured.
+     */
+    private static URI[] definitionLocations(Map<String, String> map, DefinitionFormat definitionFormat) {
+        if (map.containsKey(DOCKER_CONTAINERS_FILES)) {
+            final List<URI> realLocations = getUris(map.get(DOCKER_CONTAINERS_FILES));
+            return realLocations.toArray(new URI[realLocations.size()]);
+        }
+
+        if (map.containsKey(DOCKER_CONTAINERS_FILE)) {
+            final List<URI> resolveUri = new ArrayList<>();
+            final URI uri = URI.create(map.get(DOCKER_CONTAINERS_FILE));
+            resolveUri.add(uri);
+
+            if (System.getProperty(CUBE_ENVIRONMENT) != null) {
+                final String resolveFilename = resolveFilename(uri);
+                final String environmentUri = uri.toString().replace(resolveFilename, resolveFilename + "." + System.getProperty(CUBE_ENVIRONMENT));
+                resolveUri.add(URI.create(environmentUri));
+            }
+            return resolveUri.toArray(new URI[resolveUri.size()]);
+        }
+
+        if (map.containsKey(DOCKER_CONTAINERS)) {
+            return new URI[0];
+        }
+        final URI defaultUri = DockerContainerDefinitionParser.defaultDefinition(definitionFormat);
+        return defaultUri != null ? new URI[] {defaultUri} : new URI[0];
+    }
+
+    /**
+     * @return key of the definitions in the cache, or null if some definition cannot be read.
+     */
+    private static String definitionsKey(Map<String, String> map, DefinitionFormat definitionFormat, URI[] locations) {
+        final List<String> inputs = new ArrayList<>();
+        inputs.add(definitionFormat.name());
+        inputs.add(map.get(DOCKER_CONTAINERS));
+        inputs.add(map.get(CUBE_SPECIFIC_PROPERTIES));
+        for (URI location : locations) {
+            inputs.add(location.toString());
+            try {
+                inputs.add(new String(Files.readAllBytes(Paths.get(location)), StandardCharsets.UTF_8));
+            } catch (FileSystemNotFoundException | IllegalArgumentException e) {
+                try {
+                    inputs.add(DockerContainerDefinitionParser.read(location));
+                } catch (IOException readException) {
+                    return null;
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return DefinitionsCache.key(inputs);
+    }
+
     private static String resolveFilename(URI uri) {
         if (uri.getScheme() == null || "file".equals(uri.getScheme())) {
             //it is a local path
@@ -372,6 +613,51 @@ public class CubeDockerConfiguration {
         content.append("  ").append(CLEAN).append(" = ").append(clean).append(SEP);
         
         content.append("  ").append(REMOVE_VOLUMES).append(" = ").append(removeVolumes).append(SEP);
+
+        content.append("  ").append(LIFECYCLE_PARALLELISM).append(" = ").append(lifecycleParallelism).append(SEP);
+        content.append("  ").append(IMAGE_OPERATIONS_PARALLELISM).append(" = ").append(imageOperationsParallelism).append(SEP);
+
+        if (shareContainers) {
+            content.append("  ").append(SHARE_CONTAINERS).append(" = ").append(shareContainers).append(SEP);
+            content.append("  ").append(SHARED_CONTAINERS_IDLE_TIMEOUT).append(" = ").append(sharedContainersIdleTimeout).append(SEP);
+            content.append("  ").append(SHARED_CONTAINERS_WAIT_TIMEOUT).append(" = ").append(sharedContainersWaitTimeout).append(SEP);
+        }
+
+        if (resourceAdmissionControl) {
+            content.append("  ").append(RESOURCE_ADMISSION_CONTROL).append(" = ").append(resourceAdmissionControl).append(SEP);
+            content.append("  ").append(RESOURCE_ADMISSION_TIMEOUT).append(" = ").append(resourceAdmissionTimeout).append(SEP);
+        }
+
+        if (imageCacheDirectory != null) {
+            content.append("  ").append(IMAGE_CACHE_DIRECTORY).append(" = ").append(imageCacheDirectory).append(SEP);
+            content.append("  ").append(POPULATE_IMAGE_CACHE).append(" = ").append(populateImageCache).append(SEP);
+        }
+
+        if (isImageGarbageCollection()) {
+            content.append("  ").append(CUBE_IMAGES_TO_KEEP).append(" = ").append(cubeImagesToKeep).append(SEP);
+        }
+
+        if (reuseNetworks) {
+            content.append("  ").append(REUSE_NETWORKS).append(" = ").append(reuseNetworks).append(SEP);
+        }
+
+        if (captureLogs) {
+            content.append("  ").append(CAPTURE_LOGS).append(" = ").append(captureLogs).append(SEP);
+            if (logCaptureDirectory != null) {
+                content.append("  ").append(LOG_CAPTURE_DIRECTORY).append(" = ").append(logCaptureDirectory).append(SEP);
+            }
+            content.append("  ").append(LOG_CAPTURE_MAX_FILE_SIZE).append(" = ").append(logCaptureMaxFileSize).append(SEP);
+            content.append("  ").append(LOG_CAPTURE_MAX_FILES).append(" = ").append(logCaptureMaxFiles).append(SEP);
+            content.append("  ").append(LOG_BUFFER_LINES).append(" = ").append(logBufferLines).append(SEP);
+        }
+
+        if (sampleStatistics) {
+            content.append("  ").append(SAMPLE_STATISTICS).append(" = ").append(sampleStatistics).append(SEP);
+        }
+
+        if (definitionsCacheDirectory != null) {
+            content.append("  ").append(DEFINITIONS_CACHE_DIRECTORY).append(" = ").append(definitionsCacheDirectory).append(SEP);
+        }
         
         if (dockerContainersContent != null) {
             String output = ConfigUtil.dump(dockerContainersContent);
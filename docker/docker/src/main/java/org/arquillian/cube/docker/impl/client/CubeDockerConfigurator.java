@@ -8,7 +8,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -24,6 +23,7 @@ import org.arquillian.cube.docker.impl.util.Boot2Docker;
 import org.arquillian.cube.docker.impl.util.DockerMachine;
 import org.arquillian.cube.docker.impl.util.GitHubUtil;
 import org.arquillian.cube.docker.impl.util.HomeResolverUtil;
+import org.arquillian.cube.docker.impl.util.HostResourceLedger;
 import org.arquillian.cube.docker.impl.util.Machine;
 import org.arquillian.cube.docker.impl.util.OperatingSystemFamily;
 import org.arquillian.cube.docker.impl.util.OperatingSystemResolver;
@@ -42,7 +42,6 @@ import org.jboss.arquillian.core.api.annotation.Observes;
 
 public class CubeDockerConfigurator {
 
-    private static Random random = new Random();
     private static Logger log = Logger.getLogger(CubeDockerConfigurator.class.getName());
     private static final String EXTENSION_NAME = "docker";
     private static final String UNIX_SOCKET_SCHEME = "unix";
@@ -106,7 +105,8 @@ public class CubeDockerConfigurator {
         final DockerCompositions dockerContainersContent = cubeConfiguration.getDockerContainersContent();
         final Map<String, CubeContainer> containers = dockerContainersContent.getContainers();
 
-        final UUID uuid = UUID.randomUUID();
+        final HostResourceLedger ledger = HostResourceLedger.getDefault();
+        UUID uuid = null;
 
         for (Map.Entry<String, CubeContainer> container : containers.entrySet()) {
 
@@ -117,7 +117,11 @@ public class CubeDockerConfigurator {
 
                 CubeContainer cubeContainer = container.getValue();
 
-                adaptPortBindingToParallelRun(cubeContainer);
+                if (uuid == null) {
+                    uuid = ledger.reserveNameSuffix();
+                }
+
+                adaptPortBindingToParallelRun(ledger, cubeContainer);
                 adaptLinksToParallelRun(uuid, cubeContainer);
 
                 String newId = generateNewName(templateName, uuid);
@@ -163,14 +167,15 @@ public class CubeDockerConfigurator {
         }
     }
 
-    private void adaptPortBindingToParallelRun(CubeContainer cubeContainer) {
+    private void adaptPortBindingToParallelRun(HostResourceLedger ledger, CubeContainer cubeContainer) {
         final Collection<PortBinding> portBindings = cubeContainer.getPortBindings();
         if (portBindings == null) {
             return;
         }
         for (PortBinding portBinding : portBindings) {
-            final int randomPrivatePort = generateRandomPrivatePort();
-            portBinding.setBound(randomPrivatePort);
+            // ports are reserved host-wide so parallel forks never bind the same one
+            final int privatePort = ledger.reservePort();
+            portBinding.setBound(privatePort);
         }
     }
 
@@ -178,11 +183,6 @@ public class CubeDockerConfigurator {
         return containerName + "_" + uuid;
     }
 
-    private int generateRandomPrivatePort() {
-        final int randomPort = random.nextInt(16383);
-        return randomPort + 49152;
-    }
-
     private Map<String, String> resolveDockerInsideDocker(Map<String, String> cubeConfiguration) {
         // if DIND_RESOLUTION property is not set, since by default is enabled, we need to go inside code.
         if (!cubeConfiguration.containsKey(CubeDockerConfiguration.DIND_RESOLUTION) || Boolean.parseBoolean(cubeConfiguration.get(CubeDockerConfiguration.DIND_RESOLUTION))) {
@@ -19,12 +19,15 @@ public class CubeDockerExtension implements LoadableExtension {
                .observer(CubeSuiteLifecycleController.class)
                //.observer(ClientCubeControllerCreator.class)
                .observer(BeforeStopContainerObserver.class)
+               .observer(DirtyCubeRecycler.class)
                .observer(Boot2DockerCreator.class)
                .observer(DockerMachineCreator.class)
                .observer(AfterClassContainerObjectObserver.class)
                .observer(StopDockerMachineAfterSuiteObserver.class)
                .observer(NetworkRegistrar.class)
-               .observer(NetworkLifecycleController.class);
+               .observer(NetworkLifecycleController.class)
+               .observer(CubeImageGarbageCollector.class)
+               .observer(ImageCachePopulator.class);
 
         builder.service(ResourceProvider.class, CubeResourceProvider.class);
         builder.service(TestEnricher.class, CubeContainerObjectTestEnricher.class);
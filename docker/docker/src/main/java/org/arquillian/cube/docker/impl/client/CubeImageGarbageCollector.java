@@ -0,0 +1,186 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.AfterSuite;
+
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Image;
+
+/**
+ * Removes images built or committed by Cube once the suite has finished, so they do not pile up on long lived docker
+ * hosts.
+ *
+ * Cube images are grouped: builds by the cube they were built for, and warm snapshots by the image they were committed
+ * from. Each group keeps its <code>cubeImagesToKeep</code> most recent images, current builds of a cube coming first,
+ * so a cube that is built often never evicts the images of other cubes. Images left without any tag are pruned as
+ * well, but only the ones Cube untagged, since other dangling images of the host may be kept on purpose. Images still
+ * used by a container are skipped.
+ * Collection runs in a background daemon thread after containers and networks are removed, so it does not delay the
+ * end of the suite; a collection interrupted by the end of the JVM is simply continued by the next one.
+ */
+public class CubeImageGarbageCollector {
+
+    private static final Logger log = Logger.getLogger(CubeImageGarbageCollector.class.getName());
+
+    private static final String BUILD_PREFIX = DockerClientExecutor.BUILD_REPOSITORY + ":";
+    private static final String WARM_PREFIX = DockerClientExecutor.WARM_SNAPSHOT_REPOSITORY + ":";
+    private static final Pattern BUILD_IDENTITY = Pattern.compile(
+            DockerClientExecutor.IDENTITY_SEPARATOR + "\\p{XDigit}{" + DockerClientExecutor.IDENTITY_LENGTH + "}$");
+
+    @Inject
+    private Instance<DockerClientExecutor> dockerClientExecutorInstance;
+
+    public void collectImages(@Observes(precedence = -250) AfterSuite event, final CubeDockerConfiguration configuration) {
+        if (!configuration.isImageGarbageCollection()) {
+            return;
+        }
+
+        final DockerClientExecutor dockerClientExecutor = dockerClientExecutorInstance.get();
+        final Thread collector = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                collect(dockerClientExecutor, configuration.getCubeImagesToKeep());
+            }
+        }, "arquillian-cube-image-collector");
+        collector.setDaemon(true);
+        collector.start();
+    }
+
+    static void collect(DockerClientExecutor dockerClientExecutor, int imagesToKeep) {
+        final Set<String> untaggedIds = new HashSet<>(dockerClientExecutor.getReplacedImageIds());
+        final Map<String, List<GroupedImage>> groups = new LinkedHashMap<>();
+        for (Image image : dockerClientExecutor.listImages()) {
+            if (image.getRepoTags() == null) {
+                continue;
+            }
+            for (String repoTag : image.getRepoTags()) {
+                final String group = groupOf(repoTag);
+                if (group != null) {
+                    if (!groups.containsKey(group)) {
+                        groups.put(group, new ArrayList<GroupedImage>());
+                    }
+                    groupedImage(groups.get(group), image).addTag(repoTag, group);
+                }
+            }
+        }
+
+        for (List<GroupedImage> images : groups.values()) {
+            Collections.sort(images, new Comparator<GroupedImage>() {
+                @Override
+                public int compare(GroupedImage first, GroupedImage second) {
+                    if (first.current != second.current) {
+                        return first.current ? -1 : 1;
+                    }
+                    return Long.compare(createdOf(second.image), createdOf(first.image));
+                }
+            });
+            for (int i = 0; i < images.size(); i++) {
+                final GroupedImage groupedImage = images.get(i);
+                if (i >= imagesToKeep) {
+                    untaggedIds.add(groupedImage.image.getId());
+                    for (String tag : groupedImage.tags) {
+                        remove(dockerClientExecutor, tag);
+                    }
+                } else if (groupedImage.current) {
+                    // previous build tags of an image that is the current build again are not needed
+                    for (String tag : groupedImage.tags) {
+                        if (isBuildHistory(tag)) {
+                            remove(dockerClientExecutor, tag);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (Image dangling : dockerClientExecutor.listDanglingImages()) {
+            if (untaggedIds.contains(dangling.getId())) {
+                remove(dockerClientExecutor, dangling.getId());
+            }
+        }
+    }
+
+    private static void remove(DockerClientExecutor dockerClientExecutor, String image) {
+        try {
+            dockerClientExecutor.removeImage(image);
+            log.fine(String.format("Removed Cube image %s.", image));
+        } catch (ConflictException e) {
+            log.fine(String.format("Cube image %s is in use and it is not removed.", image));
+        } catch (NotFoundException e) {
+            // already removed by another build
+        } catch (RuntimeException e) {
+            log.warning(String.format("Cube image %s cannot be removed: %s", image, e.getMessage()));
+        }
+    }
+
+    /**
+     * @return group of a Cube image tag, or null if it is not a Cube image.
+     */
+    private static String groupOf(String repoTag) {
+        if (repoTag.startsWith(WARM_PREFIX)) {
+            // snapshots committed before they were keyed by image are kept together
+            final String tag = repoTag.substring(WARM_PREFIX.length());
+            final int separator = tag.indexOf(DockerClientExecutor.IDENTITY_SEPARATOR);
+            return WARM_PREFIX + (separator > -1 ? tag.substring(0, separator) : "");
+        }
+        if (repoTag.startsWith(BUILD_PREFIX)) {
+            final String tag = repoTag.substring(BUILD_PREFIX.length());
+            final int separator = tag.indexOf(DockerClientExecutor.BUILD_HISTORY_SEPARATOR);
+            final String name = separator > -1 ? tag.substring(0, separator) : tag;
+            // builds of the same cube from other build contexts are in the same group
+            final Matcher identity = BUILD_IDENTITY.matcher(name);
+            return BUILD_PREFIX + (identity.find() ? name.substring(0, identity.start()) : name);
+        }
+        return null;
+    }
+
+    private static boolean isBuildHistory(String repoTag) {
+        return repoTag.startsWith(BUILD_PREFIX) && repoTag.indexOf(DockerClientExecutor.BUILD_HISTORY_SEPARATOR, BUILD_PREFIX.length()) > -1;
+    }
+
+    private static GroupedImage groupedImage(List<GroupedImage> images, Image image) {
+        for (GroupedImage groupedImage : images) {
+            if (groupedImage.image.getId().equals(image.getId())) {
+                return groupedImage;
+            }
+        }
+        final GroupedImage groupedImage = new GroupedImage(image);
+        images.add(groupedImage);
+        return groupedImage;
+    }
+
+    private static long createdOf(Image image) {
+        return image.getCreated() != null ? image.getCreated() : 0;
+    }
+
+    private static final class GroupedImage {
+        private final Image image;
+        private final List<String> tags = new ArrayList<>();
+        // holds the tag of the current build of a cube
+        private boolean current;
+
+        private GroupedImage(Image image) {
+            this.image = image;
+        }
+
+        private void addTag(String repoTag, String group) {
+            tags.add(repoTag);
+            current = current || (group.startsWith(BUILD_PREFIX) && !isBuildHistory(repoTag));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.arquillian.core.api.threading.ExecutorService;
+
+/**
+ * Bounded executor used to run lifecycle operations (create, start, stop and destroy) of auto started cubes.
+ *
+ * Tasks are run by Arquillian {@link ExecutorService} so active contexts are propagated, but at most the configured
+ * number of them run at the same time against the docker host while the rest wait in order. Image pulls and loads
+ * are bounded by {@link org.arquillian.cube.docker.impl.docker.DockerClientExecutor} in their own lane: a task gives
+ * up its slot with {@link #suspendSlot()} while it waits for and runs them, so slow I/O operations do not take the
+ * slots of quick create and start calls.
+ */
+public class CubeLifecycleExecutor {
+
+    // slot held by the lifecycle task running in current thread
+    private static final ThreadLocal<Semaphore> currentSlot = new ThreadLocal<>();
+
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    private final int parallelism;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    public CubeLifecycleExecutor(ExecutorService executorService, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Lifecycle parallelism must be greater than 0 but was %s", parallelism));
+        }
+        this.executorService = executorService;
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism, true);
+    }
+
+    public <T> Future<T> submit(final Callable<T> task) {
+        updateMaxQueueDepth(queueDepth.incrementAndGet());
+        return executorService.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                permits.acquire();
+                queueDepth.decrementAndGet();
+                active.incrementAndGet();
+                currentSlot.set(permits);
+                try {
+                    return task.call();
+                } finally {
+                    currentSlot.remove();
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                    permits.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Frees the slot held by the lifecycle task running in current thread, so other tasks can run while it waits for
+     * an operation bounded independently, like an image pull.
+     * @return true if a slot was freed and it must be taken again with {@link #resumeSlot()}, false if current thread
+     * is not running a lifecycle task.
+     */
+    public static boolean suspendSlot() {
+        final Semaphore slot = currentSlot.get();
+        if (slot == null) {
+            return false;
+        }
+        slot.release();
+        return true;
+    }
+
+    /**
+     * Takes again the slot freed by {@link #suspendSlot()}, waiting until one is available.
+     */
+    public static void resumeSlot() {
+        final Semaphore slot = currentSlot.get();
+        if (slot != null) {
+            // not interruptible, since the slot is always given back when the task finishes
+            slot.acquireUninterruptibly();
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return number of tasks submitted and waiting for a free slot.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    private void updateMaxQueueDepth(int depth) {
+        int current = maxQueueDepth.get();
+        while (depth > current && !maxQueueDepth.compareAndSet(current, depth)) {
+            current = maxQueueDepth.get();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CubeLifecycleExecutor [parallelism=%s, active=%s, queued=%s, maxQueued=%s, completed=%s]",
+                getParallelism(), getActiveCount(), getQueueDepth(), getMaxQueueDepth(), getCompletedCount());
+    }
+}
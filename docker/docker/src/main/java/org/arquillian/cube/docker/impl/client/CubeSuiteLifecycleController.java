@@ -5,10 +5,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.client.config.DockerCompositions;
+import org.arquillian.cube.docker.impl.client.metadata.SharedCube;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.docker.impl.util.HostResourceLedger;
 import org.arquillian.cube.spi.ConnectionMode;
+import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.CubeConfiguration;
+import org.arquillian.cube.spi.CubeRegistry;
 import org.arquillian.cube.spi.event.CreateCube;
 import org.arquillian.cube.spi.event.CubeControlEvent;
 import org.arquillian.cube.spi.event.DestroyCube;
@@ -19,6 +27,7 @@ import org.arquillian.cube.spi.event.lifecycle.AfterAutoStart;
 import org.arquillian.cube.spi.event.lifecycle.AfterAutoStop;
 import org.arquillian.cube.spi.event.lifecycle.BeforeAutoStart;
 import org.arquillian.cube.spi.event.lifecycle.BeforeAutoStop;
+import org.arquillian.cube.spi.metadata.IsShared;
 import org.jboss.arquillian.core.api.Event;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
@@ -29,6 +38,8 @@ import org.jboss.arquillian.test.spi.event.suite.BeforeSuite;
 
 public class CubeSuiteLifecycleController {
 
+    private static final Logger log = Logger.getLogger(CubeSuiteLifecycleController.class.getName());
+
     @Inject
     private Event<AfterAutoStart> afterAutoStartEvent;
 
@@ -50,29 +61,52 @@ public class CubeSuiteLifecycleController {
     @Inject
     private Instance<DockerClientExecutor> dockerClientExecutor;
 
+    @Inject
+    private Instance<CubeRegistry> cubeRegistryInstance;
+
+    private SharedCubeBroker sharedCubeBroker;
+
+    private CubeLifecycleExecutor lifecycleExecutor;
+
+    private ResourceAdmissionController resourceAdmission;
+
     public void startAutoContainers(@Observes(precedence = 100) BeforeSuite event, CubeConfiguration cubeConfiguration, CubeDockerConfiguration dockerConfiguration) {
+        if (dockerConfiguration.isShareContainers()) {
+            sharedCubeBroker = new SharedCubeBroker(HostResourceLedger.getDefault(), dockerClientExecutor.get(), dockerConfiguration);
+            sharedCubeBroker.removeExpiredCubes();
+        }
+        lifecycleExecutor = new CubeLifecycleExecutor(executorServiceInst.get(), dockerConfiguration.getLifecycleParallelism());
+        if (dockerConfiguration.isResourceAdmissionControl()) {
+            resourceAdmission = ResourceAdmissionController.fromDockerHost(dockerClientExecutor.get(), HostResourceLedger.getDefault(),
+                    TimeUnit.SECONDS.toMillis(dockerConfiguration.getResourceAdmissionTimeout()));
+        }
         beforeAutoStartEvent.fire(new BeforeAutoStart());
         final DockerAutoStartOrder dockerAutoStartOrder = dockerConfiguration.getDockerAutoStartOrder();
         List<String[]> autoStartSteps = dockerAutoStartOrder.getAutoStartOrder(dockerConfiguration);
-        startAllSteps(autoStartSteps, cubeConfiguration.getConnectionMode());
+        startAllSteps(autoStartSteps, cubeConfiguration.getConnectionMode(), dockerConfiguration.getDockerContainersContent());
+        log.fine(String.format("Auto start finished with %s", lifecycleExecutor));
         afterAutoStartEvent.fire(new AfterAutoStart());
     }
 
     public void stopAutoContainers(@Observes(precedence = -100) AfterSuite event, CubeDockerConfiguration configuration) {
+        if (lifecycleExecutor == null) {
+            lifecycleExecutor = new CubeLifecycleExecutor(executorServiceInst.get(), configuration.getLifecycleParallelism());
+        }
         beforeAutoStopEvent.fire(new BeforeAutoStop());
         final DockerAutoStartOrder dockerAutoStartOrder = configuration.getDockerAutoStartOrder();
         List<String[]> autoStopSteps = dockerAutoStartOrder.getAutoStopOrder(configuration);
         stopAllSteps(autoStopSteps);
+        log.fine(String.format("Auto stop finished with %s", lifecycleExecutor));
         afterAutoStopEvent.fire(new AfterAutoStop());
     }
 
-    private void startAllSteps(List<String[]> autoStartSteps, ConnectionMode connectionMode) {
+    private void startAllSteps(List<String[]> autoStartSteps, ConnectionMode connectionMode, DockerCompositions containers) {
         for(final String[] cubeIds : autoStartSteps) {
             Map<String, Future<RuntimeException>> stepStatus = new HashMap<>();
 
             // Start
             for(final String cubeId : cubeIds) {
-                Future<RuntimeException> result = executorServiceInst.get().submit(new StartCubes(cubeId, connectionMode));
+                Future<RuntimeException> result = lifecycleExecutor.submit(new StartCubes(cubeId, connectionMode, containers.get(cubeId)));
                 stepStatus.put(cubeId, result);
             }
 
@@ -86,7 +120,7 @@ public class CubeSuiteLifecycleController {
 
             // Start
             for(final String cubeId : cubeIds) {
-                Future<RuntimeException> result = executorServiceInst.get().submit(new StopCubes(cubeId));
+                Future<RuntimeException> result = lifecycleExecutor.submit(new StopCubes(cubeId));
                 stepStatus.put(cubeId, result);
             }
 
@@ -122,31 +156,63 @@ public class CubeSuiteLifecycleController {
         return false;
     }
 
+    private void markShared(String cubeId) {
+        // so the force stop shutdown hook does not stop a cube that other JVMs are using
+        final CubeRegistry cubeRegistry = cubeRegistryInstance.get();
+        final Cube<?> cube = cubeRegistry != null ? cubeRegistry.getCube(cubeId) : null;
+        if (cube != null) {
+            cube.addMetadata(IsShared.class, new SharedCube(cubeId, sharedCubeBroker));
+        }
+    }
+
     private final class StartCubes implements Callable<RuntimeException> {
         private final ConnectionMode connectionMode;
         private final String cubeId;
+        private final CubeContainer container;
 
-        private StartCubes(String cubeId, ConnectionMode connectionMode) {
+        private StartCubes(String cubeId, ConnectionMode connectionMode, CubeContainer container) {
             this.cubeId = cubeId;
             this.connectionMode = connectionMode;
+            this.container = container;
         }
 
         @Override
         public RuntimeException call() throws Exception {
             try {
                 if(connectionMode.isAllowReconnect() && isCubeRunning(cubeId)) {
+                    if(resourceAdmission != null) {
+                        // reused containers take host resources as well
+                        resourceAdmission.hold(cubeId, container);
+                    }
                     controlEvent.fire(new PreRunningCube(cubeId));
                     return null;
                 }
+                if(sharedCubeBroker != null && sharedCubeBroker.attach(cubeId)) {
+                    // cube is provided by another JVM of this host
+                    controlEvent.fire(new PreRunningCube(cubeId));
+                    return null;
+                }
+                if(resourceAdmission != null) {
+                    // wait until the declared memory and cpus of the container fit in the docker host
+                    resourceAdmission.admit(cubeId, container);
+                }
                 controlEvent.fire(new CreateCube(cubeId));
                 controlEvent.fire(new StartCube(cubeId));
 
+                if(sharedCubeBroker != null) {
+                    sharedCubeBroker.started(cubeId);
+                    markShared(cubeId);
+                }
+
                 if(connectionMode.isAllowReconnect() && !connectionMode.isStoppable()) {
                  // If we allow reconnections and containers are none stoppable which means that they will be able to be
                  // reused in next executions then at this point we can assume that the container is a prerunning container.
                  controlEvent.fire(new PreRunningCube(cubeId));
                 }
             } catch(RuntimeException e) {
+                if(resourceAdmission != null) {
+                    resourceAdmission.release(cubeId);
+                }
                 return e;
             }
             return null;
@@ -163,8 +229,16 @@ public class CubeSuiteLifecycleController {
         @Override
         public RuntimeException call() throws Exception {
             try {
+                if(sharedCubeBroker != null && !sharedCubeBroker.release(cubeId)) {
+                    // cube is still used by another JVM or kept idle, so it must survive this one
+                    controlEvent.fire(new PreRunningCube(cubeId));
+                    return null;
+                }
                 controlEvent.fire(new StopCube(cubeId));
                 controlEvent.fire(new DestroyCube(cubeId));
+                if(resourceAdmission != null) {
+                    resourceAdmission.release(cubeId);
+                }
             } catch(RuntimeException e) {
                 return e;
             }
@@ -0,0 +1,205 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import org.arquillian.cube.docker.impl.client.config.DockerCompositions;
+
+/**
+ * Directory of container definitions already parsed and converted, so forks running with the same definitions do not
+ * parse them again.
+ *
+ * Definitions are stored serialized in a <code>key.bin</code> file, where the key is a hash of the definitions
+ * content and of the system properties and environment variables referenced by their placeholders, including the ones
+ * only used as default values. Files read while converting them, like compose <code>extends</code> and
+ * <code>env_file</code> files, are stored with their own hash and with the values of the placeholders they reference,
+ * and both are verified when loading.
+ * Entries written by another version of the model classes fail to deserialize and are parsed again.
+ */
+class DefinitionsCache {
+
+    private static final Logger log = Logger.getLogger(DefinitionsCache.class.getName());
+
+    private static final String EXTENSION = ".bin";
+    private static final String PLACEHOLDER_START = "${";
+    private static final char PLACEHOLDER_END = '}';
+    private static final String DEFAULT_VALUE_DELIMITER = ":-";
+
+    private final File directory;
+
+    DefinitionsCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param inputs every input the definitions are converted from, including their content.
+     * @return key of the definitions converted from given inputs.
+     */
+    static String key(Collection<String> inputs) {
+        final MessageDigest digest = newDigest();
+        final TreeSet<String> placeholders = new TreeSet<>();
+        for (String input : inputs) {
+            digest.update(String.valueOf(input).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (input != null) {
+                collectPlaceholders(input, placeholders);
+            }
+        }
+        for (String placeholder : placeholders) {
+            digest.update((placeholder + "=" + valueOf(placeholder)).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Adds the names of the placeholders of given content, and of the placeholders nested in their default values.
+     */
+    static void collectPlaceholders(String content, Collection<String> names) {
+        int start = content.indexOf(PLACEHOLDER_START);
+        while (start >= 0) {
+            int end = start + PLACEHOLDER_START.length();
+            int depth = 1;
+            while (end < content.length() && depth > 0) {
+                if (content.charAt(end) == PLACEHOLDER_END) {
+                    depth--;
+                } else if (content.startsWith(PLACEHOLDER_START, end)) {
+                    depth++;
+                    end++;
+                }
+                end++;
+            }
+            if (depth > 0) {
+                // not terminated, so it is not a placeholder
+                return;
+            }
+            final String expression = content.substring(start + PLACEHOLDER_START.length(), end - 1);
+            final int delimiter = expression.indexOf(DEFAULT_VALUE_DELIMITER);
+            if (delimiter >= 0) {
+                names.add(expression.substring(0, delimiter));
+                collectPlaceholders(expression.substring(delimiter + DEFAULT_VALUE_DELIMITER.length()), names);
+            } else {
+                names.add(expression);
+            }
+            start = content.indexOf(PLACEHOLDER_START, end);
+        }
+    }
+
+    private static String valueOf(String placeholder) {
+        return System.getProperty(placeholder) + "," + System.getenv(placeholder);
+    }
+
+    /**
+     * @return definitions stored with given key, or null if there are none or files they were converted from changed.
+     */
+    DockerCompositions load(String key) {
+        final File entry = entryOf(key);
+        if (!entry.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(entry.toPath())))) {
+            @SuppressWarnings("unchecked")
+            final Map<String, String> referencedFiles = (Map<String, String>) in.readObject();
+            for (Map.Entry<String, String> referencedFile : referencedFiles.entrySet()) {
+                if (!referencedFile.getValue().equals(hash(Paths.get(referencedFile.getKey())))) {
+                    log.fine(String.format("Cached definitions %s are outdated since %s changed.", key, referencedFile.getKey()));
+                    return null;
+                }
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, String> placeholders = (Map<String, String>) in.readObject();
+            for (Map.Entry<String, String> placeholder : placeholders.entrySet()) {
+                if (!placeholder.getValue().equals(valueOf(placeholder.getKey()))) {
+                    log.fine(String.format("Cached definitions %s are outdated since %s changed.", key, placeholder.getKey()));
+                    return null;
+                }
+            }
+            return (DockerCompositions) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.fine(String.format("Cached definitions %s cannot be read: %s", key, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Stores converted definitions, replacing the previous ones with the same key if any.
+     * @param referencedFiles files read while converting besides the definitions.
+     */
+    void store(String key, DockerCompositions definitions, Collection<Path> referencedFiles) {
+        File temp = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException(String.format("Definitions cache directory %s cannot be created.", directory));
+            }
+            final Map<String, String> hashes = new LinkedHashMap<>();
+            final TreeSet<String> names = new TreeSet<>();
+            for (Path referencedFile : referencedFiles) {
+                hashes.put(referencedFile.toAbsolutePath().toString(), hash(referencedFile));
+                if (Files.isRegularFile(referencedFile)) {
+                    collectPlaceholders(new String(Files.readAllBytes(referencedFile), StandardCharsets.UTF_8), names);
+                }
+            }
+            final Map<String, String> placeholders = new LinkedHashMap<>();
+            for (String name : names) {
+                placeholders.put(name, valueOf(name));
+            }
+
+            temp = File.createTempFile(".cube-definitions", EXTENSION, directory);
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                out.writeObject(hashes);
+                out.writeObject(placeholders);
+                out.writeObject(definitions);
+            }
+            // forks storing the same definitions concurrently write the same content
+            Files.move(temp.toPath(), entryOf(key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warning(String.format("Definitions could not be cached in %s: %s", directory, e.getMessage()));
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private File entryOf(String key) {
+        return new File(directory, key + EXTENSION);
+    }
+
+    private static String hash(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return "";
+        }
+        return toHex(newDigest().digest(Files.readAllBytes(file)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] digest) {
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import org.arquillian.cube.ChangeLog;
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.model.DockerCube;
+import org.arquillian.cube.spi.Cube;
+import org.arquillian.cube.spi.CubeRegistry;
+import org.arquillian.cube.spi.event.lifecycle.AfterStart;
+import org.arquillian.cube.spi.metadata.CanExecuteProcessInContainer;
+import org.arquillian.cube.spi.metadata.CanSeeChangesOnFilesystem;
+import org.arquillian.cube.spi.metadata.CanSnapshot;
+import org.arquillian.cube.spi.metadata.IsShared;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.After;
+
+/**
+ * Recycles after each test the cubes whose filesystem has changed under the paths set in <code>recycleOnChanges</code>.
+ *
+ * Changes are compared with the ones found right after the cube was started, so tests that do not modify the
+ * container keep using it, while the ones that modify it get a new container (or the last snapshot, if any) for the
+ * next test. Changed files are compared by their size and modification time too, so modifying again a file already
+ * changed during startup is detected as well. Cubes that are not owned by the current test run, like pre running
+ * cubes or cubes shared with other JVMs, are never recycled.
+ */
+public class DirtyCubeRecycler {
+
+    private static final Logger log = Logger.getLogger(DirtyCubeRecycler.class.getName());
+
+    // kind of the changes of deleted files, see docker diff
+    private static final int DELETED = 2;
+
+    private final ConcurrentMap<String, Set<String>> baselines = new ConcurrentHashMap<>();
+
+    public void captureBaseline(@Observes AfterStart event, CubeRegistry cubeRegistry) {
+        final Cube<?> cube = cubeRegistry.getCube(event.getCubeId());
+        final Collection<String> paths = recyclePaths(cube);
+        if (paths != null && isRecyclable(cube)) {
+            baselines.put(cube.getId(), changes(cube, paths));
+        }
+    }
+
+    public void recycleDirtyCubes(@Observes After event, CubeRegistry cubeRegistry) {
+        for (Cube<?> cube : cubeRegistry.getCubes()) {
+            final Collection<String> paths = recyclePaths(cube);
+            if (paths == null || !isRecyclable(cube)) {
+                continue;
+            }
+
+            final Set<String> baseline = baselines.get(cube.getId());
+            if (baseline != null && baseline.equals(changes(cube, paths))) {
+                continue;
+            }
+
+            log.fine(String.format("Filesystem of %s has changed under %s, so it is recycled.", cube.getId(), paths));
+            recycle(cube);
+            baselines.put(cube.getId(), changes(cube, paths));
+        }
+    }
+
+    private void recycle(Cube<?> cube) {
+        if (cube.hasMetadata(CanSnapshot.class) && cube.getMetadata(CanSnapshot.class).hasSnapshot()) {
+            cube.getMetadata(CanSnapshot.class).restore();
+        } else {
+            cube.stop();
+            cube.destroy();
+            cube.create();
+            cube.start();
+        }
+    }
+
+    private static boolean isRecyclable(Cube<?> cube) {
+        // pre running cubes are in PRE_RUNNING state
+        return cube.state() == Cube.State.STARTED && !cube.hasMetadata(IsShared.class);
+    }
+
+    private Collection<String> recyclePaths(Cube<?> cube) {
+        if (!(cube instanceof DockerCube) || !cube.hasMetadata(CanSeeChangesOnFilesystem.class)) {
+            return null;
+        }
+        final CubeContainer configuration = ((DockerCube) cube).configuration();
+        return configuration.getRecycleOnChanges();
+    }
+
+    private Set<String> changes(Cube<?> cube, Collection<String> paths) {
+        final Set<String> changes = new TreeSet<>();
+        final List<String> existing = new ArrayList<>();
+        for (ChangeLog change : cube.getMetadata(CanSeeChangesOnFilesystem.class).changes()) {
+            if (isUnder(change.getPath(), paths)) {
+                changes.add(change.getKind() + " " + change.getPath());
+                if (change.getKind() != DELETED) {
+                    existing.add(change.getPath());
+                }
+            }
+        }
+        changes.addAll(contentOf(cube, existing));
+        return changes;
+    }
+
+    private List<String> contentOf(Cube<?> cube, List<String> files) {
+        final List<String> content = new ArrayList<>();
+        if (files.isEmpty() || !cube.hasMetadata(CanExecuteProcessInContainer.class)) {
+            return content;
+        }
+        final List<String> command = new ArrayList<>();
+        command.add("stat");
+        command.add("-c");
+        command.add("%s %y %n");
+        command.add("--");
+        command.addAll(files);
+        final CanExecuteProcessInContainer.ExecResult result = cube.getMetadata(CanExecuteProcessInContainer.class)
+                .exec(command.toArray(new String[command.size()]));
+        final String output = result.getOutput();
+        if (output != null) {
+            for (String line : output.split("\\r?\\n")) {
+                if (!line.trim().isEmpty()) {
+                    content.add(line);
+                }
+            }
+        }
+        return content;
+    }
+
+    private static boolean isUnder(String path, Collection<String> paths) {
+        for (String parent : paths) {
+            final String directory = parent.endsWith("/") ? parent : parent + "/";
+            if (path.equals(parent) || path.startsWith(directory) || directory.equals("/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
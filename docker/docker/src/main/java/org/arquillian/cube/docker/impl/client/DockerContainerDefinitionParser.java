@@ -9,6 +9,7 @@ import java.net.URL;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.logging.Logger;
 
 import org.arquillian.cube.docker.impl.client.config.DockerCompositions;
@@ -28,9 +29,17 @@ public class DockerContainerDefinitionParser {
     }
 
     public static DockerCompositions convert(Path definitionFilePath, DefinitionFormat definitionFormat) throws IOException {
+        return convert(definitionFilePath, definitionFormat, null);
+    }
+
+    /**
+     * @param referencedFiles collects files read besides the definition, can be null.
+     */
+    static DockerCompositions convert(Path definitionFilePath, DefinitionFormat definitionFormat, Collection<Path> referencedFiles) throws IOException {
         switch (definitionFormat) {
             case COMPOSE: {
                 DockerComposeConverter dockerComposeConverter = DockerComposeConverter.create(definitionFilePath);
+                addReferencedFiles(dockerComposeConverter, referencedFiles);
                 return dockerComposeConverter.convert();
             }
             case CUBE: {
@@ -45,44 +54,57 @@ public class DockerContainerDefinitionParser {
     }
 
     public static DockerCompositions convert(DefinitionFormat definitionFormat, URI... uris) throws IOException {
+        return convert(definitionFormat, null, uris);
+    }
+
+    /**
+     * @param referencedFiles collects files read besides the definitions, can be null.
+     */
+    static DockerCompositions convert(DefinitionFormat definitionFormat, Collection<Path> referencedFiles, URI... uris) throws IOException {
         DockerCompositions finalDefinition = new DockerCompositions();
         for (URI uri : uris) {
-            DockerCompositions convertedDocument = convert(uri, definitionFormat);
+            DockerCompositions convertedDocument = convert(uri, definitionFormat, referencedFiles);
             finalDefinition.merge(convertedDocument);
         }
 
         return finalDefinition;
     }
 
-    private static DockerCompositions convert(URI uri, DefinitionFormat definitionFormat) throws IOException {
+    private static DockerCompositions convert(URI uri, DefinitionFormat definitionFormat, Collection<Path> referencedFiles) throws IOException {
         try {
             Path definitionFilePath = Paths.get(uri);
-            return convert(definitionFilePath, definitionFormat);
+            return convert(definitionFilePath, definitionFormat, referencedFiles);
         } catch(FileSystemNotFoundException e) {
-            String content = "";
-            if(uri.isAbsolute()) {
-                content = IOUtil.asStringPreservingNewLines(uri.toURL().openStream());
-            } else {
-                String fileContent = uri.toString();
-                content = IOUtil.asStringPreservingNewLines(new FileInputStream(fileContent));
-            }
-            return convert(content, definitionFormat);
+            return convert(read(uri), definitionFormat, referencedFiles);
         } catch(IllegalArgumentException e) {
-            String content = "";
-            if(uri.isAbsolute()) {
-                content = IOUtil.asStringPreservingNewLines(uri.toURL().openStream());
-            } else {
-                String fileContent = uri.toString();
-                content = IOUtil.asStringPreservingNewLines(new FileInputStream(fileContent));
-            }
-            return convert(content, definitionFormat);
+            return convert(read(uri), definitionFormat, referencedFiles);
+        }
+    }
+
+    /**
+     * Reads a definition which is not a file of the default file system, like a resource inside a jar.
+     */
+    static String read(URI uri) throws IOException {
+        if(uri.isAbsolute()) {
+            return IOUtil.asStringPreservingNewLines(uri.toURL().openStream());
+        } else {
+            String fileContent = uri.toString();
+            return IOUtil.asStringPreservingNewLines(new FileInputStream(fileContent));
         }
     }
 
     public static DockerCompositions convert(String content, DefinitionFormat definitionFormat) {
+        return convert(content, definitionFormat, null);
+    }
+
+    /**
+     * @param referencedFiles collects files read besides the definition, can be null.
+     */
+    static DockerCompositions convert(String content, DefinitionFormat definitionFormat, Collection<Path> referencedFiles) {
         switch (definitionFormat) {
             case COMPOSE: {
                 DockerComposeConverter dockerComposeConverter = DockerComposeConverter.create(content);
+                addReferencedFiles(dockerComposeConverter, referencedFiles);
                 return dockerComposeConverter.convert();
             }
             case CUBE: {
@@ -97,6 +119,25 @@ public class DockerContainerDefinitionParser {
     }
 
     public static DockerCompositions convertDefault(DefinitionFormat definitionFormat) throws IOException {
+        return convertDefault(definitionFormat, null);
+    }
+
+    /**
+     * @param referencedFiles collects files read besides the definition, can be null.
+     */
+    static DockerCompositions convertDefault(DefinitionFormat definitionFormat, Collection<Path> referencedFiles) throws IOException {
+        final URI defaultUri = defaultDefinition(definitionFormat);
+        if (defaultUri == null) {
+            logger.fine("No Docker container definitions has been found. Probably you have defined some Containers using Container Object pattern and @Cube annotation");
+            return new DockerCompositions();
+        }
+        return convert(Paths.get(defaultUri), definitionFormat, referencedFiles);
+    }
+
+    /**
+     * @return location of the definition used when none is configured, or null if there is none.
+     */
+    static URI defaultDefinition(DefinitionFormat definitionFormat) {
         URI defaultUri = null;
         try {
             switch (definitionFormat) {
@@ -124,10 +165,12 @@ public class DockerContainerDefinitionParser {
         } catch (URISyntaxException e) {
             throw new IllegalArgumentException(e);
         }
-        if (defaultUri == null) {
-            logger.fine("No Docker container definitions has been found. Probably you have defined some Containers using Container Object pattern and @Cube annotation");
-            return new DockerCompositions();
+        return defaultUri;
+    }
+
+    private static void addReferencedFiles(DockerComposeConverter dockerComposeConverter, Collection<Path> referencedFiles) {
+        if (referencedFiles != null) {
+            referencedFiles.addAll(dockerComposeConverter.getReferencedFiles());
         }
-        return convert(Paths.get(defaultUri), definitionFormat);
     }
 }
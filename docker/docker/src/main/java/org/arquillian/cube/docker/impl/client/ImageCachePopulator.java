@@ -0,0 +1,56 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.BeforeSuite;
+
+/**
+ * Saves into the image cache directory the images of every configured container that are not cached yet, when
+ * <code>populateImageCache</code> is set.
+ *
+ * Otherwise the cache is only written when an image has to be pulled, so images already present in the docker host
+ * never reach it. Images are taken from the docker host, and pulled first if they are not there. Containers built
+ * from a Dockerfile are skipped, since their images are built on each run.
+ */
+public class ImageCachePopulator {
+
+    private static final Logger log = Logger.getLogger(ImageCachePopulator.class.getName());
+
+    @Inject
+    private Instance<DockerClientExecutor> dockerClientExecutorInstance;
+
+    public void populateImageCache(@Observes(precedence = 150) BeforeSuite event, CubeDockerConfiguration configuration) {
+        if (!configuration.isPopulateImageCache() || configuration.getImageCacheDirectory() == null) {
+            return;
+        }
+        populate(dockerClientExecutorInstance.get(), configuration.getDockerContainersContent().getContainers().values());
+    }
+
+    static void populate(DockerClientExecutor executor, Collection<CubeContainer> containers) {
+        final Set<String> images = new LinkedHashSet<>();
+        for (CubeContainer container : containers) {
+            if (container.getImage() != null && container.getBuildImage() == null) {
+                images.add(container.getImage().toImageRef());
+            }
+        }
+
+        for (String image : images) {
+            if (executor.isImageCached(image)) {
+                continue;
+            }
+            if (!executor.imageExists(image)) {
+                log.info(String.format("Pulling Docker Image %s to populate the image cache.", image));
+                executor.pullImage(image);
+            }
+            executor.saveImageToCache(image);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.arquillian.cube.docker.impl.client;
 
 import org.arquillian.cube.docker.impl.client.config.DockerCompositions;
+import org.arquillian.cube.docker.impl.client.config.IPAMConfig;
 import org.arquillian.cube.docker.impl.client.config.Network;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
 import org.arquillian.cube.docker.impl.model.NetworkRegistry;
@@ -8,41 +9,174 @@ import org.arquillian.cube.spi.CubeConfiguration;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.core.api.threading.ExecutorService;
 import org.jboss.arquillian.test.spi.event.suite.AfterSuite;
 import org.jboss.arquillian.test.spi.event.suite.BeforeSuite;
 
+import com.github.dockerjava.api.exception.ConflictException;
+
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
 
+/**
+ * Creates the networks of the composition before the suite and removes them after it.
+ *
+ * Networks are independent of each other, so they are created and removed concurrently, bounded by the lifecycle
+ * parallelism. When <code>reuseNetworks</code> is enabled, a network with the same name, driver and subnets created by
+ * a previous run (or by a parallel one) is reused, and networks are kept after the suite for next runs. A network with
+ * the same name but another configuration is a conflict, since Cube cannot tell whether it owns it.
+ */
 public class NetworkLifecycleController {
 
+    private static final Logger log = Logger.getLogger(NetworkLifecycleController.class.getName());
+
+    private static final String DEFAULT_DRIVER = "bridge";
+
     @Inject
     private Instance<NetworkRegistry> networkRegistryInstance;
 
     @Inject
     private Instance<DockerClientExecutor> dockerClientExecutorInstance;
 
+    @Inject
+    private Instance<ExecutorService> executorServiceInst;
+
     public void createNetworks(@Observes(precedence = 200) BeforeSuite event, CubeConfiguration cubeConfiguration, CubeDockerConfiguration dockerConfiguration) {
         final DockerCompositions dockerContainersContent = dockerConfiguration.getDockerContainersContent();
         final Map<String, Network> networks = dockerContainersContent.getNetworks();
-        final NetworkRegistry networkRegistry = networkRegistryInstance.get();
-        final DockerClientExecutor dockerClientExecutor = dockerClientExecutorInstance.get();
+        final CubeLifecycleExecutor lifecycleExecutor = new CubeLifecycleExecutor(executorServiceInst.get(), dockerConfiguration.getLifecycleParallelism());
 
+        final Map<String, Future<RuntimeException>> results = new HashMap<>();
         for (Map.Entry<String, Network> network : networks.entrySet() ) {
-            final String id = dockerClientExecutor.createNetwork(network.getKey(), network.getValue());
-            networkRegistry.addNetwork(id, network.getValue());
+            results.put(network.getKey(), lifecycleExecutor.submit(
+                    new CreateNetwork(network.getKey(), network.getValue(), dockerConfiguration.isReuseNetworks())));
         }
+        waitForCompletion(results, "Could not create network");
     }
 
     public void destroyNetworks(@Observes(precedence = -200) AfterSuite event, CubeDockerConfiguration configuration) {
+        if (configuration.isReuseNetworks()) {
+            return;
+        }
+
         final NetworkRegistry networkRegistry = networkRegistryInstance.get();
-        final DockerClientExecutor dockerClientExecutor = dockerClientExecutorInstance.get();
+        final CubeLifecycleExecutor lifecycleExecutor = new CubeLifecycleExecutor(executorServiceInst.get(), configuration.getLifecycleParallelism());
 
         final Set<String> networkIds = networkRegistry.getNetworkIds();
 
+        final Map<String, Future<RuntimeException>> results = new HashMap<>();
         for (String networkId : networkIds) {
-            dockerClientExecutor.removeNetwork(networkId);
+            results.put(networkId, lifecycleExecutor.submit(new RemoveNetwork(networkId)));
         }
+        waitForCompletion(results, "Could not remove network");
     }
 
+    private void waitForCompletion(Map<String, Future<RuntimeException>> results, String message) {
+        for (final Map.Entry<String, Future<RuntimeException>> result : results.entrySet()) {
+            try {
+                RuntimeException e = result.getValue().get();
+                if (e != null) {
+                    throw e;
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(message + " " + result.getKey(), e);
+            }
+        }
+    }
+
+    static boolean matches(Network network, com.github.dockerjava.api.model.Network existing) {
+        final String driver = network.getDriver() != null ? network.getDriver() : DEFAULT_DRIVER;
+        if (!driver.equals(existing.getDriver())) {
+            return false;
+        }
+        if (network.getIpam() == null || network.getIpam().getIpamConfigs() == null) {
+            return true;
+        }
+
+        final Set<String> subnets = new HashSet<>();
+        for (IPAMConfig ipamConfig : network.getIpam().getIpamConfigs()) {
+            subnets.add(ipamConfig.getSubnet());
+        }
+        final Set<String> existingSubnets = new HashSet<>();
+        if (existing.getIpam() != null && existing.getIpam().getConfig() != null) {
+            for (com.github.dockerjava.api.model.Network.Ipam.Config config : existing.getIpam().getConfig()) {
+                existingSubnets.add(config.getSubnet());
+            }
+        }
+        return subnets.equals(existingSubnets);
+    }
+
+    private final class CreateNetwork implements Callable<RuntimeException> {
+        private final String name;
+        private final Network network;
+        private final boolean reuse;
+
+        private CreateNetwork(String name, Network network, boolean reuse) {
+            this.name = name;
+            this.network = network;
+            this.reuse = reuse;
+        }
+
+        @Override
+        public RuntimeException call() throws Exception {
+            try {
+                final DockerClientExecutor dockerClientExecutor = dockerClientExecutorInstance.get();
+                String id = reuse ? reusableNetwork(dockerClientExecutor) : null;
+                if (id == null) {
+                    try {
+                        id = dockerClientExecutor.createNetwork(name, network);
+                    } catch (ConflictException e) {
+                        // created meanwhile by a parallel run
+                        id = reuse ? reusableNetwork(dockerClientExecutor) : null;
+                        if (id == null) {
+                            throw e;
+                        }
+                    }
+                }
+                networkRegistryInstance.get().addNetwork(id, network);
+            } catch (RuntimeException e) {
+                return e;
+            }
+            return null;
+        }
+
+        private String reusableNetwork(DockerClientExecutor dockerClientExecutor) {
+            final com.github.dockerjava.api.model.Network existing = dockerClientExecutor.findNetwork(name);
+            if (existing == null) {
+                return null;
+            }
+            if (matches(network, existing)) {
+                log.fine(String.format("Reusing network %s with id %s.", name, existing.getId()));
+                return existing.getId();
+            }
+            // it may belong to someone else, so it is never removed
+            throw new IllegalStateException(String.format(
+                    "Network %s with id %s already exists with another driver or other subnets, so it cannot be reused. Remove it or rename the network of the composition.",
+                    name, existing.getId()));
+        }
+    }
+
+    private final class RemoveNetwork implements Callable<RuntimeException> {
+        private final String networkId;
+
+        private RemoveNetwork(String networkId) {
+            this.networkId = networkId;
+        }
+
+        @Override
+        public RuntimeException call() throws Exception {
+            try {
+                dockerClientExecutorInstance.get().removeNetwork(networkId);
+                networkRegistryInstance.get().removeNetwork(networkId);
+            } catch (RuntimeException e) {
+                return e;
+            }
+            return null;
+        }
+    }
 }
@@ -0,0 +1,207 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.docker.impl.util.CpuSetAllocator;
+import org.arquillian.cube.docker.impl.util.HostResourceLedger;
+
+import com.github.dockerjava.api.model.Info;
+
+/**
+ * Admits container starts only when their declared memory and cpu budget fits in the docker host capacity.
+ *
+ * The budget of a container is read from its <code>memoryLimit</code>, <code>cpuSet</code>, <code>cpuCount</code> and
+ * <code>cpuShares</code> (1024 shares are counted as one cpu), containers without limits are admitted straight away.
+ * Budgets are reserved in the {@link HostResourceLedger}, so containers started by other JVMs of the host (for example
+ * other surefire forks) are counted too. Auto started containers hold their budget for the whole suite, until they are
+ * stopped after it, so a start that does not fit next to the containers of this JVM fails straight away. A start
+ * that only does not fit because of containers of other JVMs waits, without holding a lifecycle slot, until they
+ * release their budget, at most the configured timeout.
+ */
+public class ResourceAdmissionController {
+
+    private static final Logger log = Logger.getLogger(ResourceAdmissionController.class.getName());
+
+    static final int SHARES_PER_CPU = 1024;
+
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final HostResourceLedger ledger;
+    private final long totalMemory;
+    private final double totalCpus;
+    private final long timeoutMillis;
+
+    private final Map<String, Budget> admitted = new HashMap<>();
+    private long usedMemory;
+    private double usedCpus;
+
+    /**
+     * @param ledger where budgets of every JVM of the host are reserved.
+     * @param totalMemory memory of the docker host in bytes, 0 or less if it is unknown.
+     * @param totalCpus number of cpus of the docker host, 0 or less if it is unknown.
+     * @param timeoutMillis maximum time a start waits for containers of other JVMs to release resources.
+     */
+    public ResourceAdmissionController(HostResourceLedger ledger, long totalMemory, double totalCpus, long timeoutMillis) {
+        this.ledger = ledger;
+        this.totalMemory = totalMemory;
+        this.totalCpus = totalCpus;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static ResourceAdmissionController fromDockerHost(DockerClientExecutor dockerClientExecutor, HostResourceLedger ledger,
+                                                             long timeoutMillis) {
+        final Info info = dockerClientExecutor.dockerHostInfo();
+        long memory = 0;
+        int cpus = 0;
+        if (info != null) {
+            memory = info.getMemTotal() != null ? info.getMemTotal() : 0;
+            cpus = info.getNCPU() != null ? info.getNCPU() : 0;
+        }
+        return new ResourceAdmissionController(ledger, memory, cpus, timeoutMillis);
+    }
+
+    /**
+     * Blocks until the budget declared by given container fits in the remaining capacity of the host.
+     * @throws IllegalStateException if the budget is bigger than the host, if it does not fit next to the containers
+     * of this JVM, or if containers of other JVMs do not release enough resources before the timeout.
+     */
+    public void admit(String cubeId, CubeContainer container) throws InterruptedException {
+        final Budget budget = Budget.of(container);
+        if (budget.isEmpty()) {
+            return;
+        }
+        if ((totalMemory > 0 && budget.memory > totalMemory) || (totalCpus > 0 && budget.cpus > totalCpus)) {
+            throw new IllegalStateException(String.format("Container %s declares %s but docker host only has %s bytes of memory and %s cpus.",
+                    cubeId, budget, totalMemory, totalCpus));
+        }
+
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        boolean waiting = false;
+        boolean slotSuspended = false;
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (!fitsNextToOwn(budget)) {
+                        // containers of this JVM are only stopped after the suite, so waiting is useless
+                        throw new IllegalStateException(String.format("Container %s declaring %s does not fit next to the containers already started by this suite. %s",
+                                cubeId, budget, this));
+                    }
+                    if (ledger.reserveBudget(cubeId, budget.memory, budget.cpus, totalMemory, totalCpus)) {
+                        final Budget previous = admitted.put(cubeId, budget);
+                        if (previous != null) {
+                            free(previous);
+                        }
+                        usedMemory += budget.memory;
+                        usedCpus += budget.cpus;
+                        return;
+                    }
+                }
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException(String.format("Container %s declaring %s could not be admitted in %s ms, since containers of other JVMs of the host use the remaining resources. %s",
+                            cubeId, budget, timeoutMillis, this));
+                }
+                if (!waiting) {
+                    log.info(String.format("Waiting for %s to start until containers of other JVMs release enough resources. %s", cubeId, this));
+                    slotSuspended = CubeLifecycleExecutor.suspendSlot();
+                    waiting = true;
+                }
+                Thread.sleep(Math.min(remaining, POLL_INTERVAL_MILLIS));
+            }
+        } finally {
+            if (slotSuspended) {
+                CubeLifecycleExecutor.resumeSlot();
+            }
+        }
+    }
+
+    /**
+     * Counts the budget of a container that is already running, like one reused from a previous run, without waiting
+     * for it to fit.
+     */
+    public synchronized void hold(String cubeId, CubeContainer container) {
+        final Budget budget = Budget.of(container);
+        if (budget.isEmpty() || admitted.containsKey(cubeId)) {
+            return;
+        }
+        ledger.reserveBudget(cubeId, budget.memory, budget.cpus, 0, 0);
+        admitted.put(cubeId, budget);
+        usedMemory += budget.memory;
+        usedCpus += budget.cpus;
+    }
+
+    /**
+     * Returns the budget of given cube, if any, so waiting starts can be admitted.
+     */
+    public synchronized void release(String cubeId) {
+        final Budget budget = admitted.remove(cubeId);
+        if (budget != null) {
+            free(budget);
+            ledger.releaseBudget(cubeId);
+        }
+    }
+
+    public synchronized long getUsedMemory() {
+        return usedMemory;
+    }
+
+    public synchronized double getUsedCpus() {
+        return usedCpus;
+    }
+
+    private void free(Budget budget) {
+        usedMemory -= budget.memory;
+        usedCpus -= budget.cpus;
+    }
+
+    private boolean fitsNextToOwn(Budget budget) {
+        boolean memoryFits = totalMemory <= 0 || usedMemory + budget.memory <= totalMemory;
+        boolean cpusFit = totalCpus <= 0 || usedCpus + budget.cpus <= totalCpus;
+        return memoryFits && cpusFit;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ResourceAdmissionController [memory=%s/%s, cpus=%s/%s, admitted=%s]",
+                usedMemory, totalMemory, usedCpus, totalCpus, admitted.keySet());
+    }
+
+    private static final class Budget {
+        private final long memory;
+        private final double cpus;
+
+        private Budget(long memory, double cpus) {
+            this.memory = memory;
+            this.cpus = cpus;
+        }
+
+        private static Budget of(CubeContainer container) {
+            if (container == null) {
+                return new Budget(0, 0);
+            }
+            long memory = container.getMemoryLimit() != null ? container.getMemoryLimit() : 0;
+            double cpus = 0;
+            if (container.getCpuSet() != null) {
+                cpus = CpuSetAllocator.parseCpuList(container.getCpuSet()).size();
+            } else if (container.getCpuCount() != null) {
+                cpus = container.getCpuCount();
+            } else if (container.getCpuShares() != null) {
+                cpus = (double) container.getCpuShares() / SHARES_PER_CPU;
+            }
+            return new Budget(memory, cpus);
+        }
+
+        private boolean isEmpty() {
+            return memory <= 0 && cpus <= 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("memory=%s bytes, cpus=%s", memory, cpus);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.arquillian.cube.docker.impl.client;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.docker.impl.util.ConfigUtil;
+import org.arquillian.cube.docker.impl.util.HostResourceLedger;
+
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.exception.NotModifiedException;
+
+/**
+ * Leases auto started cubes between all JVMs of the same host, so different forks and modules reuse the same
+ * running containers instead of starting their own copies.
+ *
+ * Leases are reference counted in the {@link HostResourceLedger}. The first JVM starts the container and the rest
+ * wait until it is ready. A container is only reused when its configuration hash matches. The last JVM that
+ * releases a cube stops it, or leaves it idle during the configured idle timeout so next JVMs can still reuse it.
+ * Only cubes leased through {@link #attach(String)} are released, so containers reused from outside Cube, like the
+ * ones found through the connection mode, are never stopped or left idle.
+ */
+public class SharedCubeBroker {
+
+    private static final Logger log = Logger.getLogger(SharedCubeBroker.class.getName());
+
+    private static final long POLL_INTERVAL = 500;
+
+    private final HostResourceLedger ledger;
+    private final DockerClientExecutor executor;
+    private final CubeDockerConfiguration configuration;
+
+    private final Set<String> leasedCubes = new HashSet<>();
+    private final Set<String> attachedCubes = new HashSet<>();
+    private final Map<String, String> versions = new HashMap<>();
+
+    public SharedCubeBroker(HostResourceLedger ledger, DockerClientExecutor executor, CubeDockerConfiguration configuration) {
+        this.ledger = ledger;
+        this.executor = executor;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Stops and removes shared cubes whose idle timeout has expired.
+     */
+    public void removeExpiredCubes() {
+        for (String cubeId : ledger.takeExpiredLeases()) {
+            log.fine(String.format("Removing shared cube %s after its idle timeout.", cubeId));
+            forceRemove(cubeId);
+        }
+    }
+
+    /**
+     * Leases the given cube.
+     * @param cubeId cube to lease.
+     * @return true if the cube is already running and provided by another JVM, false if caller must start it.
+     */
+    public boolean attach(String cubeId) {
+        final String version = version(cubeId);
+        final HostResourceLedger.LeaseState state = ledger.acquireLease(cubeId, version);
+        synchronized (leasedCubes) {
+            leasedCubes.add(cubeId);
+        }
+        switch (state) {
+            case OUTDATED:
+                log.fine(String.format("Replacing idle shared cube %s started with a different configuration.", cubeId));
+                forceRemove(cubeId);
+                return false;
+            case SHARED:
+                if (awaitReady(cubeId, version) && isRunning(cubeId)) {
+                    synchronized (attachedCubes) {
+                        attachedCubes.add(cubeId);
+                    }
+                    ledger.markLeaseReady(cubeId, version);
+                    return true;
+                }
+                // provider died before it was ready
+                forceRemove(cubeId);
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Notifies that the given cube has been started by current JVM so other JVMs can use it.
+     * @param cubeId started cube.
+     */
+    public void started(String cubeId) {
+        ledger.markLeaseReady(cubeId, version(cubeId));
+    }
+
+    /**
+     * @param cubeId cube leased by current JVM.
+     * @return true if other JVMs hold a lease on the cube.
+     */
+    public boolean isUsedByOthers(String cubeId) {
+        return ledger.isLeasedByOthers(cubeId, version(cubeId));
+    }
+
+    /**
+     * Releases the lease of the given cube.
+     * @param cubeId cube to release.
+     * @return true if current JVM is the last user of a cube it started or if the cube was not leased, so it must be
+     * stopped as usually, false otherwise.
+     */
+    public boolean release(String cubeId) {
+        final boolean leased;
+        synchronized (leasedCubes) {
+            leased = leasedCubes.remove(cubeId);
+        }
+        if (!leased) {
+            return true;
+        }
+        final boolean last = ledger.releaseLease(cubeId, version(cubeId), configuration.getSharedContainersIdleTimeout() * 1000L);
+        final boolean attached;
+        synchronized (attachedCubes) {
+            attached = attachedCubes.remove(cubeId);
+        }
+        if (last && attached) {
+            // cube started by another JVM, so it is not managed by current one
+            forceRemove(cubeId);
+            return false;
+        }
+        return last;
+    }
+
+    private boolean awaitReady(String cubeId, String version) {
+        final long waitTimeout = TimeUnit.SECONDS.toMillis(configuration.getSharedContainersWaitTimeout());
+        final long timeout = System.currentTimeMillis() + waitTimeout;
+        while (System.currentTimeMillis() < timeout) {
+            final Boolean ready = ledger.isLeaseReady(cubeId, version);
+            if (ready == null) {
+                return false;
+            }
+            if (ready) {
+                return true;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        throw new IllegalStateException(String.format("Shared cube %s was not ready after %s ms.", cubeId, waitTimeout));
+    }
+
+    private boolean isRunning(String cubeId) {
+        for (com.github.dockerjava.api.model.Container container : executor.listRunningContainers()) {
+            for (String name : container.getNames()) {
+                if (name.startsWith("/")) name = name.substring(1);
+                if (name.equals(cubeId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void forceRemove(String cubeId) {
+        try {
+            executor.stopContainer(cubeId);
+        } catch (NotFoundException | NotModifiedException e) {
+        }
+        try {
+            final CubeContainer container = configuration.getDockerContainersContent().get(cubeId);
+            executor.removeContainer(cubeId, container == null || container.getRemoveVolumes() == null || container.getRemoveVolumes());
+        } catch (NotFoundException | NotModifiedException e) {
+        }
+    }
+
+    private String version(String cubeId) {
+        // hash is calculated once since configuration might be adapted after the cube is started
+        synchronized (versions) {
+            if (!versions.containsKey(cubeId)) {
+                final CubeContainer container = configuration.getDockerContainersContent().get(cubeId);
+                if (container == null) {
+                    throw new IllegalArgumentException("No cube with id " + cubeId + " found in configuration");
+                }
+                versions.put(cubeId, ConfigUtil.hash(container));
+            }
+            return versions.get(cubeId);
+        }
+    }
+}
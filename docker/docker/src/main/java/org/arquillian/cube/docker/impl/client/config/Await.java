@@ -1,9 +1,10 @@
 package org.arquillian.cube.docker.impl.client.config;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 
-public class Await {
+public class Await implements Serializable {
 
     private String strategy;
 
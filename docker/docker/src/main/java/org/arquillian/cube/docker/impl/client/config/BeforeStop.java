@@ -1,6 +1,8 @@
 package org.arquillian.cube.docker.impl.client.config;
 
-public class BeforeStop {
+import java.io.Serializable;
+
+public class BeforeStop implements Serializable {
 
     private Copy copy;
     private Log log;
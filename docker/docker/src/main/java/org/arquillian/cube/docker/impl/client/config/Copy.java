@@ -1,9 +1,16 @@
 package org.arquillian.cube.docker.impl.client.config;
 
-public class Copy {
+import java.io.Serializable;
+import java.util.Collection;
+
+public class Copy implements Serializable {
 
     private String from;
     private String to;
+    private Boolean compress;
+    private Collection<String> include;
+    private Collection<String> exclude;
+    private Long maxSize;
 
     public Copy() {
     }
@@ -23,4 +30,36 @@ public class Copy {
     public void setTo(String to) {
         this.to = to;
     }
+
+    public Boolean getCompress() {
+        return compress;
+    }
+
+    public void setCompress(Boolean compress) {
+        this.compress = compress;
+    }
+
+    public Collection<String> getInclude() {
+        return include;
+    }
+
+    public void setInclude(Collection<String> include) {
+        this.include = include;
+    }
+
+    public Collection<String> getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(Collection<String> exclude) {
+        this.exclude = exclude;
+    }
+
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(Long maxSize) {
+        this.maxSize = maxSize;
+    }
 }
@@ -1,5 +1,6 @@
 package org.arquillian.cube.docker.impl.client.config;
 
+import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -8,7 +9,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-public class CubeContainer {
+public class CubeContainer implements Serializable {
 
     private String containerName;
     private String workingDir;
@@ -23,6 +24,7 @@ public class CubeContainer {
     private Long memorySwap;
     private Integer cpuShares;
     private String cpuSet;
+    private Integer cpuCount;
     private Boolean attachStdin;
     private Boolean attachSterr;
     private Collection<String> env;
@@ -32,6 +34,9 @@ public class CubeContainer {
     private Collection<String> volumesFrom;
     private Boolean removeVolumes = Boolean.TRUE;
     private Collection<String> binds;
+    private Collection<String> tmpfs;
+    private Long shmSize;
+    private String preset;
     private Collection<Link> links;
     private Collection<String> dependsOn;
     private Collection<PortBinding> portBindings;
@@ -61,6 +66,10 @@ public class CubeContainer {
 
     private Collection<BeforeStop> beforeStop;
 
+    private Collection<String> recycleOnChanges;
+
+    private Boolean warmSnapshot;
+
     public Image getImage() {
         return image;
     }
@@ -205,6 +214,54 @@ public class CubeContainer {
         this.cpuSet = cpuSet;
     }
 
+    public Collection<String> getTmpfs() {
+        return tmpfs;
+    }
+
+    public void setTmpfs(Collection<String> tmpfs) {
+        this.tmpfs = tmpfs;
+    }
+
+    public Long getShmSize() {
+        return shmSize;
+    }
+
+    public void setShmSize(Long shmSize) {
+        this.shmSize = shmSize;
+    }
+
+    public String getPreset() {
+        return preset;
+    }
+
+    public void setPreset(String preset) {
+        this.preset = preset;
+    }
+
+    public Collection<String> getRecycleOnChanges() {
+        return recycleOnChanges;
+    }
+
+    public void setRecycleOnChanges(Collection<String> recycleOnChanges) {
+        this.recycleOnChanges = recycleOnChanges;
+    }
+
+    public Boolean getWarmSnapshot() {
+        return warmSnapshot;
+    }
+
+    public void setWarmSnapshot(Boolean warmSnapshot) {
+        this.warmSnapshot = warmSnapshot;
+    }
+
+    public Integer getCpuCount() {
+        return cpuCount;
+    }
+
+    public void setCpuCount(Integer cpuCount) {
+        this.cpuCount = cpuCount;
+    }
+
     public Boolean getAttachStdin() {
         return attachStdin;
     }
@@ -1,6 +1,8 @@
 package org.arquillian.cube.docker.impl.client.config;
 
-public class Device {
+import java.io.Serializable;
+
+public class Device implements Serializable {
     private String pathOnHost;
     private String pathInContainer;
     private String cGroupPermissions;
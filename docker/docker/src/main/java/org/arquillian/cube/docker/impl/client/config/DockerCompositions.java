@@ -1,12 +1,13 @@
 package org.arquillian.cube.docker.impl.client.config;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 
-public class DockerCompositions {
+public class DockerCompositions implements Serializable {
 
     private static final Logger logger = Logger.getLogger(DockerCompositions.class.getName());
 
@@ -1,10 +1,11 @@
 package org.arquillian.cube.docker.impl.client.config;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-public class ExposedPort {
+public class ExposedPort implements Serializable {
     private int exposed;
     private String type = "tcp";
 
@@ -1,9 +1,10 @@
 package org.arquillian.cube.docker.impl.client.config;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 
-public class IPAM {
+public class IPAM implements Serializable {
 
     private List<IPAMConfig> ipamConfigs;
     private Map<String, String> options;
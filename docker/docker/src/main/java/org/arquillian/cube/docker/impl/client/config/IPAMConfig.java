@@ -1,6 +1,8 @@
 package org.arquillian.cube.docker.impl.client.config;
 
-public class IPAMConfig {
+import java.io.Serializable;
+
+public class IPAMConfig implements Serializable {
 
     private String subnet;
     private String ipRange;
@@ -1,6 +1,8 @@
 package org.arquillian.cube.docker.impl.client.config;
 
-public class Image {
+import java.io.Serializable;
+
+public class Image implements Serializable {
     private String name;
     private String tag;
 
@@ -1,6 +1,8 @@
 package org.arquillian.cube.docker.impl.client.config;
 
-public class Log {
+import java.io.Serializable;
+
+public class Log implements Serializable {
 
     private String to;
     private Boolean follow;
@@ -8,6 +10,7 @@ public class Log {
     private Boolean stderr;
     private Boolean timestamps;
     private Integer tail;
+    private Boolean compress;
 
     public Log() {
     }
@@ -59,4 +62,12 @@ public class Log {
     public void setTail(Integer tail) {
         this.tail = tail;
     }
+
+    public Boolean getCompress() {
+        return compress;
+    }
+
+    public void setCompress(Boolean compress) {
+        this.compress = compress;
+    }
 }
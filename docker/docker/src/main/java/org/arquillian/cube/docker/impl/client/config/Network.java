@@ -1,8 +1,9 @@
 package org.arquillian.cube.docker.impl.client.config;
 
+import java.io.Serializable;
 import java.lang.reflect.Field;
 
-public class Network {
+public class Network implements Serializable {
 
     private String driver;
     private IPAM ipam;
@@ -1,10 +1,11 @@
 package org.arquillian.cube.docker.impl.client.config;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-public class PortBinding {
+public class PortBinding implements Serializable {
     private String host;
     private int bound;
     private ExposedPort exposed;
@@ -0,0 +1,84 @@
+package org.arquillian.cube.docker.impl.client.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Predefined settings that can be applied to a container with the <code>preset</code> attribute.
+ */
+public enum Preset {
+
+    /**
+     * Mounts the data directories of well known databases on tmpfs, so data is written to memory instead of to the
+     * storage driver of the docker host.
+     */
+    FAST_DB("fast-db");
+
+    private static final Map<String, String> DATABASE_DIRECTORIES = new LinkedHashMap<>();
+
+    static {
+        DATABASE_DIRECTORIES.put("postgres", "/var/lib/postgresql/data");
+        DATABASE_DIRECTORIES.put("mysql", "/var/lib/mysql");
+        DATABASE_DIRECTORIES.put("mariadb", "/var/lib/mysql");
+        DATABASE_DIRECTORIES.put("mongo", "/data/db");
+        DATABASE_DIRECTORIES.put("redis", "/data");
+        DATABASE_DIRECTORIES.put("cassandra", "/var/lib/cassandra");
+    }
+
+    private final String name;
+
+    Preset(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static Preset fromName(String name) {
+        for (Preset preset : values()) {
+            if (preset.name.equalsIgnoreCase(name)) {
+                return preset;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Preset %s is not supported. Supported presets are %s", name, names()));
+    }
+
+    /**
+     * @param image name of the image of the container.
+     * @return directories that should be mounted on tmpfs.
+     */
+    public Collection<String> tmpfs(String image) {
+        final String repository = repositoryOf(image);
+        for (Map.Entry<String, String> directory : DATABASE_DIRECTORIES.entrySet()) {
+            if (repository.startsWith(directory.getKey())) {
+                return Collections.singletonList(directory.getValue());
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static String repositoryOf(String image) {
+        String repository = image;
+        final int slash = repository.lastIndexOf('/');
+        if (slash > -1) {
+            repository = repository.substring(slash + 1);
+        }
+        final int colon = repository.indexOf(':');
+        if (colon > -1) {
+            repository = repository.substring(0, colon);
+        }
+        return repository;
+    }
+
+    private static Collection<String> names() {
+        final Collection<String> names = new ArrayList<>();
+        for (Preset preset : values()) {
+            names.add(preset.name);
+        }
+        return names;
+    }
+}
@@ -1,6 +1,8 @@
 package org.arquillian.cube.docker.impl.client.config;
 
-public class RestartPolicy {
+import java.io.Serializable;
+
+public class RestartPolicy implements Serializable {
 
     private String name;
     private Integer maximumRetryCount;
@@ -1,7 +1,5 @@
 package org.arquillian.cube.docker.impl.client.container;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
@@ -12,6 +10,7 @@ import java.util.regex.Pattern;
 import org.arquillian.cube.docker.impl.client.CubeDockerConfiguration;
 import org.arquillian.cube.docker.impl.util.ContainerUtil;
 import org.arquillian.cube.docker.impl.util.OperatingSystemFamily;
+import org.arquillian.cube.impl.util.ReflectionUtil;
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.CubeRegistry;
 import org.arquillian.cube.spi.metadata.HasPortBindings;
@@ -85,20 +84,12 @@ public class DockerServerIPConfigurator {
 
         List<PropertyDescriptor> fields = new ArrayList<PropertyDescriptor>();
 
-        try {
-            PropertyDescriptor[] propertyDescriptors = Introspector.getBeanInfo(configurationClass, Object.class)
-                    .getPropertyDescriptors();
+        for (PropertyDescriptor propertyDescriptor : ReflectionUtil.getPropertyDescriptors(configurationClass)) {
+            String propertyName = propertyDescriptor.getName();
 
-            for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-                String propertyName = propertyDescriptor.getName();
-
-                if ((hostPattern.matcher(propertyName).matches() || addressPattern.matcher(propertyName).matches()) && (!jmxPattern.matcher(propertyName).matches())) {
-                    fields.add(propertyDescriptor);
-                }
+            if ((hostPattern.matcher(propertyName).matches() || addressPattern.matcher(propertyName).matches()) && (!jmxPattern.matcher(propertyName).matches())) {
+                fields.add(propertyDescriptor);
             }
-
-        } catch (IntrospectionException e) {
-            throw new IllegalArgumentException(e);
         }
 
         return fields;
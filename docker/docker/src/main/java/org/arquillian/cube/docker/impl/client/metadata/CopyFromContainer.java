@@ -1,19 +1,33 @@
 package org.arquillian.cube.docker.impl.client.metadata;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.arquillian.cube.LogLine;
+import org.arquillian.cube.LogQuery;
+import org.arquillian.cube.docker.impl.docker.ContainerLogFollower;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
 import org.arquillian.cube.impl.util.IOUtil;
 import org.arquillian.cube.spi.metadata.CanCopyFromContainer;
 
 public class CopyFromContainer implements CanCopyFromContainer {
 
+    private static final long LOG_POLLING_MILLIS = 500;
+
     private String cubeId;
     private DockerClientExecutor executor;
 
@@ -49,4 +63,82 @@ public class CopyFromContainer implements CanCopyFromContainer {
             throw new IllegalStateException(e);
         }
     }
+
+    @Override
+    public List<LogLine> logLines(LogQuery query) {
+        final ContainerLogFollower follower = executor.getLogFollower(cubeId);
+        if (follower != null) {
+            return follower.getLines(query);
+        }
+
+        // log is not captured in background, so it is read each time
+        final List<LogLine> lines = new ArrayList<>();
+        lines.addAll(readLog(false));
+        lines.addAll(readLog(true));
+        Collections.sort(lines, new Comparator<LogLine>() {
+            @Override
+            public int compare(LogLine line, LogLine other) {
+                return Long.compare(line.getTimestamp(), other.getTimestamp());
+            }
+        });
+
+        final List<LogLine> selected = new ArrayList<>();
+        for (LogLine line : lines) {
+            if (query.matches(line)) {
+                selected.add(line);
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public LogLine waitForLogLine(LogQuery query, long timeout, TimeUnit unit) {
+        try {
+            final ContainerLogFollower follower = executor.getLogFollower(cubeId);
+            if (follower != null) {
+                return follower.waitForLine(query, unit.toMillis(timeout));
+            }
+
+            final long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+            while (true) {
+                final List<LogLine> lines = logLines(query);
+                if (!lines.isEmpty()) {
+                    return lines.get(0);
+                }
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                Thread.sleep(Math.min(remaining, LOG_POLLING_MILLIS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private List<LogLine> readLog(boolean stdErr) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        copyLog(false, !stdErr, stdErr, true, -1, output);
+
+        final List<LogLine> lines = new ArrayList<>();
+        for (String line : new String(output.toByteArray(), StandardCharsets.UTF_8).split("\\r?\\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            final int separator = line.indexOf(' ');
+            long timestamp = 0;
+            String text = line;
+            if (separator > 0) {
+                try {
+                    timestamp = Instant.parse(line.substring(0, separator)).toEpochMilli();
+                    text = line.substring(separator + 1);
+                } catch (DateTimeParseException e) {
+                    // not prefixed by a timestamp
+                }
+            }
+            lines.add(new LogLine(timestamp, stdErr, text));
+        }
+        return lines;
+    }
 }
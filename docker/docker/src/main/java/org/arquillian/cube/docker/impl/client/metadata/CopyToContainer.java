@@ -1,12 +1,22 @@
 package org.arquillian.cube.docker.impl.client.metadata;
 
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.impl.util.IOUtil;
 import org.arquillian.cube.spi.metadata.CanCopyToContainer;
+import org.jboss.shrinkwrap.api.Archive;
 
 import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CopyToContainer implements CanCopyToContainer {
 
+    private static final int PIPE_SIZE = 256 * 1024;
+
     private String cubeId;
     private DockerClientExecutor executor;
 
@@ -25,4 +35,88 @@ public class CopyToContainer implements CanCopyToContainer {
     public void copyDirectory(String from) {
         executor.copyStreamToContainer(cubeId, new File(from));
     }
+
+    @Override
+    public void copyArchive(final Archive<?> archive, String to) {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final PipedInputStream pipe = new PipedInputStream(PIPE_SIZE);
+        final PipedOutputStream output;
+        try {
+            output = new PipedOutputStream(pipe);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        final InputStream tar = new FailingAtEndInputStream(pipe, failure);
+
+        // the archive is written as tar by another thread while docker client reads it, so it is never fully in memory
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    IOUtil.tar(archive, output);
+                    output.close();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    // wakes up a waiting reader, which fails at the end of the pipe instead of copying a truncated tar
+                    try {
+                        output.close();
+                    } catch (IOException closeFailure) {
+                        e.addSuppressed(closeFailure);
+                    }
+                }
+            }
+        }, "arquillian-cube-copy-" + archive.getName());
+        writer.start();
+
+        RuntimeException copyFailure = null;
+        try {
+            executor.copyStreamToContainer(cubeId, tar, to);
+        } catch (RuntimeException e) {
+            copyFailure = e;
+        } finally {
+            try {
+                // unblocks the writer if docker client stopped reading
+                pipe.close();
+                writer.join();
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException(String.format("Could not copy %s to %s of %s", archive.getName(), to, cubeId), failure.get());
+        }
+        if (copyFailure != null) {
+            throw copyFailure;
+        }
+    }
+
+    private static class FailingAtEndInputStream extends FilterInputStream {
+
+        private final AtomicReference<Throwable> failure;
+
+        private FailingAtEndInputStream(InputStream in, AtomicReference<Throwable> failure) {
+            super(in);
+            this.failure = failure;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkEnd(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return checkEnd(super.read(b, off, len));
+        }
+
+        private int checkEnd(int read) throws IOException {
+            if (read == -1 && failure.get() != null) {
+                throw new IOException("Archive could not be written as tar", failure.get());
+            }
+            return read;
+        }
+    }
 }
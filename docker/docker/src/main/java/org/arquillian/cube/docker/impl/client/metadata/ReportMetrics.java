@@ -4,6 +4,7 @@ import org.arquillian.cube.docker.impl.client.config.CubeContainer;
 import org.arquillian.cube.docker.impl.model.DockerCube;
 import org.arquillian.cube.spi.Cube;
 import org.arquillian.cube.spi.metadata.CanReportMetrics;
+import org.arquillian.cube.spi.metadata.CanSampleStatistics;
 import org.arquillian.recorder.reporter.Reportable;
 import org.arquillian.recorder.reporter.model.entry.GroupEntry;
 import org.arquillian.recorder.reporter.model.entry.KeyValueEntry;
@@ -13,6 +14,7 @@ import org.arquillian.recorder.reporter.model.entry.table.TableRowEntry;
 import java.security.Key;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * Reporting metrics capabilities for Docker Cube.
@@ -44,9 +46,51 @@ public class ReportMetrics implements CanReportMetrics {
         groupEntry.getPropertyEntries().add(stoppingTime);
 
         groupEntry.getPropertyEntries().add(writeProperties(dockerCube.getId(), dockerCube.configuration()));
+
+        if (dockerCube.hasMetadata(CanSampleStatistics.class)) {
+            List<CanSampleStatistics.Sample> samples = dockerCube.getMetadata(CanSampleStatistics.class).samples();
+            if (!samples.isEmpty()) {
+                groupEntry.getPropertyEntries().add(writeStatistics(samples));
+            }
+        }
         return groupEntry;
     }
 
+    private GroupEntry writeStatistics(List<CanSampleStatistics.Sample> samples) {
+        final GroupEntry row = new GroupEntry("Resource Usage");
+        row.getPropertyEntries().add(cell("Samples", Integer.toString(samples.size())));
+
+        double cpu = 0;
+        double peakCpu = 0;
+        long peakMemory = 0;
+        for (CanSampleStatistics.Sample sample : samples) {
+            cpu += sample.getCpuPercent();
+            peakCpu = Math.max(peakCpu, sample.getCpuPercent());
+            peakMemory = Math.max(peakMemory, sample.getMemoryUsage());
+        }
+        final CanSampleStatistics.Sample last = samples.get(samples.size() - 1);
+
+        row.getPropertyEntries().add(cell("Average CPU", String.format("%.1f %%", cpu / samples.size())));
+        row.getPropertyEntries().add(cell("Peak CPU", String.format("%.1f %%", peakCpu)));
+        row.getPropertyEntries().add(cell("Peak Memory", String.format("%s / %s", bytes(peakMemory), bytes(last.getMemoryLimit()))));
+        row.getPropertyEntries().add(cell("Block I/O", String.format("%s read / %s written", bytes(last.getBlockRead()), bytes(last.getBlockWrite()))));
+        row.getPropertyEntries().add(cell("Network I/O", String.format("%s received / %s sent", bytes(last.getNetworkReceived()), bytes(last.getNetworkSent()))));
+        return row;
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return String.format("%s B", bytes);
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KiB", bytes / 1024.0);
+        }
+        if (bytes < 1024 * 1024 * 1024) {
+            return String.format("%.1f MiB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.1f GiB", bytes / (1024.0 * 1024 * 1024));
+    }
+
 
     private GroupEntry writeProperties(String containerId, CubeContainer cubeContainer) {
         final GroupEntry row = new GroupEntry("Docker Cube Properties");
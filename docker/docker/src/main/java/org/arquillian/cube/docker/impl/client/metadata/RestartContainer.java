@@ -0,0 +1,18 @@
+package org.arquillian.cube.docker.impl.client.metadata;
+
+import org.arquillian.cube.docker.impl.model.DockerCube;
+import org.arquillian.cube.spi.metadata.CanRestart;
+
+public class RestartContainer implements CanRestart {
+
+    private DockerCube dockerCube;
+
+    public RestartContainer(DockerCube dockerCube) {
+        this.dockerCube = dockerCube;
+    }
+
+    @Override
+    public void restart() {
+        dockerCube.restart();
+    }
+}
@@ -0,0 +1,28 @@
+package org.arquillian.cube.docker.impl.client.metadata;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.arquillian.cube.docker.impl.docker.ContainerStatsSampler;
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.spi.metadata.CanSampleStatistics;
+
+public class SampleStatistics implements CanSampleStatistics {
+
+    private String cubeId;
+    private DockerClientExecutor executor;
+
+    public SampleStatistics(String cubeId, DockerClientExecutor executor) {
+        this.cubeId = cubeId;
+        this.executor = executor;
+    }
+
+    @Override
+    public List<Sample> samples() {
+        final ContainerStatsSampler sampler = executor.getStatsSampler(cubeId);
+        if (sampler == null) {
+            return Collections.emptyList();
+        }
+        return sampler.getSamples();
+    }
+}
@@ -0,0 +1,20 @@
+package org.arquillian.cube.docker.impl.client.metadata;
+
+import org.arquillian.cube.docker.impl.client.SharedCubeBroker;
+import org.arquillian.cube.spi.metadata.IsShared;
+
+public class SharedCube implements IsShared {
+
+    private String cubeId;
+    private SharedCubeBroker broker;
+
+    public SharedCube(String cubeId, SharedCubeBroker broker) {
+        this.cubeId = cubeId;
+        this.broker = broker;
+    }
+
+    @Override
+    public boolean isUsedByOthers() {
+        return broker.isUsedByOthers(cubeId);
+    }
+}
@@ -0,0 +1,129 @@
+package org.arquillian.cube.docker.impl.client.metadata;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.docker.impl.model.DockerCube;
+import org.arquillian.cube.spi.metadata.CanSnapshot;
+
+/**
+ * Snapshots of Docker Cube directories.
+ *
+ * Directories are copied as tar files while the container is paused, so processes do not modify them in the
+ * middle of the copy. Restoring is done in place: the content of the directories is removed, and the tar files are
+ * copied back while the container is paused, so it keeps running and is not started again. Docker does not execute
+ * commands in paused containers, so directories are cleared right before pausing it. Tar files are deleted when a
+ * new snapshot replaces them or when the snapshot is discarded.
+ */
+public class SnapshotContainer implements CanSnapshot {
+
+    private final DockerCube dockerCube;
+    private final DockerClientExecutor executor;
+
+    private final Map<String, File> snapshots = new LinkedHashMap<>();
+
+    public SnapshotContainer(DockerCube dockerCube, DockerClientExecutor executor) {
+        this.dockerCube = dockerCube;
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized void snapshot(String... directories) {
+        if (directories.length == 0) {
+            throw new IllegalArgumentException(String.format("At least one directory of %s should be set to take a snapshot.", dockerCube.getId()));
+        }
+
+        final Map<String, File> taken = new LinkedHashMap<>();
+        executor.pauseContainer(dockerCube.getId());
+        try {
+            for (String directory : directories) {
+                final File tar = Files.createTempFile("cube-snapshot-" + dockerCube.getId(), ".tar").toFile();
+                taken.put(normalize(directory), tar);
+                try (InputStream archive = executor.copyArchiveFromContainer(dockerCube.getId(), directory)) {
+                    Files.copy(archive, tar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            delete(taken);
+            throw new IllegalStateException(String.format("Could not take snapshot of %s", dockerCube.getId()), e);
+        } finally {
+            executor.unpauseContainer(dockerCube.getId());
+        }
+
+        delete(snapshots);
+        snapshots.putAll(taken);
+    }
+
+    @Override
+    public synchronized void restore() {
+        if (snapshots.isEmpty()) {
+            throw new IllegalStateException(String.format("There is no snapshot of %s to restore.", dockerCube.getId()));
+        }
+
+        for (String directory : snapshots.keySet()) {
+            clear(directory);
+        }
+
+        executor.pauseContainer(dockerCube.getId());
+        try {
+            for (Map.Entry<String, File> snapshot : snapshots.entrySet()) {
+                // archives are rooted at the directory name, so they are extracted in its parent
+                try (InputStream tar = new FileInputStream(snapshot.getValue())) {
+                    executor.copyStreamToContainer(dockerCube.getId(), tar, parentOf(snapshot.getKey()));
+                } catch (IOException e) {
+                    throw new IllegalStateException(String.format("Could not restore %s of %s", snapshot.getKey(), dockerCube.getId()), e);
+                }
+            }
+        } finally {
+            executor.unpauseContainer(dockerCube.getId());
+        }
+    }
+
+    @Override
+    public synchronized boolean hasSnapshot() {
+        return !snapshots.isEmpty();
+    }
+
+    @Override
+    public synchronized void discard() {
+        delete(snapshots);
+    }
+
+    private void clear(String directory) {
+        // removes hidden entries too, unmatched patterns are ignored by rm -f
+        final DockerClientExecutor.ExecInspection inspection = executor.execStartVerbose(dockerCube.getId(),
+                "sh", "-c", "rm -rf \"$0\"/* \"$0\"/.[!.]* \"$0\"/..?*", directory);
+        final Integer exitCode = inspection.getInspectExecResponse().getExitCode();
+        if (exitCode == null || exitCode != 0) {
+            throw new IllegalStateException(String.format("Could not clear %s of %s before restoring it: %s",
+                    directory, dockerCube.getId(), inspection.getOutput()));
+        }
+    }
+
+    private static String normalize(String directory) {
+        String normalized = directory;
+        while (normalized.length() > 1 && normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    private static String parentOf(String directory) {
+        final int separator = directory.lastIndexOf('/');
+        return separator > 0 ? directory.substring(0, separator) : "/";
+    }
+
+    private static void delete(Map<String, File> snapshots) {
+        for (File tar : snapshots.values()) {
+            tar.delete();
+        }
+        snapshots.clear();
+    }
+}
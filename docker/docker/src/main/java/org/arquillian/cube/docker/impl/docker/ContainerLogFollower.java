@@ -0,0 +1,394 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.arquillian.cube.LogQuery;
+
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import com.github.dockerjava.core.async.ResultCallbackTemplate;
+
+/**
+ * Follows the log of a container while it runs, so it is transferred only once.
+ *
+ * The most recent lines are kept in memory, bounded by a number of lines, and optionally written to a file that is
+ * rotated when it reaches a maximum size. Captured lines are still available after the container has been stopped, so
+ * they can be used to report why a container failed. When the container is restarted the log is followed
+ * again from the last captured line.
+ */
+public class ContainerLogFollower implements Closeable {
+
+    private static final Logger log = Logger.getLogger(ContainerLogFollower.class.getName());
+
+    private static final String LOG_EXTENSION = ".log";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String containerId;
+    private final int bufferLines;
+    private final File directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+
+    private final ArrayDeque<LogLine> lines;
+    private final StreamDecoder stdOutDecoder = new StreamDecoder();
+    private final StreamDecoder stdErrDecoder = new StreamDecoder();
+    private long droppedLines = 0;
+    private long followedFrom = 0;
+    private Instant lastTimestamp;
+    private Instant resumeAfter;
+
+    private OutputStream file;
+    private long fileSize;
+
+    private volatile FollowCallback callback;
+
+    public ContainerLogFollower(String containerId, int bufferLines, File directory, long maxFileSize, int maxFiles) {
+        this.containerId = containerId;
+        this.bufferLines = Math.max(1, bufferLines);
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.lines = new ArrayDeque<>(Math.min(this.bufferLines, 1024));
+    }
+
+    /**
+     * Starts following the log with given command, which must request timestamps.
+     */
+    public synchronized void follow(LogContainerCmd logContainerCmd) {
+        if (isFollowing()) {
+            return;
+        }
+        followedFrom = droppedLines + lines.size();
+        if (lastTimestamp != null) {
+            // lines of the same second are received again and skipped by their timestamp
+            logContainerCmd.withSince((int) lastTimestamp.getEpochSecond());
+            resumeAfter = lastTimestamp;
+        }
+        this.callback = logContainerCmd.exec(new FollowCallback());
+    }
+
+    public boolean isFollowing() {
+        final FollowCallback current = callback;
+        return current != null && !current.completed;
+    }
+
+    /**
+     * @return the last captured lines, oldest first.
+     */
+    public synchronized List<LogLine> getLines() {
+        return new ArrayList<>(lines);
+    }
+
+    /**
+     * @return captured lines still kept in memory selected by given query, oldest first.
+     */
+    public synchronized List<org.arquillian.cube.LogLine> getLines(LogQuery query) {
+        final List<org.arquillian.cube.LogLine> selected = new ArrayList<>();
+        for (LogLine line : lines) {
+            if (query.matches(line)) {
+                selected.add(line);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Waits until a line selected by given query is captured, starting with the lines already kept in memory.
+     * @return the line, or null if none is captured before the timeout or the log is not followed anymore.
+     */
+    public LogLine waitForLine(LogQuery query, long timeoutMillis) throws InterruptedException {
+        return waitForLine(query, 0, timeoutMillis);
+    }
+
+    /**
+     * Waits until a line selected by given query is captured, starting with the line of given sequence. Lines are
+     * scanned as they are captured, but lines dropped from memory before being scanned, which happens when more
+     * lines than kept in memory are logged at once, are missed and can be checked with {@link #getDroppedLines()}.
+     * @return the line, or null if none is captured before the timeout or the log is not followed anymore.
+     */
+    public synchronized LogLine waitForLine(LogQuery query, long from, long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        long next = from;
+        while (true) {
+            for (LogLine line : lines) {
+                if (line.getSequence() >= next && query.matches(line)) {
+                    return line;
+                }
+            }
+            next = droppedLines + lines.size();
+
+            final long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || !isFollowing()) {
+                return null;
+            }
+            wait(remaining);
+        }
+    }
+
+    /**
+     * @return sequence of the first line logged since the container was last started.
+     */
+    public synchronized long getFollowedFrom() {
+        return followedFrom;
+    }
+
+    /**
+     * @return number of lines not kept in memory anymore.
+     */
+    public synchronized long getDroppedLines() {
+        return droppedLines;
+    }
+
+    /**
+     * Writes the captured lines as <code>docker logs</code> would do.
+     *
+     * @return false when lines requested are not captured in memory anymore, so nothing is written.
+     */
+    public boolean copyTo(boolean stdout, boolean stderr, boolean timestamps, int tail, OutputStream outputStream) throws IOException {
+        final List<LogLine> selected = new ArrayList<>();
+        synchronized (this) {
+            for (LogLine line : lines) {
+                if (line.isStdErr() ? stderr : stdout) {
+                    selected.add(line);
+                }
+            }
+            if (droppedLines > 0 && (tail < 0 || tail > selected.size())) {
+                return false;
+            }
+        }
+
+        final int from = tail < 0 ? 0 : Math.max(0, selected.size() - tail);
+        for (LogLine line : selected.subList(from, selected.size())) {
+            final String text = timestamps ? line.getRawTimestamp() + " " + line.getText() : line.getText();
+            outputStream.write((text + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        outputStream.flush();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        final FollowCallback current = callback;
+        if (current != null) {
+            current.completed = true;
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.fine(String.format("Could not close log stream of %s: %s", containerId, e.getMessage()));
+            }
+        }
+        completed();
+    }
+
+    synchronized void onFrame(Frame frame) {
+        final boolean stdErr = frame.getStreamType() == StreamType.STDERR;
+        final StringBuilder partial = (stdErr ? stdErrDecoder : stdOutDecoder).decode(frame.getPayload(), false);
+        int end;
+        while ((end = partial.indexOf("\n")) >= 0) {
+            addLine(partial.substring(0, end), stdErr);
+            partial.delete(0, end + 1);
+        }
+    }
+
+    synchronized void completed() {
+        addPartialLine(stdOutDecoder, false);
+        addPartialLine(stdErrDecoder, true);
+        // the file is only flushed when it is closed or rotated, not on each frame
+        closeFile();
+        // waiting threads give up since no more lines are captured
+        notifyAll();
+    }
+
+    private void addPartialLine(StreamDecoder decoder, boolean stdErr) {
+        final StringBuilder partial = decoder.decode(new byte[0], true);
+        if (partial.length() > 0) {
+            addLine(partial.toString(), stdErr);
+            partial.setLength(0);
+        }
+    }
+
+    private void addLine(String raw, boolean stdErr) {
+        String text = raw.endsWith("\r") ? raw.substring(0, raw.length() - 1) : raw;
+        String rawTimestamp = "";
+        Instant timestamp = null;
+        final int separator = text.indexOf(' ');
+        if (separator > 0) {
+            try {
+                timestamp = Instant.parse(text.substring(0, separator));
+                rawTimestamp = text.substring(0, separator);
+                text = text.substring(separator + 1);
+            } catch (DateTimeParseException e) {
+                // not prefixed by a timestamp
+            }
+        }
+        if (timestamp == null) {
+            timestamp = Instant.now();
+        } else if (resumeAfter != null) {
+            if (!timestamp.isAfter(resumeAfter)) {
+                // already captured before the container was restarted
+                return;
+            }
+            resumeAfter = null;
+        }
+        lastTimestamp = timestamp;
+
+        if (lines.size() == bufferLines) {
+            lines.removeFirst();
+            droppedLines++;
+        }
+        lines.addLast(new LogLine(droppedLines + lines.size(), timestamp.toEpochMilli(), rawTimestamp, stdErr, text));
+        writeFile(text);
+        notifyAll();
+    }
+
+    private void writeFile(String text) {
+        if (directory == null) {
+            return;
+        }
+        final byte[] content = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            if (file != null && fileSize > 0 && fileSize + content.length > maxFileSize) {
+                closeFile();
+                rotate();
+            }
+            if (file == null) {
+                final File current = logFile(0);
+                Files.createDirectories(directory.toPath());
+                fileSize = current.length();
+                file = new BufferedOutputStream(new FileOutputStream(current, true), BUFFER_SIZE);
+            }
+            file.write(content);
+            fileSize += content.length;
+        } catch (IOException e) {
+            log.warning(String.format("Could not write log of %s to %s: %s", containerId, directory, e.getMessage()));
+            closeFile();
+        }
+    }
+
+    private void rotate() throws IOException {
+        Files.deleteIfExists(logFile(maxFiles).toPath());
+        for (int i = maxFiles - 1; i >= 0; i--) {
+            final File rotated = logFile(i);
+            if (rotated.exists()) {
+                Files.move(rotated.toPath(), logFile(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    File logFile(int index) {
+        final String name = containerId.replaceAll("[^A-Za-z0-9_.-]", "_") + LOG_EXTENSION;
+        return new File(directory, index == 0 ? name : name + "." + index);
+    }
+
+    private void closeFile() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.fine(String.format("Could not close log file of %s: %s", containerId, e.getMessage()));
+            }
+            file = null;
+        }
+    }
+
+    public static class LogLine extends org.arquillian.cube.LogLine {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long sequence;
+        private final String rawTimestamp;
+
+        LogLine(long sequence, long timestamp, String rawTimestamp, boolean stdErr, String text) {
+            super(timestamp, stdErr, text);
+            this.sequence = sequence;
+            this.rawTimestamp = rawTimestamp;
+        }
+
+        /**
+         * @return position of the line in the whole captured log, starting at 0.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        String getRawTimestamp() {
+            return rawTimestamp;
+        }
+    }
+
+    /**
+     * Decodes the frames of a stream, keeping the bytes of a character split between two frames for the next one.
+     */
+    private static final class StreamDecoder {
+
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder partial = new StringBuilder();
+        private ByteBuffer pending = ByteBuffer.allocate(0);
+
+        StringBuilder decode(byte[] payload, boolean endOfInput) {
+            final ByteBuffer in;
+            if (pending.hasRemaining()) {
+                in = ByteBuffer.allocate(pending.remaining() + payload.length);
+                in.put(pending).put(payload).flip();
+            } else {
+                in = ByteBuffer.wrap(payload);
+            }
+            final CharBuffer out = CharBuffer.allocate((int) (in.remaining() * decoder.maxCharsPerByte()) + 2);
+            decoder.decode(in, out, endOfInput);
+            if (endOfInput) {
+                decoder.flush(out);
+                decoder.reset();
+            }
+            out.flip();
+            partial.append(out);
+            pending = in;
+            return partial;
+        }
+    }
+
+    private final class FollowCallback extends ResultCallbackTemplate<FollowCallback, Frame> {
+
+        private volatile boolean completed = false;
+
+        @Override
+        public void onNext(Frame frame) {
+            onFrame(frame);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            completed();
+            super.onComplete();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed = true;
+            completed();
+            log.fine(String.format("Stopped following log of %s: %s", containerId, throwable.getMessage()));
+            super.onError(throwable);
+        }
+    }
+}
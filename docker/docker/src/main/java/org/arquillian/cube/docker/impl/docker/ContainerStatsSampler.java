@@ -0,0 +1,224 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.arquillian.cube.spi.metadata.CanSampleStatistics.Sample;
+
+import com.github.dockerjava.api.command.StatsCmd;
+import com.github.dockerjava.api.model.Statistics;
+import com.github.dockerjava.core.async.ResultCallbackTemplate;
+
+/**
+ * Samples the resource usage of a container from the Docker stats stream while it runs.
+ *
+ * Memory is bounded by a fixed number of samples. When they are all used, every two consecutive samples are merged
+ * into one, so the series keeps covering the whole run with half the resolution. Merged samples keep the average cpu,
+ * the peak memory and the last I/O counters. Samples are kept after the container is stopped or removed, so they can
+ * be reported at the end of the suite.
+ */
+public class ContainerStatsSampler implements Closeable {
+
+    private static final Logger log = Logger.getLogger(ContainerStatsSampler.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 120;
+
+    private final String containerId;
+    private final int capacity;
+
+    private final List<Sample> samples = new ArrayList<>();
+    // number of received statistics merged into each sample
+    private int stride = 1;
+    private final List<Sample> pending = new ArrayList<>();
+
+    private long previousCpuTotal = -1;
+    private long previousSystemCpu = -1;
+
+    private volatile StatsCallback callback;
+
+    public ContainerStatsSampler(String containerId, int capacity) {
+        this.containerId = containerId;
+        this.capacity = Math.max(2, capacity);
+    }
+
+    /**
+     * Starts sampling with given command. Samples of a restarted container are appended to the previous ones.
+     */
+    public synchronized void sample(StatsCmd statsCmd) {
+        if (isSampling()) {
+            return;
+        }
+        // cpu counters start again with the new stream
+        previousCpuTotal = -1;
+        previousSystemCpu = -1;
+        this.callback = statsCmd.exec(new StatsCallback());
+    }
+
+    public boolean isSampling() {
+        final StatsCallback current = callback;
+        return current != null && !current.completed;
+    }
+
+    /**
+     * @return samples taken so far, oldest first.
+     */
+    public synchronized List<Sample> getSamples() {
+        final List<Sample> all = new ArrayList<>(samples);
+        if (!pending.isEmpty()) {
+            all.add(merge(pending));
+        }
+        return all;
+    }
+
+    @Override
+    public synchronized void close() {
+        final StatsCallback current = callback;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.fine(String.format("Could not close stats stream of %s: %s", containerId, e.getMessage()));
+            }
+            callback = null;
+        }
+    }
+
+    synchronized void onStatistics(Statistics statistics, long timestamp) {
+        final long cpuTotal = number(statistics.getCpuStats(), "cpu_usage", "total_usage");
+        final long systemCpu = number(statistics.getCpuStats(), "system_cpu_usage");
+        if (previousCpuTotal < 0) {
+            // cpu usage is relative to the previous statistics
+            previousCpuTotal = cpuTotal;
+            previousSystemCpu = systemCpu;
+            return;
+        }
+
+        double cpuPercent = 0;
+        final long systemDelta = systemCpu - previousSystemCpu;
+        if (systemDelta > 0) {
+            cpuPercent = (double) (cpuTotal - previousCpuTotal) / systemDelta * onlineCpus(statistics.getCpuStats()) * 100;
+        }
+        previousCpuTotal = cpuTotal;
+        previousSystemCpu = systemCpu;
+
+        final Map<String, Object> memory = statistics.getMemoryStats();
+        long blockRead = 0;
+        long blockWrite = 0;
+        final Object blockEntries = statistics.getBlkioStats() != null ? statistics.getBlkioStats().get("io_service_bytes_recursive") : null;
+        if (blockEntries instanceof Collection) {
+            for (Object entry : (Collection<?>) blockEntries) {
+                if (entry instanceof Map) {
+                    final Object operation = ((Map<?, ?>) entry).get("op");
+                    if ("Read".equalsIgnoreCase(String.valueOf(operation))) {
+                        blockRead += number((Map<?, ?>) entry, "value");
+                    } else if ("Write".equalsIgnoreCase(String.valueOf(operation))) {
+                        blockWrite += number((Map<?, ?>) entry, "value");
+                    }
+                }
+            }
+        }
+
+        long networkReceived = 0;
+        long networkSent = 0;
+        if (statistics.getNetworks() != null) {
+            for (Object networkInterface : statistics.getNetworks().values()) {
+                if (networkInterface instanceof Map) {
+                    networkReceived += number((Map<?, ?>) networkInterface, "rx_bytes");
+                    networkSent += number((Map<?, ?>) networkInterface, "tx_bytes");
+                }
+            }
+        } else if (statistics.getNetwork() != null) {
+            networkReceived = number(statistics.getNetwork(), "rx_bytes");
+            networkSent = number(statistics.getNetwork(), "tx_bytes");
+        }
+
+        pending.add(new Sample(timestamp, cpuPercent, number(memory, "usage"), number(memory, "limit"),
+                blockRead, blockWrite, networkReceived, networkSent));
+        if (pending.size() == stride) {
+            samples.add(merge(pending));
+            pending.clear();
+            if (samples.size() == capacity) {
+                downsample();
+            }
+        }
+    }
+
+    private void downsample() {
+        final List<Sample> merged = new ArrayList<>(capacity / 2 + 1);
+        for (int i = 0; i < samples.size(); i += 2) {
+            merged.add(merge(samples.subList(i, Math.min(i + 2, samples.size()))));
+        }
+        samples.clear();
+        samples.addAll(merged);
+        stride *= 2;
+    }
+
+    private static Sample merge(List<Sample> toMerge) {
+        if (toMerge.size() == 1) {
+            return toMerge.get(0);
+        }
+        double cpu = 0;
+        long memory = 0;
+        for (Sample sample : toMerge) {
+            cpu += sample.getCpuPercent();
+            memory = Math.max(memory, sample.getMemoryUsage());
+        }
+        final Sample last = toMerge.get(toMerge.size() - 1);
+        return new Sample(last.getTimestamp(), cpu / toMerge.size(), memory, last.getMemoryLimit(),
+                last.getBlockRead(), last.getBlockWrite(), last.getNetworkReceived(), last.getNetworkSent());
+    }
+
+    private static int onlineCpus(Map<String, Object> cpuStats) {
+        final long online = number(cpuStats, "online_cpus");
+        if (online > 0) {
+            return (int) online;
+        }
+        final Object usage = cpuStats != null ? cpuStats.get("cpu_usage") : null;
+        if (usage instanceof Map) {
+            final Object perCpu = ((Map<?, ?>) usage).get("percpu_usage");
+            if (perCpu instanceof Collection && !((Collection<?>) perCpu).isEmpty()) {
+                return ((Collection<?>) perCpu).size();
+            }
+        }
+        return 1;
+    }
+
+    private static long number(Map<?, ?> values, String... path) {
+        Object value = values;
+        for (String key : path) {
+            if (!(value instanceof Map)) {
+                return 0;
+            }
+            value = ((Map<?, ?>) value).get(key);
+        }
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private final class StatsCallback extends ResultCallbackTemplate<StatsCallback, Statistics> {
+
+        private volatile boolean completed = false;
+
+        @Override
+        public void onNext(Statistics statistics) {
+            onStatistics(statistics, System.currentTimeMillis());
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            super.onComplete();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed = true;
+            log.fine(String.format("Stopped sampling statistics of %s: %s", containerId, throwable.getMessage()));
+            super.onError(throwable);
+        }
+    }
+}
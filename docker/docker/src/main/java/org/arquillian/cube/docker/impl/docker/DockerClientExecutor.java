@@ -12,13 +12,21 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
@@ -29,17 +37,23 @@ import javax.ws.rs.ProcessingException;
 
 import com.github.dockerjava.api.command.InspectExecCmd;
 import com.github.dockerjava.api.command.InspectExecResponse;
+import com.github.dockerjava.api.model.Info;
 import com.github.dockerjava.api.model.Version;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import org.apache.http.conn.UnsupportedSchemeException;
 import org.arquillian.cube.TopContainer;
 import org.arquillian.cube.docker.impl.client.CubeDockerConfiguration;
+import org.arquillian.cube.docker.impl.client.CubeLifecycleExecutor;
 import org.arquillian.cube.docker.impl.client.config.BuildImage;
 import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.client.config.IPAMConfig;
 import org.arquillian.cube.docker.impl.client.config.Image;
 import org.arquillian.cube.docker.impl.client.config.Network;
 import org.arquillian.cube.docker.impl.client.config.PortBinding;
+import org.arquillian.cube.docker.impl.client.config.Preset;
 import org.arquillian.cube.docker.impl.util.BindingUtil;
+import org.arquillian.cube.docker.impl.util.ConfigUtil;
+import org.arquillian.cube.docker.impl.util.CpuSetAllocator;
 import org.arquillian.cube.docker.impl.util.HomeResolverUtil;
 
 import com.github.dockerjava.api.DockerClient;
@@ -52,6 +66,7 @@ import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.LogContainerCmd;
 import com.github.dockerjava.api.command.PingCmd;
 import com.github.dockerjava.api.command.PullImageCmd;
+import com.github.dockerjava.api.command.SaveImageCmd;
 import com.github.dockerjava.api.command.StartContainerCmd;
 import com.github.dockerjava.api.command.TopContainerResponse;
 import com.github.dockerjava.api.exception.ConflictException;
@@ -131,6 +146,12 @@ public class DockerClientExecutor {
     public static final String READ_ONLY_ROOT_FS = "ReadonlyRootfs";
     public static final String LABELS = "labels";
     public static final String DOMAINNAME= "domainName";
+    public static final String CUBE_REPOSITORY_PREFIX = "arquillian-cube/";
+    public static final String WARM_SNAPSHOT_REPOSITORY = CUBE_REPOSITORY_PREFIX + "warm";
+    public static final String BUILD_REPOSITORY = CUBE_REPOSITORY_PREFIX + "build";
+    public static final char BUILD_HISTORY_SEPARATOR = '.';
+    public static final char IDENTITY_SEPARATOR = '-';
+    public static final int IDENTITY_LENGTH = 12;
 
     private static final Logger log = Logger.getLogger(DockerClientExecutor.class.getName());
     private static final Pattern IMAGEID_PATTERN = Pattern.compile(".*Successfully built\\s(\\p{XDigit}+)");
@@ -145,6 +166,24 @@ public class DockerClientExecutor {
     // It seems to be a problem with go and should be fixed in go 1.6 (and maybe in Docker 1.11.0). #320
     private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
+    // Image pulls are slow I/O operations, so they are bounded independently of create and start calls.
+    // Builds do not need it since they are already serialized by the write lock.
+    private final Semaphore imagePullPermits;
+
+    private CpuSetAllocator cpuSetAllocator;
+
+    private final ImageTarCache imageTarCache;
+
+
+    private final Map<String, ContainerLogFollower> logFollowers = new ConcurrentHashMap<>();
+
+    private final Map<String, ContainerStatsSampler> statsSamplers = new ConcurrentHashMap<>();
+
+    private final Set<String> replacedImageIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    // identities of the images of each cube configuration, so build contexts are only hashed once per run
+    private final Map<CubeContainer, String> imageIdentities = new ConcurrentHashMap<>();
+
     public DockerClientExecutor(CubeDockerConfiguration cubeConfiguration) {
 
         final DefaultDockerClientConfig.Builder configBuilder = DefaultDockerClientConfig
@@ -176,6 +215,10 @@ public class DockerClientExecutor {
 
         this.dockerClientConfig = configBuilder.build();
         this.cubeConfiguration = cubeConfiguration;
+        this.imagePullPermits = new Semaphore(Math.max(1, cubeConfiguration.getImageOperationsParallelism()), true);
+        this.imageTarCache = cubeConfiguration.getImageCacheDirectory() != null
+                ? new ImageTarCache(new File(HomeResolverUtil.resolveHomeDirectoryChar(cubeConfiguration.getImageCacheDirectory())))
+                : null;
 
         this.dockerClient = buildDockerClient();
     }
@@ -194,7 +237,7 @@ public class DockerClientExecutor {
     }
 
     public String createContainer(String name, CubeContainer containerConfiguration) {
-            String image = getImageName(containerConfiguration);
+            String image = getImageName(name, containerConfiguration);
 
         try {
             this.readWriteLock.readLock().lock();
@@ -202,6 +245,14 @@ public class DockerClientExecutor {
             CreateContainerCmd createContainerCmd = this.dockerClient.createContainerCmd(image);
             createContainerCmd.withName(name);
 
+            final Map<String, String> tmpfs = resolveTmpfs(containerConfiguration,
+                    containerConfiguration.getImage() != null ? containerConfiguration.getImage().toImageRef() : image);
+            if (!tmpfs.isEmpty() || containerConfiguration.getShmSize() != null) {
+                TmpfsHostConfig.install(createContainerCmd)
+                        .withTmpfs(tmpfs.isEmpty() ? null : tmpfs)
+                        .withShmSize(containerConfiguration.getShmSize());
+            }
+
             Set<ExposedPort> allExposedPorts = resolveExposedPorts(containerConfiguration, createContainerCmd);
             if (!allExposedPorts.isEmpty()) {
                 int numberOfExposedPorts = allExposedPorts.size();
@@ -261,6 +312,11 @@ public class DockerClientExecutor {
 
             if (containerConfiguration.getCpuSet() != null) {
                 createContainerCmd.withCpusetCpus(containerConfiguration.getCpuSet());
+            } else if (containerConfiguration.getCpuCount() != null) {
+                final String cpuSet = getCpuSetAllocator().allocate(name, containerConfiguration.getCpuCount());
+                if (cpuSet != null) {
+                    createContainerCmd.withCpusetCpus(cpuSet);
+                }
             }
 
             if (containerConfiguration.getAttachStdin() != null) {
@@ -363,9 +419,12 @@ public class DockerClientExecutor {
                 return createContainerCmd.exec().getId();
             } catch (NotFoundException e) {
                 if (!alwaysPull) {
-                    log.warning(String.format(
-                            "Docker Image %s is not on DockerHost and it is going to be automatically pulled.", image));
-                    this.pullImage(image);
+                    if (!this.loadImageFromCache(image)) {
+                        log.warning(String.format(
+                                "Docker Image %s is not on DockerHost and it is going to be automatically pulled.", image));
+                        this.pullImage(image);
+                        this.saveImageToCache(image);
+                    }
                     return createContainerCmd.exec().getId();
                 } else {
                     throw e;
@@ -402,6 +461,27 @@ public class DockerClientExecutor {
         }
     }
 
+    private Map<String, String> resolveTmpfs(CubeContainer containerConfiguration, String image) {
+        final Map<String, String> tmpfs = new LinkedHashMap<>();
+        if (containerConfiguration.getPreset() != null) {
+            for (String directory : Preset.fromName(containerConfiguration.getPreset()).tmpfs(image)) {
+                tmpfs.put(directory, "");
+            }
+        }
+        if (containerConfiguration.getTmpfs() != null) {
+            for (String mount : containerConfiguration.getTmpfs()) {
+                // path[:options] as in docker run --tmpfs
+                final int separator = mount.indexOf(':');
+                if (separator > -1) {
+                    tmpfs.put(mount.substring(0, separator), mount.substring(separator + 1));
+                } else {
+                    tmpfs.put(mount, "");
+                }
+            }
+        }
+        return tmpfs;
+    }
+
     private List<String> resolveDockerServerIpInList(Collection<String> envs) {
         List<String> resolvedEnv = new ArrayList<String>();
         for (String env : envs) {
@@ -430,7 +510,15 @@ public class DockerClientExecutor {
         return allExposedPorts;
     }
 
-    private String getImageName(CubeContainer containerConfiguration) {
+    private String getImageName(String name, CubeContainer containerConfiguration) {
+        if (Boolean.TRUE.equals(containerConfiguration.getWarmSnapshot())) {
+            final String warmImage = warmSnapshotImage(containerConfiguration);
+            if (imageExists(warmImage)) {
+                log.fine(String.format("Container %s is created from warm snapshot %s.", name, warmImage));
+                return warmImage;
+            }
+        }
+
         String image;
 
         if (containerConfiguration.getImage() != null) {
@@ -449,6 +537,7 @@ public class DockerClientExecutor {
                     params.put("dockerFileName", buildImage.getDockerfileName());
 
                     image = this.buildImage(buildImage.getDockerfileLocation(), params);
+                    tagBuiltImage(name, imageIdentity(containerConfiguration), image);
                 } else {
                     throw new IllegalArgumentException(
                             "A tar file with Dockerfile on root or a directory with a Dockerfile should be provided.");
@@ -487,6 +576,124 @@ public class DockerClientExecutor {
         return ports;
     }
 
+    /**
+     * Name of the image where a container configured with <code>warmSnapshot</code> is committed once it is ready.
+     * It is keyed by the id of the configured image, or the content of the build context, and by the configuration
+     * defining the container content, so a new image produces a new snapshot while dynamic names and ports do not.
+     * The tag starts with a short hash of the image identity, which groups the snapshots of the same image for the
+     * image garbage collector.
+     * @param containerConfiguration of the container.
+     * @return name of the image.
+     */
+    public String warmSnapshotImage(CubeContainer containerConfiguration) {
+        final String imageIdentity = imageIdentity(containerConfiguration);
+        return WARM_SNAPSHOT_REPOSITORY + TAG_SEPARATOR + shortIdentity(imageIdentity) + IDENTITY_SEPARATOR
+                + ConfigUtil.warmSnapshotHash(containerConfiguration, imageIdentity);
+    }
+
+    private static String shortIdentity(String imageIdentity) {
+        return ConfigUtil.sha1(imageIdentity).substring(0, IDENTITY_LENGTH);
+    }
+
+    private String imageIdentity(CubeContainer containerConfiguration) {
+        final String cached = imageIdentities.get(containerConfiguration);
+        if (cached != null) {
+            return cached;
+        }
+        if (containerConfiguration.getImage() != null) {
+            final String imageRef = containerConfiguration.getImage().toImageRef();
+            this.readWriteLock.readLock().lock();
+            try {
+                final String imageId = this.dockerClient.inspectImageCmd(imageRef).exec().getId();
+                imageIdentities.put(containerConfiguration, imageId);
+                return imageId;
+            } catch (NotFoundException e) {
+                // not pulled yet, so there cannot be a snapshot of it either, it is resolved again once pulled
+                return imageRef;
+            } finally {
+                this.readWriteLock.readLock().unlock();
+            }
+        }
+        final String buildContextIdentity = buildContextIdentity(containerConfiguration.getBuildImage());
+        imageIdentities.put(containerConfiguration, buildContextIdentity);
+        return buildContextIdentity;
+    }
+
+    private static String buildContextIdentity(BuildImage buildImage) {
+        if (buildImage != null && buildImage.getDockerfileLocation() != null) {
+            final MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            digest.update(String.valueOf(buildImage.getDockerfileName()).getBytes(StandardCharsets.UTF_8));
+            final File location = new File(buildImage.getDockerfileLocation());
+            try {
+                if (location.exists()) {
+                    updateDigest(digest, location, "");
+                } else {
+                    // remote build context is identified by its location
+                    digest.update(buildImage.getDockerfileLocation().getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Cannot read build context %s", location), e);
+            }
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        return "";
+    }
+
+    private static void updateDigest(MessageDigest digest, File file, String path) throws IOException {
+        digest.update(path.getBytes(StandardCharsets.UTF_8));
+        if (file.isDirectory()) {
+            final File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    updateDigest(digest, child, path + "/" + child.getName());
+                }
+            }
+        } else {
+            final byte[] buffer = new byte[8192];
+            try (InputStream content = new FileInputStream(file)) {
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    public boolean imageExists(String imageName) {
+        this.readWriteLock.readLock().lock();
+        try {
+            this.dockerClient.inspectImageCmd(imageName).exec();
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+    public String commitContainer(String containerId, String imageName) {
+        this.readWriteLock.readLock().lock();
+        try {
+            final Image image = Image.valueOf(imageName);
+            return this.dockerClient.commitCmd(containerId)
+                    .withRepository(image.getName())
+                    .withTag(image.getTag())
+                    .exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
     public void stopContainer(String containerId) {
         this.readWriteLock.readLock().lock();
         try {
@@ -496,6 +703,15 @@ public class DockerClientExecutor {
         }
     }
 
+    public void restartContainer(String containerId) {
+        this.readWriteLock.readLock().lock();
+        try {
+            this.dockerClient.restartContainerCmd(containerId).exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
     public void removeContainer(String containerId, boolean removeVolumes) {
         this.readWriteLock.readLock().lock();
         try {
@@ -505,6 +721,123 @@ public class DockerClientExecutor {
         }
     }
 
+    /**
+     * Starts capturing the log of a started container when <code>captureLogs</code> is enabled. A follower of a
+     * restarted container continues from its last captured line.
+     * @param containerId of the started container.
+     * @return follower of the container log, or null when logs are not captured.
+     */
+    public ContainerLogFollower followLog(String containerId) {
+        if (!cubeConfiguration.isCaptureLogs()) {
+            return null;
+        }
+        ContainerLogFollower follower = logFollowers.get(containerId);
+        if (follower == null) {
+            final File directory = cubeConfiguration.getLogCaptureDirectory() != null
+                    ? new File(HomeResolverUtil.resolveHomeDirectoryChar(cubeConfiguration.getLogCaptureDirectory()))
+                    : null;
+            follower = new ContainerLogFollower(containerId, cubeConfiguration.getLogBufferLines(), directory,
+                    cubeConfiguration.getLogCaptureMaxFileSize(), cubeConfiguration.getLogCaptureMaxFiles());
+            logFollowers.put(containerId, follower);
+        }
+
+        this.readWriteLock.readLock().lock();
+        try {
+            follower.follow(this.dockerClient.logContainerCmd(containerId)
+                    .withStdOut(true).withStdErr(true).withTimestamps(true).withFollowStream(true));
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+        return follower;
+    }
+
+    /**
+     * @param containerId of the container.
+     * @return follower capturing the log of the container, which is kept after the container is stopped, or null.
+     */
+    public ContainerLogFollower getLogFollower(String containerId) {
+        return logFollowers.get(containerId);
+    }
+
+    /**
+     * Stops capturing the log of a removed container and forgets its captured lines, so a container created later
+     * with the same name is followed from scratch.
+     * @param containerId of the removed container.
+     */
+    public void releaseLogFollower(String containerId) {
+        final ContainerLogFollower follower = logFollowers.remove(containerId);
+        if (follower != null) {
+            follower.close();
+        }
+    }
+
+    /**
+     * Starts sampling the resource usage of a started container when <code>sampleStatistics</code> is enabled. Samples
+     * of a restarted container are appended to the previous ones.
+     * @param containerId of the started container.
+     * @return sampler of the container statistics, or null when statistics are not sampled.
+     */
+    public ContainerStatsSampler sampleStatistics(String containerId) {
+        if (!cubeConfiguration.isSampleStatistics()) {
+            return null;
+        }
+        ContainerStatsSampler sampler = statsSamplers.get(containerId);
+        if (sampler == null) {
+            sampler = new ContainerStatsSampler(containerId, ContainerStatsSampler.DEFAULT_CAPACITY);
+            statsSamplers.put(containerId, sampler);
+        }
+
+        this.readWriteLock.readLock().lock();
+        try {
+            sampler.sample(this.dockerClient.statsCmd(containerId));
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+        return sampler;
+    }
+
+    /**
+     * @param containerId of the container.
+     * @return sampler of the container statistics, which is kept after the container is removed, or null.
+     */
+    public ContainerStatsSampler getStatsSampler(String containerId) {
+        return statsSamplers.get(containerId);
+    }
+
+    /**
+     * Stops sampling the statistics of a stopped container. Samples already taken are kept for the report.
+     * @param containerId of the stopped container.
+     */
+    public void releaseStatsSampler(String containerId) {
+        final ContainerStatsSampler sampler = statsSamplers.get(containerId);
+        if (sampler != null) {
+            sampler.close();
+        }
+    }
+
+    /**
+     * Releases the cpus allocated to a container created with <code>cpuCount</code>, if any.
+     * @param name of the container.
+     */
+    public void releaseCpuSet(String name) {
+        final CpuSetAllocator allocator;
+        synchronized (this) {
+            allocator = this.cpuSetAllocator;
+        }
+        if (allocator != null) {
+            allocator.release(name);
+        }
+    }
+
+    private synchronized CpuSetAllocator getCpuSetAllocator() {
+        if (this.cpuSetAllocator == null) {
+            final Info info = dockerHostInfo();
+            final int cpus = info != null && info.getNCPU() != null ? info.getNCPU() : Runtime.getRuntime().availableProcessors();
+            this.cpuSetAllocator = CpuSetAllocator.forDockerHost(cpus);
+        }
+        return this.cpuSetAllocator;
+    }
+
     public InspectContainerResponse inspectContainer(String containerId) {
         this.readWriteLock.readLock().lock();
         try {
@@ -533,6 +866,15 @@ public class DockerClientExecutor {
 
     }
 
+    public Info dockerHostInfo() {
+        this.readWriteLock.readLock().lock();
+        try {
+            return this.dockerClient.infoCmd().exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
     public void pingDockerServer() {
         this.readWriteLock.readLock().lock();
         try {
@@ -586,6 +928,80 @@ public class DockerClientExecutor {
         }
     }
 
+    /**
+     * Tags an image built for given cube as <code>arquillian-cube/build:name-hash</code>, where the hash identifies the
+     * build context, so it can be found by the image garbage collector and cubes of the same name built from other
+     * contexts do not take the tag of each other. The image previously tagged for the same cube and context, if any,
+     * keeps a <code>arquillian-cube/build:name-hash.timestamp</code> tag, so previous builds of each cube can be kept
+     * as well.
+     */
+    private void tagBuiltImage(String name, String buildContextIdentity, String imageId) {
+        // dots are left out of the name since they separate the timestamp of previous builds
+        final String tag = name.replaceAll("[^a-zA-Z0-9_-]", "_") + IDENTITY_SEPARATOR + shortIdentity(buildContextIdentity);
+        this.readWriteLock.readLock().lock();
+        try {
+            try {
+                final String previousId = this.dockerClient.inspectImageCmd(BUILD_REPOSITORY + TAG_SEPARATOR + tag).exec().getId();
+                if (!previousId.startsWith("sha256:" + imageId) && !previousId.startsWith(imageId)) {
+                    // the previous build is only pruned by the collector if it is left without tags
+                    replacedImageIds.add(previousId);
+                    this.dockerClient.tagImageCmd(previousId, BUILD_REPOSITORY,
+                            tag + BUILD_HISTORY_SEPARATOR + System.currentTimeMillis()).exec();
+                }
+            } catch (NotFoundException e) {
+                // first build of this cube
+            }
+            this.dockerClient.tagImageCmd(imageId, BUILD_REPOSITORY, tag).withForce().exec();
+        } catch (RuntimeException e) {
+            // the image is still usable, it is only not found by the image garbage collector
+            log.warning(String.format("Image %s built for %s cannot be tagged: %s", imageId, name, e.getMessage()));
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+    public List<com.github.dockerjava.api.model.Image> listImages() {
+        this.readWriteLock.readLock().lock();
+        try {
+            return this.dockerClient.listImagesCmd().exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return images without any tag, like previous builds whose tag was moved to a newer one. They may not have been
+     * created by Cube.
+     */
+    public List<com.github.dockerjava.api.model.Image> listDanglingImages() {
+        this.readWriteLock.readLock().lock();
+        try {
+            return this.dockerClient.listImagesCmd().withDanglingFilter(true).exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of images built by Cube whose tag was moved to a newer build during this run.
+     */
+    public Set<String> getReplacedImageIds() {
+        return Collections.unmodifiableSet(replacedImageIds);
+    }
+
+    /**
+     * Removes an image, or only the given tag if the image has other tags.
+     * @param image id or tag of the image.
+     */
+    public void removeImage(String image) {
+        this.readWriteLock.readLock().lock();
+        try {
+            this.dockerClient.removeImageCmd(image).exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
     public static String getImageId(String fullLog) {
         Matcher m = IMAGEID_PATTERN.matcher(fullLog);
         String imageId = null;
@@ -639,6 +1055,7 @@ public class DockerClientExecutor {
 
     public void pullImage(String imageName) {
 
+        final boolean slotSuspended = acquireImagePermit(imageName);
         this.readWriteLock.readLock().lock();
 
         try {
@@ -658,8 +1075,96 @@ public class DockerClientExecutor {
             pullImageCmd.exec(new PullImageResultCallback()).awaitSuccess();
         } finally {
             this.readWriteLock.readLock().unlock();
+            releaseImagePermit(slotSuspended);
+        }
+
+    }
+
+    /**
+     * @param imageName name of the image.
+     * @return true if the image cache directory is configured and contains given image.
+     */
+    public boolean isImageCached(String imageName) {
+        return this.imageTarCache != null && this.imageTarCache.contains(imageName);
+    }
+
+    /**
+     * Loads given image with <code>docker load</code> from the image cache directory, if it is configured and contains it.
+     * @param imageName name of the image.
+     * @return true if the image has been loaded.
+     */
+    public boolean loadImageFromCache(String imageName) {
+        if (!isImageCached(imageName)) {
+            return false;
+        }
+
+        final boolean slotSuspended = acquireImagePermit(imageName);
+        this.readWriteLock.readLock().lock();
+        try (InputStream tar = this.imageTarCache.open(imageName)) {
+            this.dockerClient.loadImageCmd(tar).exec();
+            log.fine(String.format("Docker Image %s loaded from %s.", imageName, this.imageTarCache.getDirectory()));
+            return true;
+        } catch (IOException e) {
+            log.warning(String.format("Docker Image %s cannot be loaded from image cache: %s", imageName, e.getMessage()));
+            return false;
+        } finally {
+            this.readWriteLock.readLock().unlock();
+            releaseImagePermit(slotSuspended);
+        }
+    }
+
+    /**
+     * Saves given image with <code>docker save</code> into the image cache directory, if it is configured.
+     * @param imageName name of an image present in the docker host.
+     */
+    public void saveImageToCache(String imageName) {
+        if (this.imageTarCache == null) {
+            return;
+        }
+
+        final boolean slotSuspended = acquireImagePermit(imageName);
+        this.readWriteLock.readLock().lock();
+        try {
+            final Image image = Image.valueOf(imageName);
+            SaveImageCmd saveImageCmd = this.dockerClient.saveImageCmd(image.getName());
+            if (image.getTag() != null && !"".equals(image.getTag())) {
+                saveImageCmd.withTag(image.getTag());
+            }
+            try (InputStream tar = saveImageCmd.exec()) {
+                this.imageTarCache.store(imageName, tar);
+            }
+        } catch (IOException e) {
+            log.warning(String.format("Docker Image %s cannot be saved into image cache: %s", imageName, e.getMessage()));
+        } finally {
+            this.readWriteLock.readLock().unlock();
+            releaseImagePermit(slotSuspended);
+        }
+    }
+
+    /**
+     * Waits for an image operation permit. The lifecycle slot of the calling task, if any, is given up meanwhile, so
+     * image operations and lifecycle operations are bounded in separate lanes.
+     * @return true if the lifecycle slot of the calling task was given up and must be taken again on release.
+     */
+    private boolean acquireImagePermit(String imageName) {
+        final boolean slotSuspended = CubeLifecycleExecutor.suspendSlot();
+        try {
+            this.imagePullPermits.acquire();
+            return slotSuspended;
+        } catch (InterruptedException e) {
+            if (slotSuspended) {
+                CubeLifecycleExecutor.resumeSlot();
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for an image operation on %s", imageName), e);
         }
+    }
 
+    private void releaseImagePermit(boolean slotSuspended) {
+        this.imagePullPermits.release();
+        if (slotSuspended) {
+            CubeLifecycleExecutor.resumeSlot();
+        }
     }
 
     public String execStart(String containerId, String... commands) {
@@ -761,6 +1266,44 @@ public class DockerClientExecutor {
         }
     }
 
+    public InputStream copyArchiveFromContainer(String containerId, String from) {
+        this.readWriteLock.readLock().lock();
+        try {
+            return dockerClient.copyArchiveFromContainerCmd(containerId, from).exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+    public void copyStreamToContainer(String containerId, InputStream tar, String to) {
+        this.readWriteLock.readLock().lock();
+        try {
+            dockerClient.copyArchiveToContainerCmd(containerId)
+                    .withRemotePath(to)
+                    .withTarInputStream(tar).exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+    public void pauseContainer(String containerId) {
+        this.readWriteLock.readLock().lock();
+        try {
+            dockerClient.pauseContainerCmd(containerId).exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+    public void unpauseContainer(String containerId) {
+        this.readWriteLock.readLock().lock();
+        try {
+            dockerClient.unpauseContainerCmd(containerId).exec();
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
     public void copyStreamToContainer(String containerId, File from) {
         this.readWriteLock.readLock().lock();
         try {
@@ -783,6 +1326,13 @@ public class DockerClientExecutor {
     }
 
     public void copyLog(String containerId, boolean follow, boolean stdout, boolean stderr, boolean timestamps, int tail, OutputStream outputStream) throws IOException {
+        final ContainerLogFollower follower = logFollowers.get(containerId);
+        if (!follow && follower != null && !follower.isFollowing()
+                && follower.copyTo(stdout, stderr, timestamps, tail, outputStream)) {
+            // the container is not running anymore and its log was already captured, so it is not transferred again
+            return;
+        }
+
         this.readWriteLock.readLock().lock();
         try {
             LogContainerCmd logContainerCmd = dockerClient.logContainerCmd(containerId).withStdErr(false).withStdOut(false);
@@ -845,7 +1395,16 @@ public class DockerClientExecutor {
                 createNetworkCmd.withDriver(network.getDriver());
             }
 
-            //TODO IPAM cannot be set at the time of writing this.
+            if (network.getIpam() != null && network.getIpam().getIpamConfigs() != null) {
+                final List<com.github.dockerjava.api.model.Network.Ipam.Config> configs = new ArrayList<>();
+                for (IPAMConfig ipamConfig : network.getIpam().getIpamConfigs()) {
+                    configs.add(new com.github.dockerjava.api.model.Network.Ipam.Config()
+                            .withSubnet(ipamConfig.getSubnet())
+                            .withIpRange(ipamConfig.getIpRange())
+                            .withGateway(ipamConfig.getGateway()));
+                }
+                createNetworkCmd.withIpam(new com.github.dockerjava.api.model.Network.Ipam().withConfig(configs));
+            }
 
             final CreateNetworkResponse exec = createNetworkCmd.exec();
             return exec.getId();
@@ -854,6 +1413,25 @@ public class DockerClientExecutor {
         }
     }
 
+    /**
+     * @param name of the network.
+     * @return network with exactly given name, or null if there is none.
+     */
+    public com.github.dockerjava.api.model.Network findNetwork(String name) {
+        this.readWriteLock.readLock().lock();
+        try {
+            // name filter matches substrings, so the exact name is checked
+            for (com.github.dockerjava.api.model.Network network : this.dockerClient.listNetworksCmd().withNameFilter(name).exec()) {
+                if (name.equals(network.getName())) {
+                    return network;
+                }
+            }
+            return null;
+        } finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
     public void removeNetwork(String id) {
         this.readWriteLock.readLock().lock();
         try {
@@ -971,6 +1549,13 @@ public class DockerClientExecutor {
         return volumesFrom;
     }
 
+    /**
+     * @return number of image pulls waiting for a free slot.
+     */
+    public int getQueuedImagePulls() {
+        return this.imagePullPermits.getQueueLength();
+    }
+
     public DockerClient getDockerClient() {
         return this.dockerClient;
     }
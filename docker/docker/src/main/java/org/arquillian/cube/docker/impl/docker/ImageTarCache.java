@@ -0,0 +1,138 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.arquillian.cube.docker.impl.client.config.Image;
+
+/**
+ * Directory of images saved as tar files, so they can be loaded into the docker host without accessing a registry.
+ *
+ * Each image is stored as <code>name_tag.tar</code> next to a <code>name_tag.tar.sha256</code> file with its
+ * checksum, which is verified before the tar is loaded. Files are written to a temporary file first and then moved,
+ * so concurrent builds sharing the directory never see a partial tar.
+ */
+public class ImageTarCache {
+
+    private static final String TAR_EXTENSION = ".tar";
+    private static final String CHECKSUM_EXTENSION = ".sha256";
+    private static final String DEFAULT_TAG = "latest";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File directory;
+
+    public ImageTarCache(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public boolean contains(String imageName) {
+        return tarOf(imageName).isFile() && checksumOf(imageName).isFile();
+    }
+
+    /**
+     * Opens the tar of given image after verifying its checksum.
+     * @param imageName name of the image.
+     * @return stream of the tar file, to be closed by the caller.
+     * @throws IOException if the image is not cached or its checksum does not match.
+     */
+    public InputStream open(String imageName) throws IOException {
+        final File tar = tarOf(imageName);
+        final String expected = new String(Files.readAllBytes(checksumOf(imageName).toPath()), StandardCharsets.UTF_8).trim();
+        final String actual = checksum(tar);
+        if (!expected.equalsIgnoreCase(actual)) {
+            throw new IOException(String.format("Checksum of %s is %s but %s was expected.", tar, actual, expected));
+        }
+        return new FileInputStream(tar);
+    }
+
+    /**
+     * Stores the tar of given image, replacing the previous one if any.
+     * @param imageName name of the image.
+     * @param tar stream of the image as returned by <code>docker save</code>.
+     * @throws IOException if the tar cannot be written.
+     */
+    public void store(String imageName, InputStream tar) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Image cache directory %s cannot be created.", directory));
+        }
+
+        final File tarTemp = File.createTempFile(".cube-image", TAR_EXTENSION, directory);
+        final File checksumTemp = File.createTempFile(".cube-image", CHECKSUM_EXTENSION, directory);
+        try {
+            final MessageDigest digest = newDigest();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tarTemp.toPath()), digest)) {
+                copy(tar, out);
+            }
+            Files.write(checksumTemp.toPath(), toHex(digest.digest()).getBytes(StandardCharsets.UTF_8));
+
+            Files.move(tarTemp.toPath(), tarOf(imageName).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(checksumTemp.toPath(), checksumOf(imageName).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tarTemp.delete();
+            checksumTemp.delete();
+        }
+    }
+
+    File tarOf(String imageName) {
+        return new File(directory, fileName(imageName) + TAR_EXTENSION);
+    }
+
+    private File checksumOf(String imageName) {
+        return new File(directory, fileName(imageName) + TAR_EXTENSION + CHECKSUM_EXTENSION);
+    }
+
+    private static String fileName(String imageName) {
+        final Image image = Image.valueOf(imageName);
+        final String tag = image.getTag() != null && !image.getTag().isEmpty() ? image.getTag() : DEFAULT_TAG;
+        return (image.getName() + "_" + tag).replaceAll("[^a-zA-Z0-9_.-]", "_");
+    }
+
+    private static String checksum(File file) throws IOException {
+        final MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(new FileInputStream(file), digest)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (in.read(buffer) != -1) {
+                // digest is updated while reading
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
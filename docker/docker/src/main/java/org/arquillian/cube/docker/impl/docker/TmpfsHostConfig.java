@@ -0,0 +1,75 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.model.HostConfig;
+
+/**
+ * Host configuration with the tmpfs mounts and the shm size of a container.
+ *
+ * Current docker-java version has no support for tmpfs mounts and sends the shm size as a string, which is rejected
+ * by the docker host, so this host configuration replaces the default one of the create container command. The shm
+ * size is kept in the property of the default host configuration, and only written as a number.
+ */
+class TmpfsHostConfig extends HostConfig {
+
+    @JsonProperty("Tmpfs")
+    private Map<String, String> tmpfs;
+
+    /**
+     * Replaces the host configuration of given command. It must be called before setting any other host property.
+     * The create container command has no setter for it, so it is looked up by its type.
+     */
+    static TmpfsHostConfig install(CreateContainerCmd createContainerCmd) {
+        final Field field = hostConfigField(createContainerCmd.getClass());
+        if (field == null) {
+            throw new IllegalStateException(String.format(
+                    "tmpfs and shmSize are not supported by current docker client, %s has no host configuration",
+                    createContainerCmd.getClass().getName()));
+        }
+        final TmpfsHostConfig hostConfig = new TmpfsHostConfig();
+        try {
+            field.setAccessible(true);
+            field.set(createContainerCmd, hostConfig);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("tmpfs and shmSize are not supported by current docker client", e);
+        }
+        return hostConfig;
+    }
+
+    private static Field hostConfigField(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getType() == HostConfig.class) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    public Map<String, String> getTmpfs() {
+        return tmpfs;
+    }
+
+    public TmpfsHostConfig withTmpfs(Map<String, String> tmpfs) {
+        this.tmpfs = tmpfs;
+        return this;
+    }
+
+    public TmpfsHostConfig withShmSize(Long shmSize) {
+        withShmSize(shmSize != null ? shmSize.toString() : null);
+        return this;
+    }
+
+    @Override
+    @JsonProperty("ShmSize")
+    @JsonRawValue
+    public String getShmSize() {
+        return super.getShmSize();
+    }
+}
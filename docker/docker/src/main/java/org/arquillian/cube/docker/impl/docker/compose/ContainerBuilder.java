@@ -11,6 +11,7 @@ import static org.arquillian.cube.docker.impl.util.YamlUtil.asString;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
@@ -76,11 +77,13 @@ public class ContainerBuilder {
     private static final String DEVICES = "devices";
     private static final String CONTAINERNAME = "container_name";
     private static final String DEPENDS_ON = "depends_on";
+    private static final String TMPFS = "tmpfs";
+    private static final String SHM_SIZE = "shm_size";
 
     private static List<String> AVAILABLE_COMMANDS = Arrays.asList(IMAGE, BUILD, COMMAND, LINKS, EXTERNAL_LINKS, DOCKERFILE,
             EXTENDS, PORTS, EXPOSE, VOLUMES, VOLUMES_FROM, ENVIRONMENT, ENV_FILE, NET, DNS, CAP_ADD, CAP_DROP,
             DNS_SEARCH, WORKING_DIR, ENTRYPOINT, USER, HOSTNAME, MEM_LIMIT, PRIVILEGED, RESTART, STDIN_OPEN, TTY,
-            CPU_SET, CPU_SHARES, EXTRA_HOSTS, DEVICES, CONTAINERNAME, DEPENDS_ON);
+            CPU_SET, CPU_SHARES, EXTRA_HOSTS, DEVICES, CONTAINERNAME, DEPENDS_ON, TMPFS, SHM_SIZE);
 
     private static final Logger log = Logger.getLogger(ContainerBuilder.class.getName());
 
@@ -212,6 +215,17 @@ public class ContainerBuilder {
         if (dockerComposeContainerDefinition.containsKey(DEVICES)) {
             this.addDevices(asListOfString(dockerComposeContainerDefinition, DEVICES));
         }
+        if (dockerComposeContainerDefinition.containsKey(TMPFS)) {
+            Object tmpfs = dockerComposeContainerDefinition.get(TMPFS);
+            if (tmpfs instanceof List) {
+                this.addTmpfs((List<String>) tmpfs);
+            } else {
+                this.addTmpfs(Arrays.asList((String) tmpfs));
+            }
+        }
+        if (dockerComposeContainerDefinition.containsKey(SHM_SIZE)) {
+            this.addShmSize(toBytes(dockerComposeContainerDefinition.get(SHM_SIZE)));
+        }
         if (dockerComposeContainerDefinition.containsKey(DOMAINNAME)) {
            this.addDomainName(asString(dockerComposeContainerDefinition, DOMAINNAME));
         }
@@ -495,6 +509,16 @@ public class ContainerBuilder {
         return this;
     }
 
+    public ContainerBuilder addTmpfs(Collection<String> tmpfs) {
+        configuration.setTmpfs(tmpfs);
+        return this;
+    }
+
+    public ContainerBuilder addShmSize(long shmSize) {
+        configuration.setShmSize(shmSize);
+        return this;
+    }
+
     private ContainerBuilder addCpuSet(String cpuSet) {
         configuration.setCpuSet(cpuSet);
         return this;
@@ -512,9 +536,8 @@ public class ContainerBuilder {
 
     public ContainerBuilder extend(Path location, String service) {
         File extendLocation = this.dockerComposeRootLocation.resolve(location).toFile();
-        try(FileInputStream inputStream = new FileInputStream(extendLocation)) {
-            // resolve parameters
-            String content = DockerComposeEnvironmentVarResolver.replaceParameters(inputStream);
+        try(Reader content = DockerComposeEnvironmentVarResolver.replaceParameters(new FileInputStream(extendLocation))) {
+            // parameters are resolved while the file is parsed
             Map<String, Object> extendedDockerComposeFile = (Map<String, Object>) new Yaml().load(content);
             Map<String, Object> serviceDockerComposeConfiguration = asMap(extendedDockerComposeFile, service);
             ContainerBuilder containerBuilder = new ContainerBuilder(dockerComposeRootLocation, configuration);
@@ -609,6 +632,23 @@ public class ContainerBuilder {
         return allProperties;
     }
 
+    private long toBytes(Object size) {
+        if (size instanceof Number) {
+            return ((Number) size).longValue();
+        }
+        // docker compose byte values like 64m or 1g
+        String value = size.toString().trim().toLowerCase();
+        final String units = "bkmg";
+        if (value.length() > 2 && value.endsWith("b") && units.indexOf(value.charAt(value.length() - 2)) > 0) {
+            value = value.substring(0, value.length() - 1);
+        }
+        final int unit = units.indexOf(value.charAt(value.length() - 1));
+        if (unit < 0) {
+            return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1).trim()) << (10 * unit);
+    }
+
     private Collection<String> toEnvironment(Properties properties) {
         Collection<String> listOfEnvironment = new HashSet<String>();
         Set<Entry<Object, Object>> entrySet = properties.entrySet();
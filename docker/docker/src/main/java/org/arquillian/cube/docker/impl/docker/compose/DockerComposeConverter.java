@@ -4,47 +4,41 @@ import static org.arquillian.cube.docker.impl.util.YamlUtil.asMap;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.arquillian.cube.docker.impl.client.Converter;
 import org.arquillian.cube.docker.impl.client.config.CubeContainer;
 import org.arquillian.cube.docker.impl.client.config.DockerCompositions;
-import org.arquillian.cube.impl.util.IOUtil;
 import org.yaml.snakeyaml.Yaml;
 
 public class DockerComposeConverter implements Converter {
 
     private static final String DOCKER_COMPOSE_VERSION_KEY = "version";
     private static final String DOCKER_COMPOSE_VERSION_2_VALUE = "2";
+    private static final String SERVICES = "services";
+    private static final String ENV_FILE = "env_file";
+    private static final String EXTENDS = "extends";
+    private static final String EXTENDS_FILE = "file";
 
     private Map<String, Object> dockerComposeDefinitionMap = new HashMap<>();
     private Path dockerComposeRootDirectory;
 
     private DockerComposeConverter(Path location) throws IOException {
-        try (FileInputStream inputStream = new FileInputStream(location.toFile())) {
-            String content = DockerComposeEnvironmentVarResolver.replaceParameters(inputStream);
+        try (Reader content = DockerComposeEnvironmentVarResolver.replaceParameters(new FileInputStream(location.toFile()))) {
             this.dockerComposeDefinitionMap = loadConfig(content);
             this.dockerComposeRootDirectory = location.getParent();
         }
     }
 
-    private String resolvePlaceholders(String content) {
-        content = resolveSystemProperties(content);
-        final Map<String, String> env = System.getenv();
-        return IOUtil.replacePlaceholdersWithWhiteSpace(content, env);
-    }
-
-    private String resolveSystemProperties(String content) {
-        return IOUtil.replacePlaceholdersWithWhiteSpace(content);
-    }
-
     private DockerComposeConverter(String content) {
-        String resolvePlaceholders = resolvePlaceholders(content);
-        this.dockerComposeDefinitionMap = loadConfig(resolvePlaceholders);
+        this.dockerComposeDefinitionMap = loadConfig(DockerComposeEnvironmentVarResolver.replaceParameters(content));
         this.dockerComposeRootDirectory = Paths.get(".");
     }
 
@@ -65,8 +59,7 @@ public class DockerComposeConverter implements Converter {
 
         Set<String> names = dockerComposeDefinitionMap.keySet();
 
-        boolean isV2 = names.contains(DOCKER_COMPOSE_VERSION_KEY) && DOCKER_COMPOSE_VERSION_2_VALUE.equals(dockerComposeDefinitionMap.get(DOCKER_COMPOSE_VERSION_KEY));
-        if (isV2) {
+        if (isV2()) {
             dockerCompositions = convertCompose(dockerComposeDefinitionMap);
         } else {
             for(String name : names) {
@@ -81,6 +74,41 @@ public class DockerComposeConverter implements Converter {
         return dockerCompositions;
     }
 
+    /**
+     * @return files read while converting besides the definition itself, referenced by <code>env_file</code> and
+     * <code>extends</code> entries of the services.
+     */
+    public Set<Path> getReferencedFiles() {
+        final Set<Path> referencedFiles = new LinkedHashSet<>();
+        final Map<String, Object> services = isV2() ? asMap(dockerComposeDefinitionMap, SERVICES) : dockerComposeDefinitionMap;
+        if (services == null) {
+            return referencedFiles;
+        }
+        for (Object service : services.values()) {
+            if (!(service instanceof Map)) {
+                continue;
+            }
+            final Object envFile = ((Map<?, ?>) service).get(ENV_FILE);
+            if (envFile instanceof Collection) {
+                for (Object location : (Collection<?>) envFile) {
+                    referencedFiles.add(this.dockerComposeRootDirectory.resolve(location.toString()));
+                }
+            } else if (envFile != null) {
+                referencedFiles.add(this.dockerComposeRootDirectory.resolve(envFile.toString()));
+            }
+            final Object extendsDefinition = ((Map<?, ?>) service).get(EXTENDS);
+            if (extendsDefinition instanceof Map && ((Map<?, ?>) extendsDefinition).get(EXTENDS_FILE) != null) {
+                referencedFiles.add(this.dockerComposeRootDirectory.resolve(((Map<?, ?>) extendsDefinition).get(EXTENDS_FILE).toString()));
+            }
+        }
+        return referencedFiles;
+    }
+
+    private boolean isV2() {
+        return dockerComposeDefinitionMap.containsKey(DOCKER_COMPOSE_VERSION_KEY)
+                && DOCKER_COMPOSE_VERSION_2_VALUE.equals(dockerComposeDefinitionMap.get(DOCKER_COMPOSE_VERSION_KEY));
+    }
+
     private DockerCompositions convertCompose(Map<String, Object> dockerComposeContainerDefinition) {
         ComposeBuilder composeBuilder = new ComposeBuilder(this.dockerComposeRootDirectory);
         return composeBuilder.build(dockerComposeContainerDefinition);
@@ -92,7 +120,7 @@ public class DockerComposeConverter implements Converter {
     }
 
     @SuppressWarnings("unchecked")
-    private Map<String, Object> loadConfig(String content) {
+    private Map<String, Object> loadConfig(Reader content) {
         return (Map<String, Object>) new Yaml().load(content);
     }
 }
@@ -1,9 +1,12 @@
 package org.arquillian.cube.docker.impl.docker.compose;
 
-import org.arquillian.cube.impl.util.IOUtil;
+import org.arquillian.cube.impl.util.PlaceholderResolvingReader;
 
 import java.io.InputStream;
-import java.util.Map;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 
 public class DockerComposeEnvironmentVarResolver {
 
@@ -13,25 +16,24 @@ public class DockerComposeEnvironmentVarResolver {
     }
 
     /**
-     * Method that takes an inputstream, read it preserving the end lines, and subtitute using commons-lang-3 calls
-     * the variables, first searching as system properties vars and then in environment var list.
+     * Method that takes an inputstream and returns a reader of its content which substitutes the variables while it
+     * is read, first searching as system properties vars and then in environment var list, then using the default
+     * value of <code>${VAR:-default}</code> placeholders.
      * In case of missing the property is replaced by white space.
      * @param stream
      * @return
      */
-    public static String replaceParameters(final InputStream stream) {
-        String content = IOUtil.asStringPreservingNewLines(stream);
-        return resolvePlaceholders(content);
+    public static Reader replaceParameters(final InputStream stream) {
+        return new PlaceholderResolvingReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
     }
 
-    private static String resolvePlaceholders(String content) {
-        content = resolveSystemProperties(content);
-        final Map<String, String> env = System.getenv();
-        return IOUtil.replacePlaceholdersWithWhiteSpace(content, env);
-    }
-
-    private static String resolveSystemProperties(String content) {
-        return IOUtil.replacePlaceholdersWithWhiteSpace(content);
+    /**
+     * Same as {@link #replaceParameters(InputStream)} for a content already read.
+     * @param content
+     * @return
+     */
+    public static Reader replaceParameters(final String content) {
+        return new PlaceholderResolvingReader(new StringReader(content));
     }
 
 }
@@ -7,6 +7,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import com.github.dockerjava.api.exception.NotModifiedException;
@@ -18,6 +19,10 @@ import org.arquillian.cube.docker.impl.client.metadata.CopyToContainer;
 import org.arquillian.cube.docker.impl.client.metadata.ExecuteProcessInContainer;
 import org.arquillian.cube.docker.impl.client.metadata.GetTop;
 import org.arquillian.cube.docker.impl.client.metadata.ReportMetrics;
+import org.arquillian.cube.docker.impl.client.metadata.RestartContainer;
+import org.arquillian.cube.docker.impl.client.metadata.SampleStatistics;
+import org.arquillian.cube.docker.impl.client.metadata.SnapshotContainer;
+import org.arquillian.cube.docker.impl.docker.ContainerLogFollower;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
 import org.arquillian.cube.docker.impl.util.BindingUtil;
 import org.arquillian.cube.spi.BaseCube;
@@ -37,8 +42,11 @@ import org.arquillian.cube.spi.metadata.CanCopyFromContainer;
 import org.arquillian.cube.spi.metadata.CanCopyToContainer;
 import org.arquillian.cube.spi.metadata.CanExecuteProcessInContainer;
 import org.arquillian.cube.spi.metadata.CanReportMetrics;
+import org.arquillian.cube.spi.metadata.CanRestart;
+import org.arquillian.cube.spi.metadata.CanSampleStatistics;
 import org.arquillian.cube.spi.metadata.CanSeeChangesOnFilesystem;
 import org.arquillian.cube.spi.metadata.CanSeeTop;
+import org.arquillian.cube.spi.metadata.CanSnapshot;
 import org.arquillian.cube.spi.metadata.HasPortBindings;
 import org.arquillian.cube.spi.metadata.IsBuildable;
 import org.jboss.arquillian.core.api.Event;
@@ -46,20 +54,34 @@ import org.jboss.arquillian.core.api.annotation.Inject;
 
 import com.github.dockerjava.api.exception.NotFoundException;
 
+/**
+ * Cube backed by a Docker container.
+ *
+ * Lifecycle transitions are serialized by a lock, while the state can be read at any time without locking. A
+ * transition requested while another one is in flight (for example a second start from a different thread) waits
+ * for it and then re-evaluates the state, so it is either skipped or executed over the resulting state. Waiting for
+ * a started container to be ready is not part of the transition, so the container can be stopped meanwhile, which
+ * makes the start fail. A second start still waits until the container is ready.
+ */
 public class DockerCube extends BaseCube<CubeContainer> {
 
     private static final Logger log = Logger.getLogger(DockerCube.class.getName());
 
-    private State state = State.DESTROYED;
+    private static final int REPORTED_LOG_LINES = 20;
+
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+    private final ReentrantLock startLock = new ReentrantLock();
+
+    private volatile State state = State.DESTROYED;
     private String id;
-    private Binding binding = null;
+    private volatile Binding binding = null;
 
     private CubeContainer configuration;
 
     private final PortBindings portBindings;
 
-    private long startingTimeInMillis = 0;
-    private long stoppingTimeInMillis = 0;
+    private volatile long startingTimeInMillis = 0;
+    private volatile long stoppingTimeInMillis = 0;
 
     @Inject
     private Event<CubeLifecyleEvent> lifecycle;
@@ -82,6 +104,9 @@ public class DockerCube extends BaseCube<CubeContainer> {
         addMetadata(CanSeeTop.class, new GetTop(getId(), executor));
         addMetadata(HasPortBindings.class, portBindings);
         addMetadata(CanReportMetrics.class, new ReportMetrics(this));
+        addMetadata(CanSampleStatistics.class, new SampleStatistics(getId(), executor));
+        addMetadata(CanSnapshot.class, new SnapshotContainer(this, executor));
+        addMetadata(CanRestart.class, new RestartContainer(this));
 
         if(configuration.getBuildImage() !=null) {
             String path = configuration.getBuildImage().getDockerfileLocation();
@@ -103,95 +128,253 @@ public class DockerCube extends BaseCube<CubeContainer> {
 
     @Override
     public void create() throws CubeControlException {
-        if(state != State.DESTROYED) {
-            return;
-        }
+        lifecycleLock.lock();
         try {
-            lifecycle.fire(new BeforeCreate(id));
-
-            log.fine(String.format("Creating container with name %s and configuration %s.", id, configuration));
-            long currentTime = System.currentTimeMillis();
-            executor.createContainer(id, configuration);
-            this.startingTimeInMillis = System.currentTimeMillis() - currentTime;
-            log.fine(String.format("Created container with id %s.", id));
-
-            state = State.CREATED;
-            lifecycle.fire(new AfterCreate(id));
-        } catch(Exception e) {
-            state = State.CREATE_FAILED;
-            throw CubeControlException.failedCreate(id, e);
+            if(state != State.DESTROYED) {
+                return;
+            }
+            try {
+                lifecycle.fire(new BeforeCreate(id));
+
+                log.fine(String.format("Creating container with name %s and configuration %s.", id, configuration));
+                long currentTime = System.currentTimeMillis();
+                executor.createContainer(id, configuration);
+                this.startingTimeInMillis = System.currentTimeMillis() - currentTime;
+                log.fine(String.format("Created container with id %s.", id));
+
+                state = State.CREATED;
+                lifecycle.fire(new AfterCreate(id));
+            } catch(Exception e) {
+                executor.releaseCpuSet(id);
+                state = State.CREATE_FAILED;
+                throw CubeControlException.failedCreate(id, e);
+            }
+        } finally {
+            lifecycleLock.unlock();
         }
     }
 
     @Override
     public void start() throws CubeControlException {
-        if(state == State.STARTED || state == State.PRE_RUNNING) {
-            return;
+        // a start waits for a start in flight, but the await runs without the lifecycle lock so it can be stopped
+        startLock.lock();
+        try {
+            lifecycleLock.lock();
+            try {
+                if(state == State.STARTED || state == State.PRE_RUNNING) {
+                    return;
+                }
+                try {
+                    lifecycle.fire(new BeforeStart(id));
+
+                    long currentTime = System.currentTimeMillis();
+                    executor.startContainer(id, configuration);
+                    followLog();
+                    sampleStatistics();
+                    long partialDuration = System.currentTimeMillis() - currentTime;
+                    this.startingTimeInMillis = this.startingTimeInMillis + partialDuration;
+
+                    state = State.STARTED;
+                    portBindings.containerStarted();
+                } catch(Exception e) {
+                    state = State.START_FAILED;
+                    reportCapturedLog();
+                    throw CubeControlException.failedStart(id, e);
+                }
+            } finally {
+                lifecycleLock.unlock();
+            }
+
+            try {
+                if(!AwaitStrategyFactory.create(executor, this, configuration).await()) {
+                    throw new IllegalArgumentException(String.format("Cannot connect to %s container", id));
+                }
+                assertNotStopped();
+                if (Boolean.TRUE.equals(configuration.getWarmSnapshot())) {
+                    commitWarmSnapshot();
+                }
+                assertNotStopped();
+                lifecycle.fire(new AfterStart(id));
+            } catch(Exception e) {
+                failStart();
+                throw CubeControlException.failedStart(id, e);
+            }
+        } finally {
+            startLock.unlock();
         }
+    }
+
+    /**
+     * Restarts the process of a started container in place and waits until it is ready again. Lifecycle events are
+     * not fired, so actions bound to the stop and the start of the cube, like before stop copies, are not run again.
+     */
+    public void restart() throws CubeControlException {
+        startLock.lock();
         try {
-            lifecycle.fire(new BeforeStart(id));
+            lifecycleLock.lock();
+            try {
+                if (state != State.STARTED) {
+                    throw CubeControlException.failedStart(id,
+                            new IllegalStateException(String.format("Container %s is not started, it is %s", id, state)));
+                }
+                try {
+                    // the stream of the previous boot is closed, so the log is followed again from the new boot
+                    final ContainerLogFollower follower = executor.getLogFollower(id);
+                    if (follower != null) {
+                        follower.close();
+                    }
+                    executor.restartContainer(id);
+                    followLog();
+                    sampleStatistics();
+                    // addresses are read again, the container may get a different one
+                    binding = null;
+                    portBindings.containerStarted();
+                } catch(Exception e) {
+                    state = State.START_FAILED;
+                    reportCapturedLog();
+                    throw CubeControlException.failedStart(id, e);
+                }
+            } finally {
+                lifecycleLock.unlock();
+            }
+
+            try {
+                if(!AwaitStrategyFactory.create(executor, this, configuration).await()) {
+                    throw new IllegalArgumentException(String.format("Cannot connect to %s container", id));
+                }
+                assertNotStopped();
+            } catch(Exception e) {
+                failStart();
+                throw CubeControlException.failedStart(id, e);
+            }
+        } finally {
+            startLock.unlock();
+        }
+    }
 
-            long currentTime = System.currentTimeMillis();
-            executor.startContainer(id, configuration);
-            long partialDuration = System.currentTimeMillis() - currentTime;
-            this.startingTimeInMillis = this.startingTimeInMillis + partialDuration;
+    private void assertNotStopped() {
+        if (state != State.STARTED) {
+            throw new IllegalStateException(String.format("Container %s was stopped while starting", id));
+        }
+    }
 
-            state = State.STARTED;
-            portBindings.containerStarted();
-            if(!AwaitStrategyFactory.create(executor, this, configuration).await()) {
-                throw new IllegalArgumentException(String.format("Cannot connect to %s container", id));
+    private void failStart() {
+        lifecycleLock.lock();
+        try {
+            // a container stopped while it was awaited keeps the state set by stop, so it can still be destroyed
+            if (state == State.STARTED) {
+                state = State.START_FAILED;
+                reportCapturedLog();
             }
-            lifecycle.fire(new AfterStart(id));
-        } catch(Exception e) {
-            state = State.START_FAILED;
-            throw CubeControlException.failedStart(id, e);
+        } finally {
+            lifecycleLock.unlock();
         }
     }
 
-    @Override
-    public void stop() throws CubeControlException {
-        if(state == State.STOPPED || state == State.PRE_RUNNING) {
+    private void followLog() {
+        try {
+            executor.followLog(id);
+        } catch (RuntimeException e) {
+            log.warning(String.format("Could not capture log of %s: %s", id, e.getMessage()));
+        }
+    }
+
+    private void sampleStatistics() {
+        try {
+            executor.sampleStatistics(id);
+        } catch (RuntimeException e) {
+            log.warning(String.format("Could not sample statistics of %s: %s", id, e.getMessage()));
+        }
+    }
+
+    private void reportCapturedLog() {
+        final ContainerLogFollower follower = executor.getLogFollower(id);
+        if (follower == null) {
+            return;
+        }
+        final List<ContainerLogFollower.LogLine> lines = follower.getLines();
+        final StringBuilder content = new StringBuilder();
+        for (ContainerLogFollower.LogLine line : lines.subList(Math.max(0, lines.size() - REPORTED_LOG_LINES), lines.size())) {
+            content.append(System.lineSeparator()).append(line.getText());
+        }
+        log.warning(String.format("Container %s failed to start, last lines of its log:%s", id, content));
+    }
+
+    private void commitWarmSnapshot() {
+        final String warmImage = executor.warmSnapshotImage(configuration);
+        if (executor.imageExists(warmImage)) {
             return;
         }
         try {
-            lifecycle.fire(new BeforeStop(id));
+            executor.commitContainer(id, warmImage);
+            log.fine(String.format("Committed warm snapshot of %s into %s.", id, warmImage));
+        } catch (RuntimeException e) {
+            // next run simply starts from the configured image again
+            log.warning(String.format("Could not commit warm snapshot of %s: %s", id, e.getMessage()));
+        }
+    }
 
-            long currentTime = System.currentTimeMillis();
+    @Override
+    public void stop() throws CubeControlException {
+        lifecycleLock.lock();
+        try {
+            if(state == State.STOPPED || state == State.PRE_RUNNING) {
+                return;
+            }
             try {
-                executor.stopContainer(id);
-            } catch(NotFoundException e) {
-            } catch (NotModifiedException e) {}
-            this.stoppingTimeInMillis = System.currentTimeMillis() - currentTime;
-
-            state = State.STOPPED;
-            lifecycle.fire(new AfterStop(id));
-        } catch(Exception e) {
-            state = State.STOP_FAILED;
-            throw CubeControlException.failedStop(id, e);
+                lifecycle.fire(new BeforeStop(id));
+
+                long currentTime = System.currentTimeMillis();
+                try {
+                    executor.stopContainer(id);
+                } catch(NotFoundException e) {
+                } catch (NotModifiedException e) {}
+                executor.releaseStatsSampler(id);
+                this.stoppingTimeInMillis = System.currentTimeMillis() - currentTime;
+
+                state = State.STOPPED;
+                lifecycle.fire(new AfterStop(id));
+            } catch(Exception e) {
+                state = State.STOP_FAILED;
+                throw CubeControlException.failedStop(id, e);
+            }
+        } finally {
+            lifecycleLock.unlock();
         }
     }
 
     @Override
     public void destroy() throws CubeControlException {
-        if(state != State.STOPPED) {
-            return;
-        }
+        lifecycleLock.lock();
         try {
-            lifecycle.fire(new BeforeDestroy(id));
-
-            long currentTime = System.currentTimeMillis();
+            if(state != State.STOPPED) {
+                return;
+            }
             try {
-                executor.removeContainer(id, configuration.getRemoveVolumes());
-            } catch (NotFoundException e) {
-            } catch (NotModifiedException e) {}
-            long partialDuration = System.currentTimeMillis() - currentTime;
-            this.stoppingTimeInMillis = this.stoppingTimeInMillis + partialDuration;
-
-            state = State.DESTROYED;
-            lifecycle.fire(new AfterDestroy(id));
-        } catch(Exception e) {
-            state = State.DESTORY_FAILED;
-            throw CubeControlException.failedDestroy(id, e);
+                lifecycle.fire(new BeforeDestroy(id));
+
+                long currentTime = System.currentTimeMillis();
+                try {
+                    executor.removeContainer(id, configuration.getRemoveVolumes());
+                } catch (NotFoundException e) {
+                } catch (NotModifiedException e) {}
+                executor.releaseCpuSet(id);
+                executor.releaseLogFollower(id);
+                if(hasMetadata(CanSnapshot.class)) {
+                    // snapshots belong to the removed container
+                    getMetadata(CanSnapshot.class).discard();
+                }
+                long partialDuration = System.currentTimeMillis() - currentTime;
+                this.stoppingTimeInMillis = this.stoppingTimeInMillis + partialDuration;
+
+                state = State.DESTROYED;
+                lifecycle.fire(new AfterDestroy(id));
+            } catch(Exception e) {
+                state = State.DESTORY_FAILED;
+                throw CubeControlException.failedDestroy(id, e);
+            }
+        } finally {
+            lifecycleLock.unlock();
         }
     }
 
@@ -237,12 +420,17 @@ public class DockerCube extends BaseCube<CubeContainer> {
 
     @Override
     public void changeToPreRunning() {
-        if(state != State.DESTROYED && state != State.STARTED) {
-            return;
-        }
+        lifecycleLock.lock();
+        try {
+            if(state != State.DESTROYED && state != State.STARTED) {
+                return;
+            }
 
-        log.fine(String.format("Reusing prerunning container with name %s and configuration %s.", id, configuration));
-        state = State.PRE_RUNNING;
+            log.fine(String.format("Reusing prerunning container with name %s and configuration %s.", id, configuration));
+            state = State.PRE_RUNNING;
+        } finally {
+            lifecycleLock.unlock();
+        }
     }
 
     public long getStartingTimeInMillis() {
@@ -4,6 +4,7 @@ import org.arquillian.cube.docker.impl.client.config.Network;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -13,7 +14,8 @@ public class LocalDockerNetworkRegistry implements NetworkRegistry {
 
     public LocalDockerNetworkRegistry() {
         super();
-        this.networks = new HashMap<>();
+        // networks are registered and removed concurrently by the network lifecycle
+        this.networks = Collections.synchronizedMap(new HashMap<String, Network>());
     }
 
     @Override
@@ -23,7 +25,9 @@ public class LocalDockerNetworkRegistry implements NetworkRegistry {
 
     @Override
     public Set<String> getNetworkIds() {
-        return Collections.unmodifiableSet(this.networks.keySet());
+        synchronized (this.networks) {
+            return Collections.unmodifiableSet(new HashSet<>(this.networks.keySet()));
+        }
     }
 
     @Override
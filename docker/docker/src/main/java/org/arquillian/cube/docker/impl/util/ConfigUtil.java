@@ -2,9 +2,17 @@ package org.arquillian.cube.docker.impl.util;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.arquillian.cube.docker.impl.client.config.CubeContainer;
 import org.arquillian.cube.docker.impl.client.config.DockerCompositions;
@@ -57,6 +65,87 @@ public final class ConfigUtil {
         return yaml.dump(containers);
     }
 
+    /**
+     * Calculates a hash of the given container configuration so two configurations can be compared cheaply.
+     * @param container configuration to hash.
+     * @return hex representation of the SHA-1 of the configuration.
+     */
+    public static String hash(CubeContainer container) {
+        Yaml yaml = new Yaml(new CubeRepresenter());
+        return sha1(yaml.dump(container));
+    }
+
+    /**
+     * Hashes the parts of a container configuration that define the content of a warm snapshot of it. Container and
+     * link names, host ports and resource limits are left out, so cubes with dynamic names and ports share the same
+     * snapshot.
+     * @param container configuration of the container.
+     * @param imageIdentity id of the configured image or digest of the build context.
+     * @return hash of the snapshot content.
+     */
+    public static String warmSnapshotHash(CubeContainer container, String imageIdentity) {
+        final Map<String, Object> content = new LinkedHashMap<>();
+        content.put("image", imageIdentity);
+        content.put("env", stableEnv(container));
+        content.put("cmd", container.getCmd());
+        content.put("entryPoint", container.getEntryPoint());
+        content.put("user", container.getUser());
+        content.put("workingDir", container.getWorkingDir());
+        content.put("volumes", container.getVolumes());
+        content.put("binds", container.getBinds());
+        content.put("labels", container.getLabels() != null ? new TreeMap<>(container.getLabels()) : null);
+
+        final Set<String> exposedPorts = new TreeSet<>();
+        if (container.getPortBindings() != null) {
+            for (PortBinding portBinding : container.getPortBindings()) {
+                exposedPorts.add(portBinding.getExposedPort().toString());
+            }
+        }
+        if (container.getExposedPorts() != null) {
+            for (ExposedPort exposedPort : container.getExposedPorts()) {
+                exposedPorts.add(exposedPort.toString());
+            }
+        }
+        content.put("exposedPorts", new ArrayList<>(exposedPorts));
+
+        return sha1(new Yaml().dump(content));
+    }
+
+    private static List<String> stableEnv(CubeContainer container) {
+        if (container.getEnv() == null) {
+            return null;
+        }
+        final Set<String> linkNames = new HashSet<>();
+        if (container.getLinks() != null) {
+            for (Link link : container.getLinks()) {
+                linkNames.add(link.getName());
+                linkNames.add(link.getAlias());
+            }
+        }
+        final List<String> env = new ArrayList<>();
+        for (String variable : container.getEnv()) {
+            // host names of linked containers change with dynamic names
+            final int separator = variable.indexOf('=');
+            if (separator < 0 || !linkNames.contains(variable.substring(separator + 1))) {
+                env.add(variable);
+            }
+        }
+        return env;
+    }
+
+    public static String sha1(String content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(content.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private static class CubeRepresenter extends Representer {
         public CubeRepresenter() {
             this.representers.put(PortBinding.class, new ToStringRepresent());
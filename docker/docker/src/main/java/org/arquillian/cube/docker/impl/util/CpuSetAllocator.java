@@ -0,0 +1,156 @@
+package org.arquillian.cube.docker.impl.util;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Assigns disjoint sets of cpus to containers that ask for a number of dedicated cpus.
+ *
+ * Assignments are reserved in the {@link HostResourceLedger}, so containers started by parallel forks on the same
+ * host never share cpus. When NUMA topology of the host can be read, the cpus of a container are taken from a
+ * single node whenever possible.
+ */
+public class CpuSetAllocator {
+
+    static final String NUMA_NODES_DIRECTORY = "/sys/devices/system/node";
+
+    private static final Logger log = Logger.getLogger(CpuSetAllocator.class.getName());
+
+    private final HostResourceLedger ledger;
+    private final List<List<Integer>> nodes;
+    private final Map<String, List<Integer>> allocations = new HashMap<>();
+
+    public CpuSetAllocator(HostResourceLedger ledger, List<List<Integer>> nodes) {
+        this.ledger = ledger;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Creates an allocator for the cpus of the docker host, grouped by the NUMA nodes of current machine.
+     * @param cpus number of cpus of the docker host.
+     */
+    public static CpuSetAllocator forDockerHost(int cpus) {
+        return new CpuSetAllocator(HostResourceLedger.getDefault(), readNumaNodes(new File(NUMA_NODES_DIRECTORY), cpus));
+    }
+
+    /**
+     * Allocates cpus to a container. Calling it again for the same container returns the same cpus.
+     * @param name of the container.
+     * @param count number of cpus.
+     * @return the cpus in <code>cpuset-cpus</code> format, or null if there are not enough free cpus.
+     */
+    public synchronized String allocate(String name, int count) {
+        List<Integer> cpus = allocations.get(name);
+        if (cpus == null) {
+            cpus = ledger.reserveCpus(nodes, count);
+            if (cpus.isEmpty()) {
+                log.warning(String.format("There are not %s free cpus to pin container %s, so it is not going to be pinned.", count, name));
+                return null;
+            }
+            allocations.put(name, cpus);
+        }
+        return toCpuList(cpus);
+    }
+
+    /**
+     * Returns cpus of given container, if any, so they can be allocated to other containers.
+     * @param name of the container.
+     */
+    public synchronized void release(String name) {
+        final List<Integer> cpus = allocations.remove(name);
+        if (cpus != null) {
+            ledger.releaseCpus(cpus);
+        }
+    }
+
+    static List<List<Integer>> readNumaNodes(File directory, int cpus) {
+        final List<List<Integer>> nodes = new ArrayList<>();
+        final File[] nodeDirectories = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isDirectory() && file.getName().matches("node\\d+");
+            }
+        });
+
+        if (nodeDirectories != null) {
+            Arrays.sort(nodeDirectories);
+            for (File nodeDirectory : nodeDirectories) {
+                final File cpuList = new File(nodeDirectory, "cpulist");
+                try {
+                    final List<Integer> node = new ArrayList<>();
+                    // docker host may have fewer cpus than current machine, for example a docker machine
+                    for (Integer cpu : parseCpuList(new String(Files.readAllBytes(cpuList.toPath()), StandardCharsets.UTF_8))) {
+                        if (cpu < cpus) {
+                            node.add(cpu);
+                        }
+                    }
+                    if (!node.isEmpty()) {
+                        nodes.add(node);
+                    }
+                } catch (IOException e) {
+                    log.log(Level.FINE, String.format("Cannot read cpus of NUMA node %s", nodeDirectory), e);
+                }
+            }
+        }
+
+        int found = 0;
+        for (List<Integer> node : nodes) {
+            found += node.size();
+        }
+        if (found != cpus) {
+            // NUMA topology is not available or is not the one of the docker host
+            final List<Integer> node = new ArrayList<>();
+            for (int cpu = 0; cpu < cpus; cpu++) {
+                node.add(cpu);
+            }
+            return Collections.singletonList(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Parses a list of cpus like <code>0-3,6</code>.
+     */
+    public static List<Integer> parseCpuList(String cpuList) {
+        final List<Integer> cpus = new ArrayList<>();
+        for (String range : cpuList.split(",")) {
+            range = range.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            final int separator = range.indexOf('-');
+            if (separator < 0) {
+                cpus.add(Integer.parseInt(range));
+            } else {
+                final int from = Integer.parseInt(range.substring(0, separator).trim());
+                final int to = Integer.parseInt(range.substring(separator + 1).trim());
+                for (int cpu = from; cpu <= to; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        }
+        return cpus;
+    }
+
+    static String toCpuList(List<Integer> cpus) {
+        final StringBuilder cpuList = new StringBuilder();
+        for (Integer cpu : cpus) {
+            if (cpuList.length() > 0) {
+                cpuList.append(',');
+            }
+            cpuList.append(cpu);
+        }
+        return cpuList.toString();
+    }
+}
@@ -0,0 +1,664 @@
+package org.arquillian.cube.docker.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Host-wide ledger of resources (host ports, dynamic name suffixes, cpus, memory and cpu budgets of containers and
+ * leases of shared cubes) reserved by Cube.
+ *
+ * Every JVM running Cube on the same machine (for example several surefire forks) shares the same ledger file
+ * located in the temporary directory. All accesses to the ledger are serialized with a file lock, so two JVMs
+ * never get the same port or the same suffix. Each JVM holds an exclusive lock on its own owner file during its
+ * whole life, so entries whose owner file can be locked by somebody else belong to a dead JVM and are reclaimed.
+ * File locks are held by the whole JVM, so ledgers of the same file living in one JVM also serialize their accesses
+ * with a lock shared by all of them.
+ */
+public class HostResourceLedger {
+
+    public static final String LEDGER_DIRECTORY = "arquillian.cube.ledger.dir";
+
+    static final String LEDGER_FILE = "cube-resources.ledger";
+    static final String OWNER_PREFIX = "owner-";
+    static final String OWNER_SUFFIX = ".lock";
+
+    private static final String PORT_TYPE = "port";
+    private static final String NAME_TYPE = "name";
+    private static final String CPU_TYPE = "cpu";
+    private static final String LEASE_TYPE = "lease";
+    private static final String READY_TYPE = "ready";
+    private static final String IDLE_TYPE = "idle";
+    private static final String BUDGET_TYPE = "budget";
+
+    private static final String IDLE_OWNER_PREFIX = "until-";
+    private static final char VERSION_SEPARATOR = '@';
+    private static final String BUDGET_SEPARATOR = ":";
+
+    private static final int MIN_PRIVATE_PORT = 49152;
+    private static final int PRIVATE_PORT_RANGE = 16383;
+    private static final int MAX_ATTEMPTS = 100;
+
+    private static final Logger log = Logger.getLogger(HostResourceLedger.class.getName());
+
+    private static HostResourceLedger defaultLedger;
+
+    // file locks cannot be taken twice in the same JVM, so every ledger of a file synchronizes on the same monitor
+    private static final ConcurrentMap<String, Object> ledgerMonitors = new ConcurrentHashMap<>();
+
+    private final Random random = new Random();
+    private final File directory;
+    private final File ledgerFile;
+    private final String ownerId;
+    private final Object ledgerMonitor;
+
+    private RandomAccessFile ownerFile;
+    private FileLock ownerLock;
+
+    public HostResourceLedger(File directory) {
+        this.directory = directory;
+        this.ledgerFile = new File(directory, LEDGER_FILE);
+        this.ownerId = UUID.randomUUID().toString();
+        final String path = ledgerFile.getAbsoluteFile().toPath().normalize().toString();
+        ledgerMonitors.putIfAbsent(path, new Object());
+        this.ledgerMonitor = ledgerMonitors.get(path);
+    }
+
+    /**
+     * Gets the ledger shared by all Cube instances of current host. Resources reserved through it are released when
+     * the JVM exits.
+     * @return the ledger stored in the configured directory or in the temporary directory.
+     */
+    public static synchronized HostResourceLedger getDefault() {
+        if (defaultLedger == null) {
+            String location = System.getProperty(LEDGER_DIRECTORY,
+                    new File(System.getProperty("java.io.tmpdir"), "arquillian-cube").getAbsolutePath());
+            final HostResourceLedger ledger = new HostResourceLedger(new File(location));
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    ledger.releaseAll();
+                }
+            });
+            defaultLedger = ledger;
+        }
+        return defaultLedger;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Reserves a private host port that is not reserved by any other JVM and that is not bound on this host.
+     * @return the reserved port.
+     */
+    public synchronized int reservePort() {
+        return withLedger(new LedgerOperation<Integer>() {
+            @Override
+            public Integer execute(List<Entry> entries) {
+                final Set<String> reserved = values(entries, PORT_TYPE);
+                for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                    int port = MIN_PRIVATE_PORT + random.nextInt(PRIVATE_PORT_RANGE);
+                    if (!reserved.contains(Integer.toString(port)) && isPortAvailable(port)) {
+                        entries.add(new Entry(PORT_TYPE, Integer.toString(port), ownerId));
+                        return port;
+                    }
+                }
+                throw new IllegalStateException(String.format("No free host port could be reserved after %s attempts.", MAX_ATTEMPTS));
+            }
+        });
+    }
+
+    /**
+     * Reserves a unique suffix to be used for naming dynamic cubes.
+     * @return the reserved suffix.
+     */
+    public synchronized UUID reserveNameSuffix() {
+        return withLedger(new LedgerOperation<UUID>() {
+            @Override
+            public UUID execute(List<Entry> entries) {
+                final Set<String> reserved = values(entries, NAME_TYPE);
+                UUID uuid = UUID.randomUUID();
+                while (reserved.contains(uuid.toString())) {
+                    uuid = UUID.randomUUID();
+                }
+                entries.add(new Entry(NAME_TYPE, uuid.toString(), ownerId));
+                return uuid;
+            }
+        });
+    }
+
+    /**
+     * Reserves cpus that are not reserved by any other container of this host. Cpus are taken from a single node if
+     * possible, choosing the node with the fewest free cpus that can hold all of them, otherwise from the nodes with
+     * most free cpus.
+     * @param nodes cpus of the host grouped by NUMA node.
+     * @param count number of cpus to reserve.
+     * @return the reserved cpus, or an empty list if there are not enough free cpus.
+     */
+    public synchronized List<Integer> reserveCpus(final List<List<Integer>> nodes, final int count) {
+        return withLedger(new LedgerOperation<List<Integer>>() {
+            @Override
+            public List<Integer> execute(List<Entry> entries) {
+                final Set<String> reserved = values(entries, CPU_TYPE);
+                final List<List<Integer>> freeNodes = new ArrayList<>();
+                int free = 0;
+                for (List<Integer> node : nodes) {
+                    final List<Integer> freeCpus = new ArrayList<>();
+                    for (Integer cpu : node) {
+                        if (!reserved.contains(cpu.toString())) {
+                            freeCpus.add(cpu);
+                        }
+                    }
+                    freeNodes.add(freeCpus);
+                    free += freeCpus.size();
+                }
+                if (free < count) {
+                    return Collections.emptyList();
+                }
+
+                List<Integer> bestFit = null;
+                for (List<Integer> freeCpus : freeNodes) {
+                    if (freeCpus.size() >= count && (bestFit == null || freeCpus.size() < bestFit.size())) {
+                        bestFit = freeCpus;
+                    }
+                }
+
+                final List<Integer> cpus = new ArrayList<>();
+                if (bestFit != null) {
+                    cpus.addAll(bestFit.subList(0, count));
+                } else {
+                    Collections.sort(freeNodes, new Comparator<List<Integer>>() {
+                        @Override
+                        public int compare(List<Integer> node1, List<Integer> node2) {
+                            return node2.size() - node1.size();
+                        }
+                    });
+                    for (List<Integer> freeCpus : freeNodes) {
+                        cpus.addAll(freeCpus.subList(0, Math.min(freeCpus.size(), count - cpus.size())));
+                    }
+                }
+
+                for (Integer cpu : cpus) {
+                    entries.add(new Entry(CPU_TYPE, cpu.toString(), ownerId));
+                }
+                return cpus;
+            }
+        });
+    }
+
+    /**
+     * Releases cpus reserved by this JVM.
+     * @param cpus to release.
+     */
+    public synchronized void releaseCpus(final Collection<Integer> cpus) {
+        withLedger(new LedgerOperation<Void>() {
+            @Override
+            public Void execute(List<Entry> entries) {
+                final Set<String> released = new HashSet<>();
+                for (Integer cpu : cpus) {
+                    released.add(cpu.toString());
+                }
+                final List<Entry> removed = new ArrayList<>();
+                for (Entry entry : entries) {
+                    if (CPU_TYPE.equals(entry.type) && ownerId.equals(entry.owner) && released.contains(entry.value)) {
+                        removed.add(entry);
+                    }
+                }
+                entries.removeAll(removed);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Reserves the memory and cpu budget of a container if it fits, together with the budgets reserved by every JVM of
+     * this host, in given capacity.
+     * @param cubeId container the budget is reserved for.
+     * @param memory bytes of memory of the container.
+     * @param cpus cpus of the container.
+     * @param totalMemory bytes of memory of the host, 0 or less if it is not limited.
+     * @param totalCpus cpus of the host, 0 or less if they are not limited.
+     * @return true if the budget was reserved, false if it does not fit.
+     */
+    public synchronized boolean reserveBudget(final String cubeId, final long memory, final double cpus,
+                                              final long totalMemory, final double totalCpus) {
+        return withLedger(new LedgerOperation<Boolean>() {
+            @Override
+            public Boolean execute(List<Entry> entries) {
+                long usedMemory = 0;
+                double usedCpus = 0;
+                for (Entry entry : entries) {
+                    if (BUDGET_TYPE.equals(entry.type)) {
+                        final String[] budget = entry.value.split(BUDGET_SEPARATOR, 3);
+                        usedMemory += Long.parseLong(budget[0]);
+                        usedCpus += Double.parseDouble(budget[1]);
+                    }
+                }
+                if ((totalMemory > 0 && usedMemory + memory > totalMemory) || (totalCpus > 0 && usedCpus + cpus > totalCpus)) {
+                    return false;
+                }
+                entries.add(new Entry(BUDGET_TYPE, memory + BUDGET_SEPARATOR + cpus + BUDGET_SEPARATOR + cubeId, ownerId));
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Releases the budget reserved by this JVM for a container.
+     * @param cubeId container the budget was reserved for.
+     */
+    public synchronized void releaseBudget(final String cubeId) {
+        withLedger(new LedgerOperation<Void>() {
+            @Override
+            public Void execute(List<Entry> entries) {
+                final List<Entry> released = new ArrayList<>();
+                for (Entry entry : entries) {
+                    if (BUDGET_TYPE.equals(entry.type) && ownerId.equals(entry.owner)
+                            && entry.value.split(BUDGET_SEPARATOR, 3)[2].equals(cubeId)) {
+                        released.add(entry);
+                    }
+                }
+                entries.removeAll(released);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Takes a lease on a resource shared between JVMs, for example a running container.
+     * @param resource identifier of the resource.
+     * @param version version of the resource, leases are only shared between equal versions.
+     * @return {@link LeaseState#FIRST} if nobody else holds the resource so caller must provide it,
+     * {@link LeaseState#SHARED} if another JVM provides it or left it idle, or {@link LeaseState#OUTDATED}
+     * if an idle resource with another version must be replaced by the caller.
+     */
+    public synchronized LeaseState acquireLease(final String resource, final String version) {
+        return withLedger(new LedgerOperation<LeaseState>() {
+            @Override
+            public LeaseState execute(List<Entry> entries) {
+                final String key = resource + VERSION_SEPARATOR + version;
+                LeaseState state = LeaseState.FIRST;
+                boolean idle = false;
+
+                final List<Entry> outdated = new ArrayList<>();
+                for (Entry entry : entries) {
+                    if (!resource.equals(resourceOf(entry)) || ownerId.equals(entry.owner)) {
+                        continue;
+                    }
+                    if (key.equals(entry.value)) {
+                        if (IDLE_TYPE.equals(entry.type)) {
+                            outdated.add(entry);
+                            idle = true;
+                        }
+                        state = LeaseState.SHARED;
+                    } else if (IDLE_TYPE.equals(entry.type)) {
+                        outdated.add(entry);
+                        state = state == LeaseState.SHARED ? state : LeaseState.OUTDATED;
+                    } else if (LEASE_TYPE.equals(entry.type)) {
+                        throw new IllegalStateException(String.format("Resource %s is already leased with a different version than %s", resource, version));
+                    }
+                }
+
+                entries.removeAll(outdated);
+                if (idle && !containsValue(entries, READY_TYPE, key)) {
+                    // idle resources were running when left, so they are ready to be used
+                    entries.add(new Entry(READY_TYPE, key, ownerId));
+                }
+                entries.add(new Entry(LEASE_TYPE, key, ownerId));
+                return state;
+            }
+        });
+    }
+
+    /**
+     * Marks a leased resource as ready to be used by other holders.
+     * @param resource identifier of the resource.
+     * @param version version of the resource.
+     */
+    public synchronized void markLeaseReady(final String resource, final String version) {
+        withLedger(new LedgerOperation<Void>() {
+            @Override
+            public Void execute(List<Entry> entries) {
+                entries.add(new Entry(READY_TYPE, resource + VERSION_SEPARATOR + version, ownerId));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Checks the state of a resource leased by other JVMs.
+     * @param resource identifier of the resource.
+     * @param version version of the resource.
+     * @return true if the resource is ready, false if it is still being provided, and null if no other JVM is
+     * holding it anymore.
+     */
+    public synchronized Boolean isLeaseReady(final String resource, final String version) {
+        return withLedger(new LedgerOperation<Boolean>() {
+            @Override
+            public Boolean execute(List<Entry> entries) {
+                final String key = resource + VERSION_SEPARATOR + version;
+                boolean held = false;
+                for (Entry entry : entries) {
+                    if (key.equals(entry.value)) {
+                        if (READY_TYPE.equals(entry.type)) {
+                            return true;
+                        }
+                        held = held || (LEASE_TYPE.equals(entry.type) && !ownerId.equals(entry.owner));
+                    }
+                }
+                return held ? false : null;
+            }
+        });
+    }
+
+    /**
+     * Checks whether other JVMs hold a lease on a resource.
+     * @param resource identifier of the resource.
+     * @param version version of the resource.
+     * @return true if a JVM other than this one holds a lease on the resource.
+     */
+    public synchronized boolean isLeasedByOthers(final String resource, final String version) {
+        return withLedger(new LedgerOperation<Boolean>() {
+            @Override
+            public Boolean execute(List<Entry> entries) {
+                final String key = resource + VERSION_SEPARATOR + version;
+                for (Entry entry : entries) {
+                    if (LEASE_TYPE.equals(entry.type) && key.equals(entry.value) && !ownerId.equals(entry.owner)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Releases the lease taken by this JVM on a resource.
+     * @param resource identifier of the resource.
+     * @param version version of the resource.
+     * @param idleMillis time the resource is kept alive after the last lease is released.
+     * @return true if this was the last lease and the resource must be disposed by the caller.
+     */
+    public synchronized boolean releaseLease(final String resource, final String version, final long idleMillis) {
+        return withLedger(new LedgerOperation<Boolean>() {
+            @Override
+            public Boolean execute(List<Entry> entries) {
+                final String key = resource + VERSION_SEPARATOR + version;
+                final List<Entry> released = new ArrayList<>();
+                boolean held = false;
+                for (Entry entry : entries) {
+                    if (key.equals(entry.value)) {
+                        if (ownerId.equals(entry.owner)) {
+                            released.add(entry);
+                        } else {
+                            held = held || LEASE_TYPE.equals(entry.type);
+                        }
+                    }
+                }
+                entries.removeAll(released);
+
+                if (held) {
+                    return false;
+                }
+                if (idleMillis > 0) {
+                    entries.add(new Entry(IDLE_TYPE, key, IDLE_OWNER_PREFIX + (System.currentTimeMillis() + idleMillis)));
+                    return false;
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Removes idle resources whose idle time has expired.
+     * @return identifiers of the expired resources that must be disposed by the caller.
+     */
+    public synchronized List<String> takeExpiredLeases() {
+        return withLedger(new LedgerOperation<List<String>>() {
+            @Override
+            public List<String> execute(List<Entry> entries) {
+                final List<Entry> expired = new ArrayList<>();
+                for (Entry entry : entries) {
+                    if (IDLE_TYPE.equals(entry.type) && isIdleExpired(entry.owner)) {
+                        expired.add(entry);
+                    }
+                }
+                entries.removeAll(expired);
+
+                final List<String> resources = new ArrayList<>();
+                for (Entry entry : expired) {
+                    resources.add(resourceOf(entry));
+                }
+                return resources;
+            }
+        });
+    }
+
+    /**
+     * Releases all resources reserved by this JVM.
+     */
+    public synchronized void releaseAll() {
+        if (!ledgerFile.exists()) {
+            return;
+        }
+        try {
+            withLedger(new LedgerOperation<Void>() {
+                @Override
+                public Void execute(List<Entry> entries) {
+                    List<Entry> released = new ArrayList<>();
+                    for (Entry entry : entries) {
+                        if (ownerId.equals(entry.owner)) {
+                            released.add(entry);
+                        }
+                    }
+                    entries.removeAll(released);
+                    return null;
+                }
+            });
+        } finally {
+            releaseOwnership();
+        }
+    }
+
+    public static boolean isPortAvailable(int port) {
+        try (ServerSocket serverSocket = new ServerSocket()) {
+            serverSocket.setReuseAddress(false);
+            serverSocket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private <T> T withLedger(LedgerOperation<T> operation) {
+        acquireOwnership();
+        synchronized (ledgerMonitor) {
+            try (RandomAccessFile file = new RandomAccessFile(ledgerFile, "rw");
+                 FileChannel channel = file.getChannel();
+                 FileLock lock = channel.lock()) {
+
+                final List<Entry> entries = removeStaleEntries(read(file));
+                final T result = operation.execute(entries);
+                write(file, entries);
+                return result;
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Cannot access resource ledger %s", ledgerFile), e);
+            }
+        }
+    }
+
+    private void acquireOwnership() {
+        if (ownerLock != null) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+            throw new IllegalStateException(String.format("Directory %s for storing resource ledger cannot be created.", directory));
+        }
+        try {
+            ownerFile = new RandomAccessFile(new File(directory, OWNER_PREFIX + ownerId + OWNER_SUFFIX), "rw");
+            ownerLock = ownerFile.getChannel().lock();
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Cannot register owner %s in resource ledger %s", ownerId, ledgerFile), e);
+        }
+    }
+
+    private void releaseOwnership() {
+        if (ownerLock == null) {
+            return;
+        }
+        try {
+            ownerLock.release();
+            ownerFile.close();
+        } catch (IOException e) {
+            log.log(Level.FINE, "Cannot release resource ledger owner lock", e);
+        }
+        new File(directory, OWNER_PREFIX + ownerId + OWNER_SUFFIX).delete();
+        ownerLock = null;
+        ownerFile = null;
+    }
+
+    private List<Entry> removeStaleEntries(List<Entry> entries) {
+        final Set<String> alive = new HashSet<>();
+        final Set<String> dead = new HashSet<>();
+        final List<Entry> liveEntries = new ArrayList<>();
+
+        for (Entry entry : entries) {
+            if (!alive.contains(entry.owner) && !dead.contains(entry.owner)) {
+                if (isOwnerAlive(entry.owner)) {
+                    alive.add(entry.owner);
+                } else {
+                    dead.add(entry.owner);
+                }
+            }
+            if (alive.contains(entry.owner)) {
+                liveEntries.add(entry);
+            }
+        }
+
+        if (!dead.isEmpty()) {
+            log.fine(String.format("Reclaiming resources of stale owners %s", dead));
+        }
+        return liveEntries;
+    }
+
+    private boolean isOwnerAlive(String owner) {
+        if (ownerId.equals(owner) || owner.startsWith(IDLE_OWNER_PREFIX)) {
+            // expired idle entries are only removed by takeExpiredLeases so the resource can be disposed
+            return true;
+        }
+        final File lockFile = new File(directory, OWNER_PREFIX + owner + OWNER_SUFFIX);
+        if (!lockFile.exists()) {
+            return false;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(lockFile, "rw");
+             FileChannel channel = file.getChannel()) {
+            final FileLock lock = channel.tryLock();
+            if (lock == null) {
+                return true;
+            }
+            lock.release();
+            lockFile.delete();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            // lock is held by another ledger living in current JVM
+            return true;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private List<Entry> read(RandomAccessFile file) throws IOException {
+        final byte[] content = new byte[(int) file.length()];
+        file.seek(0);
+        file.readFully(content);
+
+        final List<Entry> entries = new ArrayList<>();
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+            final String[] fields = line.trim().split(" ");
+            if (fields.length == 3) {
+                entries.add(new Entry(fields[0], fields[1], fields[2]));
+            }
+        }
+        return entries;
+    }
+
+    private void write(RandomAccessFile file, List<Entry> entries) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (Entry entry : entries) {
+            content.append(entry.type).append(' ').append(entry.value).append(' ').append(entry.owner).append('\n');
+        }
+        final byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        file.setLength(0);
+        file.seek(0);
+        file.write(bytes);
+    }
+
+    private static boolean isIdleExpired(String owner) {
+        return Long.parseLong(owner.substring(IDLE_OWNER_PREFIX.length())) < System.currentTimeMillis();
+    }
+
+    private static String resourceOf(Entry entry) {
+        final int separator = entry.value.lastIndexOf(VERSION_SEPARATOR);
+        return separator > -1 ? entry.value.substring(0, separator) : entry.value;
+    }
+
+    private static boolean containsValue(List<Entry> entries, String type, String value) {
+        for (Entry entry : entries) {
+            if (type.equals(entry.type) && value.equals(entry.value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> values(List<Entry> entries, String type) {
+        final Set<String> values = new HashSet<>();
+        for (Entry entry : entries) {
+            if (type.equals(entry.type)) {
+                values.add(entry.value);
+            }
+        }
+        return values;
+    }
+
+    public enum LeaseState {
+        FIRST, SHARED, OUTDATED
+    }
+
+    private interface LedgerOperation<T> {
+        T execute(List<Entry> entries);
+    }
+
+    private static class Entry {
+        private final String type;
+        private final String value;
+        private final String owner;
+
+        Entry(String type, String value, String owner) {
+            this.type = type;
+            this.value = value;
+            this.owner = owner;
+        }
+    }
+}
@@ -8,10 +8,19 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 
 import org.arquillian.cube.docker.impl.client.config.CubeContainer;
 import org.arquillian.cube.docker.impl.client.config.DockerCompositions;
@@ -45,6 +54,17 @@ public class BeforeStopContainerObserverTest extends AbstractManagerTestBase {
         "        from: /test\n" + 
         "        to: ";
 
+    private static final String CONTAINER_COMPRESSED_COPY_CONFIGURATION =
+        "tomcat_default:\n" +
+        "  image: tutum/tomcat:7.0\n" +
+        "  beforeStop:\n" +
+        "    - copy:\n" +
+        "        from: /test\n" +
+        "        compress: true\n" +
+        "        include: ['**/*.log', '**/*.hprof']\n" +
+        "        maxSize: 50\n" +
+        "        to: ";
+
     private static final String CONTAINER_LOG_CONFIGURATION =
         "tomcat_default:\n" + 
         "  image: tutum/tomcat:7.0\n" + 
@@ -113,4 +133,43 @@ public class BeforeStopContainerObserverTest extends AbstractManagerTestBase {
         fire(new BeforeStop(CUBE_CONTAINER_NAME));
         verify(dockerClientExecutor, times(1)).copyLog(eq(CUBE_CONTAINER_NAME), eq(false), eq(false), eq(false), eq(false), eq(-1), any(OutputStream.class));
     }
+
+    @Test
+    public void shouldCopyFilteredFilesFromContainerAsCompressedTar() throws IOException {
+        File newFolder = temporaryFolder.newFolder();
+        String content = CONTAINER_COMPRESSED_COPY_CONFIGURATION;
+        content += newFolder.getAbsolutePath();
+
+        DockerCompositions configuration = ConfigUtil.load(content);
+        CubeContainer config = configuration.get("tomcat_default");
+
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+            addFile(out, "test/server.log", new byte[10]);
+            addFile(out, "test/heap.hprof", new byte[100]);
+            addFile(out, "test/server.xml", new byte[10]);
+        }
+
+        Mockito.when(cube.configuration()).thenReturn(config);
+        Mockito.when(dockerClientExecutor.getFileOrDirectoryFromContainerAsTar(eq(CUBE_CONTAINER_NAME), anyString())).thenReturn(new ByteArrayInputStream(tar.toByteArray()));
+        fire(new BeforeStop(CUBE_CONTAINER_NAME));
+
+        List<String> collected = new ArrayList<>();
+        try (TarArchiveInputStream in = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(new File(newFolder, "test.tar.gz"))))) {
+            TarArchiveEntry entry;
+            while ((entry = in.getNextTarEntry()) != null) {
+                collected.add(entry.getName());
+            }
+        }
+        assertThat(collected.size(), is(1));
+        assertThat(collected.get(0), is("test/server.log"));
+    }
+
+    private static void addFile(TarArchiveOutputStream out, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
 }
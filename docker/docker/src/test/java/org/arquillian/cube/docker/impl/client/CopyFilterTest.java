@@ -0,0 +1,43 @@
+package org.arquillian.cube.docker.impl.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.arquillian.cube.docker.impl.client.config.Copy;
+import org.junit.Test;
+
+public class CopyFilterTest {
+
+    @Test
+    public void shouldMatchFilesAtAnyDepthWithDoubleStar() {
+        CopyFilter filter = filter(Arrays.asList("logs/**.log"), Arrays.asList("logs/access/**"));
+
+        assertThat(filter.accept(file("logs/server.log")), is(true));
+        assertThat(filter.accept(file("logs/app/server.log")), is(true));
+        assertThat(filter.accept(file("logs/access/access.log")), is(false));
+        assertThat(filter.accept(file("logs/server.xml")), is(false));
+    }
+
+    @Test
+    public void shouldNeedADirectoryWithDoubleStarAndSlash() {
+        CopyFilter filter = filter(Arrays.asList("logs/**/*.log"), null);
+
+        assertThat(filter.accept(file("logs/server.log")), is(false));
+        assertThat(filter.accept(file("logs/app/server.log")), is(true));
+    }
+
+    private static CopyFilter filter(List<String> include, List<String> exclude) {
+        Copy copy = new Copy();
+        copy.setInclude(include);
+        copy.setExclude(exclude);
+        return CopyFilter.from(copy);
+    }
+
+    private static TarArchiveEntry file(String name) {
+        return new TarArchiveEntry(name);
+    }
+}
@@ -313,6 +313,64 @@ public class CubeConfigurationTest {
         assertThat(actualRedis.getImage(), is(notNullValue()));
     }
 
+    @Test
+    public void should_reuse_cached_definitions_until_referenced_files_change() throws IOException {
+        File composeDirectory = testFolder.newFolder();
+        File composeFile = new File(composeDirectory, "docker-compose.yml");
+        Files.write(composeFile.toPath(), ("redis:\n  image: redis\n  env_file: redis.env\n").getBytes());
+        File envFile = new File(composeDirectory, "redis.env");
+        Files.write(envFile.toPath(), "MODE=cluster".getBytes());
+        File cacheDirectory = testFolder.newFolder();
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("dockerContainersFile", composeFile.toURI().toString());
+        parameters.put("definitionFormat", DefinitionFormat.COMPOSE.name());
+        parameters.put(CubeDockerConfiguration.DEFINITIONS_CACHE_DIRECTORY, cacheDirectory.getAbsolutePath());
+
+        CubeDockerConfiguration cubeConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+        assertThat(cubeConfiguration.getDockerContainersContent().get("redis").getEnv(), CoreMatchers.hasItem("MODE=cluster"));
+        File cached = cacheDirectory.listFiles()[0];
+        assertThat(cacheDirectory.listFiles().length, is(1));
+        assertThat(cached.setLastModified(0), is(true));
+
+        cubeConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+        assertThat(cubeConfiguration.getDockerContainersContent().get("redis").getImage().toImageRef(), is("redis"));
+        assertThat(cubeConfiguration.getDockerContainersContent().get("redis").getEnv(), CoreMatchers.hasItem("MODE=cluster"));
+        // loaded from the cache instead of being stored again
+        assertThat(cached.lastModified(), is(0L));
+
+        Files.write(envFile.toPath(), "MODE=standalone".getBytes());
+        cubeConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+        assertThat(cubeConfiguration.getDockerContainersContent().get("redis").getEnv(), CoreMatchers.hasItem("MODE=standalone"));
+    }
+
+    @Test
+    public void should_parse_again_when_placeholder_of_extends_file_changes() throws IOException {
+        final String property = "cube.test.extends.mode";
+        File composeDirectory = testFolder.newFolder();
+        File composeFile = new File(composeDirectory, "docker-compose.yml");
+        Files.write(composeFile.toPath(), ("redis:\n  extends:\n    file: common.yml\n    service: base\n").getBytes());
+        Files.write(new File(composeDirectory, "common.yml").toPath(),
+                ("base:\n  image: redis\n  environment:\n    - MODE=${" + property + ":-cluster}\n").getBytes());
+        File cacheDirectory = testFolder.newFolder();
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("dockerContainersFile", composeFile.toURI().toString());
+        parameters.put("definitionFormat", DefinitionFormat.COMPOSE.name());
+        parameters.put(CubeDockerConfiguration.DEFINITIONS_CACHE_DIRECTORY, cacheDirectory.getAbsolutePath());
+
+        try {
+            CubeDockerConfiguration cubeConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+            assertThat(cubeConfiguration.getDockerContainersContent().get("redis").getEnv(), CoreMatchers.hasItem("MODE=cluster"));
+
+            System.setProperty(property, "standalone");
+            cubeConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+            assertThat(cubeConfiguration.getDockerContainersContent().get("redis").getEnv(), CoreMatchers.hasItem("MODE=standalone"));
+        } finally {
+            System.clearProperty(property);
+        }
+    }
+
     @Test
     public void should_load_cube_configuration_from_cube_file_if_no_file_is_provided() {
         Map<String, String> parameters = new HashMap<String, String>();
@@ -366,7 +424,13 @@ public class CubeConfigurationTest {
         parameters.put("serverUri", "http://localhost:25123");
         parameters.put("dockerContainersFile", newFile.toURI().toString());
 
-        CubeDockerConfiguration cubeConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+        CubeDockerConfiguration cubeConfiguration;
+        try {
+            cubeConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+        } finally {
+            // other tests read definitions without environment
+            System.clearProperty("cube.environment");
+        }
         assertThat(cubeConfiguration.getDockerServerUri(), is("http://localhost:25123"));
         assertThat(cubeConfiguration.getDockerServerVersion(), is("1.13"));
 
@@ -0,0 +1,127 @@
+package org.arquillian.cube.docker.impl.client;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.model.Image;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CubeImageGarbageCollectorTest {
+
+    @Mock
+    private DockerClientExecutor executor;
+
+    @Before
+    public void setup() {
+        when(executor.listDanglingImages()).thenReturn(Collections.<Image>emptyList());
+    }
+
+    @Test
+    public void shouldKeepMostRecentImagesOfEachCube() {
+        List<Image> images = Arrays.asList(
+            image("app3", 300L, "arquillian-cube/build:app"),
+            image("app2", 400L, "arquillian-cube/build:app.2000"),
+            image("app1", 100L, "arquillian-cube/build:app.1000"),
+            image("db1", 50L, "arquillian-cube/build:db"),
+            image("user", 10L, "postgres:9.5"));
+        when(executor.listImages()).thenReturn(images);
+
+        CubeImageGarbageCollector.collect(executor, 2);
+
+        verify(executor).removeImage("arquillian-cube/build:app.1000");
+        verify(executor, never()).removeImage("arquillian-cube/build:app");
+        verify(executor, never()).removeImage("arquillian-cube/build:app.2000");
+        verify(executor, never()).removeImage("arquillian-cube/build:db");
+        verify(executor, never()).removeImage("postgres:9.5");
+    }
+
+    @Test
+    public void shouldLimitWarmSnapshotsOfEachImage() {
+        List<Image> images = Arrays.asList(
+            image("app", 100L, "arquillian-cube/build:app"),
+            image("warm2", 300L, "arquillian-cube/warm:aaaaaaaaaaaa-2222"),
+            image("warm1", 200L, "arquillian-cube/warm:aaaaaaaaaaaa-1111"),
+            image("warm3", 100L, "arquillian-cube/warm:bbbbbbbbbbbb-3333"));
+        when(executor.listImages()).thenReturn(images);
+
+        CubeImageGarbageCollector.collect(executor, 1);
+
+        verify(executor).removeImage("arquillian-cube/warm:aaaaaaaaaaaa-1111");
+        verify(executor, never()).removeImage("arquillian-cube/warm:aaaaaaaaaaaa-2222");
+        verify(executor, never()).removeImage("arquillian-cube/warm:bbbbbbbbbbbb-3333");
+        verify(executor, never()).removeImage("arquillian-cube/build:app");
+    }
+
+    @Test
+    public void shouldGroupBuildsOfSameCubeFromOtherContexts() {
+        List<Image> images = Arrays.asList(
+            image("app2", 300L, "arquillian-cube/build:app-0123456789ab"),
+            image("app1", 200L, "arquillian-cube/build:app-ba9876543210"),
+            image("other", 100L, "arquillian-cube/build:other-app-0123456789ab"));
+        when(executor.listImages()).thenReturn(images);
+
+        CubeImageGarbageCollector.collect(executor, 1);
+
+        verify(executor).removeImage("arquillian-cube/build:app-ba9876543210");
+        verify(executor, never()).removeImage("arquillian-cube/build:app-0123456789ab");
+        verify(executor, never()).removeImage("arquillian-cube/build:other-app-0123456789ab");
+    }
+
+    @Test
+    public void shouldRemoveHistoryTagsOfCurrentBuild() {
+        List<Image> images = Arrays.asList(
+            image("app", 100L, "arquillian-cube/build:app", "arquillian-cube/build:app.1000"));
+        when(executor.listImages()).thenReturn(images);
+
+        CubeImageGarbageCollector.collect(executor, 1);
+
+        verify(executor).removeImage("arquillian-cube/build:app.1000");
+        verify(executor, never()).removeImage("arquillian-cube/build:app");
+    }
+
+    @Test
+    public void shouldPruneOnlyDanglingImagesUntaggedByCubeAndSkipImagesInUse() {
+        List<Image> images = Arrays.asList(
+            image("used", 100L, "arquillian-cube/build:app.1000"),
+            image("current", 200L, "arquillian-cube/build:app"));
+        when(executor.listImages()).thenReturn(images);
+        when(executor.getReplacedImageIds()).thenReturn(Collections.singleton("replaced"));
+        List<Image> dangling = Arrays.asList(
+            image("replaced", 10L, "<none>:<none>"),
+            image("used", 100L, "<none>:<none>"),
+            image("foreign", 10L, "<none>:<none>"));
+        when(executor.listDanglingImages()).thenReturn(dangling);
+        doThrow(new ConflictException("image is being used")).when(executor).removeImage("arquillian-cube/build:app.1000");
+
+        CubeImageGarbageCollector.collect(executor, 1);
+
+        verify(executor).removeImage("arquillian-cube/build:app.1000");
+        verify(executor).removeImage("replaced");
+        verify(executor).removeImage("used");
+        verify(executor, never()).removeImage("foreign");
+        verify(executor, never()).removeImage("arquillian-cube/build:app");
+    }
+
+    private Image image(String id, Long created, String... repoTags) {
+        Image image = mock(Image.class);
+        when(image.getId()).thenReturn(id);
+        when(image.getCreated()).thenReturn(created);
+        when(image.getRepoTags()).thenReturn(repoTags);
+        return image;
+    }
+}
@@ -0,0 +1,106 @@
+package org.arquillian.cube.docker.impl.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.arquillian.core.api.threading.ContextSnapshot;
+import org.jboss.arquillian.core.api.threading.ExecutorService;
+import org.junit.After;
+import org.junit.Test;
+
+public class CubeLifecycleExecutorTest {
+
+    private final java.util.concurrent.ExecutorService threads = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotRunMoreTasksThanParallelism() throws Exception {
+        CubeLifecycleExecutor lifecycleExecutor = new CubeLifecycleExecutor(executorService(), 2);
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(lifecycleExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    int current = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), current));
+                    }
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get();
+        }
+
+        assertThat(maxRunning.get() <= 2, is(true));
+        assertThat(lifecycleExecutor.getCompletedCount(), is(10L));
+        assertThat(lifecycleExecutor.getQueueDepth(), is(0));
+        assertThat(lifecycleExecutor.getMaxQueueDepth() > 0, is(true));
+    }
+
+    @Test
+    public void shouldRunOtherTasksWhileSlotIsSuspended() throws Exception {
+        CubeLifecycleExecutor lifecycleExecutor = new CubeLifecycleExecutor(executorService(), 1);
+
+        final CountDownLatch suspended = new CountDownLatch(1);
+        final CountDownLatch otherFinished = new CountDownLatch(1);
+        Future<Boolean> pulling = lifecycleExecutor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                boolean slotSuspended = CubeLifecycleExecutor.suspendSlot();
+                try {
+                    suspended.countDown();
+                    // like an image pull, it only finishes if the only slot is used by the other task meanwhile
+                    return otherFinished.await(5, TimeUnit.SECONDS);
+                } finally {
+                    CubeLifecycleExecutor.resumeSlot();
+                }
+            }
+        });
+        assertThat(suspended.await(5, TimeUnit.SECONDS), is(true));
+        Future<Void> other = lifecycleExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                otherFinished.countDown();
+                return null;
+            }
+        });
+
+        assertThat(pulling.get(), is(true));
+        other.get();
+        assertThat(CubeLifecycleExecutor.suspendSlot(), is(false));
+    }
+
+    private ExecutorService executorService() {
+        return new ExecutorService() {
+            @Override
+            public <T> Future<T> submit(Callable<T> callable) {
+                return threads.submit(callable);
+            }
+
+            @Override
+            public ContextSnapshot createSnapshotContext() {
+                return null;
+            }
+        };
+    }
+}
@@ -1,6 +1,10 @@
 package org.arquillian.cube.docker.impl.client;
 
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -274,4 +278,36 @@ public class CubeSuiteLifecycleControllerTest extends AbstractManagerTestBase {
         assertEventFiredOnOtherThread(StartCube.class);
         assertEventFiredOnOtherThread(PreRunningCube.class);
     }
+
+    @Test
+    public void shouldNotLeaseSharedPreRunningContainers() {
+        Map<String, String> cubeData = new HashMap<String, String>();
+        cubeData.put("connectionMode", ConnectionMode.STARTORCONNECT.name());
+
+        Map<String, String> dockerData = new HashMap<String, String>();
+        dockerData.put("autoStartContainers", "a");
+        dockerData.put("dockerContainers", "a:\n  image: a\n");
+        dockerData.put("shareContainers", "true");
+        dockerData.put("sharedContainersIdleTimeout", "60");
+
+        CubeConfiguration cubeConfiguration = CubeConfiguration.fromMap(cubeData);
+        bind(ApplicationScoped.class, CubeConfiguration.class, cubeConfiguration);
+
+        CubeDockerConfiguration dockerConfiguration = CubeDockerConfiguration.fromMap(dockerData, null);
+        bind(ApplicationScoped.class, CubeDockerConfiguration.class, dockerConfiguration);
+
+        Container container = mock(Container.class);
+        when(container.getNames()).thenReturn(new String[]{"a"});
+        when(executor.listRunningContainers()).thenReturn(Arrays.asList(container));
+        bind(ApplicationScoped.class, DockerClientExecutor.class, executor);
+
+        fire(new BeforeSuite());
+        fire(new AfterSuite());
+
+        // the container was not started by Cube, so it is stopped as usually instead of being left idle
+        assertEventFired(PreRunningCube.class, 1);
+        assertEventFired(StopCube.class, 1);
+        verify(executor, never()).stopContainer("a");
+        verify(executor, never()).removeContainer(eq("a"), anyBoolean());
+    }
 }
@@ -0,0 +1,40 @@
+package org.arquillian.cube.docker.impl.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class DefinitionsCacheTest {
+
+    private static final String PROPERTY = "cube.definitions.cache.test";
+
+    @After
+    public void clearProperty() {
+        System.clearProperty(PROPERTY);
+    }
+
+    @Test
+    public void shouldCollectPlaceholdersNestedInDefaultValues() {
+        Set<String> names = new TreeSet<>();
+        DefinitionsCache.collectPlaceholders("image: ${A:-${B:-${C}}}:${D}\nport: ${E:-8080} $x {F}", names);
+
+        assertThat(names, is((Set<String>) new TreeSet<>(Arrays.asList("A", "B", "C", "D", "E"))));
+    }
+
+    @Test
+    public void shouldChangeKeyWhenPlaceholderOfDefaultValueChanges() {
+        String content = "image: ${CUBE_UNSET_IMAGE:-${" + PROPERTY + "}}";
+        String key = DefinitionsCache.key(Collections.singletonList(content));
+
+        System.setProperty(PROPERTY, "redis");
+        assertThat(DefinitionsCache.key(Collections.singletonList(content)), is(not(key)));
+    }
+}
@@ -0,0 +1,135 @@
+package org.arquillian.cube.docker.impl.client;
+
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.arquillian.cube.ChangeLog;
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.model.DockerCube;
+import org.arquillian.cube.impl.model.LocalCubeRegistry;
+import org.arquillian.cube.spi.Cube;
+import org.arquillian.cube.spi.CubeRegistry;
+import org.arquillian.cube.spi.event.lifecycle.AfterStart;
+import org.arquillian.cube.spi.metadata.CanExecuteProcessInContainer;
+import org.arquillian.cube.spi.metadata.CanSeeChangesOnFilesystem;
+import org.arquillian.cube.spi.metadata.IsShared;
+import org.jboss.arquillian.test.spi.event.suite.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DirtyCubeRecyclerTest {
+
+    private static final String CUBE_ID = "db";
+
+    @Mock
+    private DockerCube cube;
+
+    @Mock
+    private CanSeeChangesOnFilesystem changesOnFilesystem;
+
+    @Mock
+    private CanExecuteProcessInContainer executeProcessInContainer;
+
+    private final List<ChangeLog> changes = new ArrayList<>();
+    private final DirtyCubeRecycler recycler = new DirtyCubeRecycler();
+    private final CubeRegistry cubeRegistry = new LocalCubeRegistry();
+
+    @Before
+    public void setup() {
+        CubeContainer configuration = new CubeContainer();
+        configuration.setRecycleOnChanges(Arrays.asList("/var/lib/data"));
+        when(cube.getId()).thenReturn(CUBE_ID);
+        when(cube.state()).thenReturn(Cube.State.STARTED);
+        when(cube.configuration()).thenReturn(configuration);
+        when(cube.hasMetadata(CanSeeChangesOnFilesystem.class)).thenReturn(true);
+        when(cube.getMetadata(CanSeeChangesOnFilesystem.class)).thenReturn(changesOnFilesystem);
+        when(changesOnFilesystem.changes()).thenReturn(changes);
+        cubeRegistry.addCube(cube);
+
+        when(cube.hasMetadata(CanExecuteProcessInContainer.class)).thenReturn(true);
+        when(cube.getMetadata(CanExecuteProcessInContainer.class)).thenReturn(executeProcessInContainer);
+        stat("4096 2026-10-19 10:00:00.000000000 +0000 /var/lib/data");
+
+        changes.add(new ChangeLog("/var/run/db.pid", 1));
+        changes.add(new ChangeLog("/var/lib/data", 0));
+        recycler.captureBaseline(new AfterStart(CUBE_ID), cubeRegistry);
+    }
+
+    @Test
+    public void shouldKeepCubeWhenConfiguredPathsAreNotChanged() {
+        changes.add(new ChangeLog("/tmp/cache", 1));
+
+        recycler.recycleDirtyCubes(new After(this, testMethod()), cubeRegistry);
+
+        verify(cube, never()).stop();
+        verify(cube, never()).start();
+    }
+
+    @Test
+    public void shouldRecycleCubeWhenConfiguredPathsAreChanged() {
+        changes.add(new ChangeLog("/var/lib/data/table", 1));
+
+        recycler.recycleDirtyCubes(new After(this, testMethod()), cubeRegistry);
+
+        verify(cube).stop();
+        verify(cube).destroy();
+        verify(cube).create();
+        verify(cube).start();
+    }
+
+    @Test
+    public void shouldRecycleCubeWhenFileChangedDuringStartupIsModifiedAgain() {
+        stat("4096 2026-10-19 10:00:05.000000000 +0000 /var/lib/data");
+
+        recycler.recycleDirtyCubes(new After(this, testMethod()), cubeRegistry);
+
+        verify(cube).stop();
+        verify(cube).start();
+    }
+
+    @Test
+    public void shouldNotRecycleSharedCube() {
+        when(cube.hasMetadata(IsShared.class)).thenReturn(true);
+        changes.add(new ChangeLog("/var/lib/data/table", 1));
+
+        recycler.recycleDirtyCubes(new After(this, testMethod()), cubeRegistry);
+
+        verify(cube, never()).stop();
+        verify(cube, never()).destroy();
+    }
+
+    @Test
+    public void shouldNotRecyclePreRunningCube() {
+        when(cube.state()).thenReturn(Cube.State.PRE_RUNNING);
+        changes.add(new ChangeLog("/var/lib/data/table", 1));
+
+        recycler.recycleDirtyCubes(new After(this, testMethod()), cubeRegistry);
+
+        verify(cube, never()).stop();
+        verify(cube, never()).destroy();
+    }
+
+    private void stat(String output) {
+        when(executeProcessInContainer.exec(anyVararg()))
+            .thenReturn(new CanExecuteProcessInContainer.ExecResult(output, false, 0));
+    }
+
+    private Method testMethod() {
+        try {
+            return getClass().getMethod("shouldKeepCubeWhenConfiguredPathsAreNotChanged");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
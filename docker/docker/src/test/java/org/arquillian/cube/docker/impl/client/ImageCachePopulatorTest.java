@@ -0,0 +1,66 @@
+package org.arquillian.cube.docker.impl.client;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.arquillian.cube.docker.impl.client.config.BuildImage;
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.client.config.Image;
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImageCachePopulatorTest {
+
+    @Mock
+    private DockerClientExecutor executor;
+
+    @Test
+    public void shouldSaveImagesThatAreNotCached() {
+        when(executor.isImageCached("postgres:9.5")).thenReturn(false);
+        when(executor.imageExists("postgres:9.5")).thenReturn(true);
+        when(executor.isImageCached("redis:3")).thenReturn(true);
+
+        ImageCachePopulator.populate(executor, Arrays.asList(
+            container("postgres:9.5"), container("postgres:9.5"), container("redis:3")));
+
+        verify(executor, never()).pullImage(anyString());
+        verify(executor, times(1)).saveImageToCache("postgres:9.5");
+        verify(executor, never()).saveImageToCache("redis:3");
+    }
+
+    @Test
+    public void shouldPullImagesThatAreNotOnTheDockerHost() {
+        when(executor.isImageCached("postgres:9.5")).thenReturn(false);
+        when(executor.imageExists("postgres:9.5")).thenReturn(false);
+
+        ImageCachePopulator.populate(executor, Arrays.asList(container("postgres:9.5")));
+
+        verify(executor).pullImage("postgres:9.5");
+        verify(executor).saveImageToCache("postgres:9.5");
+    }
+
+    @Test
+    public void shouldSkipBuiltImages() {
+        CubeContainer built = container("app:latest");
+        built.setBuildImage(new BuildImage(".", null, true, true));
+
+        ImageCachePopulator.populate(executor, Arrays.asList(built));
+
+        verify(executor, never()).saveImageToCache(anyString());
+    }
+
+    private CubeContainer container(String image) {
+        CubeContainer container = new CubeContainer();
+        container.setImage(Image.valueOf(image));
+        return container;
+    }
+}
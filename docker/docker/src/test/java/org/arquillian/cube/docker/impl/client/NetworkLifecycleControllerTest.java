@@ -9,6 +9,7 @@ import org.jboss.arquillian.core.api.annotation.ApplicationScoped;
 import org.jboss.arquillian.core.test.AbstractManagerTestBase;
 import org.jboss.arquillian.test.spi.event.suite.AfterSuite;
 import org.jboss.arquillian.test.spi.event.suite.BeforeSuite;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Matchers;
@@ -104,4 +105,81 @@ public class NetworkLifecycleControllerTest extends AbstractManagerTestBase {
         fire(new AfterSuite());
         Mockito.verify(executor).removeNetwork(Matchers.eq("mynetwork"));
     }
+
+    @Test
+    public void shouldReuseMatchingNetworkAndKeepIt() {
+
+        DockerClientExecutor executor = Mockito.mock(DockerClientExecutor.class);
+        com.github.dockerjava.api.model.Network existing = Mockito.mock(com.github.dockerjava.api.model.Network.class);
+        Mockito.when(existing.getId()).thenReturn("1234");
+        Mockito.when(existing.getDriver()).thenReturn("bridge");
+        Mockito.when(executor.findNetwork("mynetwork")).thenReturn(existing);
+
+        String config =
+                "networks:\n" +
+                        "  mynetwork:\n " +
+                        "    driver: bridge\n" +
+                        "tomcat6:\n" +
+                        "  image: tutum/tomcat:6.0\n";
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("dockerContainers", config);
+        parameters.put("reuseNetworks", "true");
+
+        CubeConfiguration cubeConfiguration = CubeConfiguration.fromMap(new HashMap<String, String>());
+        bind(ApplicationScoped.class, CubeConfiguration.class, cubeConfiguration);
+
+        CubeDockerConfiguration dockerConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+        bind(ApplicationScoped.class, CubeDockerConfiguration.class, dockerConfiguration);
+
+        final LocalDockerNetworkRegistry localDockerNetworkRegistry = new LocalDockerNetworkRegistry();
+        bind(ApplicationScoped.class, NetworkRegistry.class, localDockerNetworkRegistry);
+        bind(ApplicationScoped.class, DockerClientExecutor.class, executor);
+
+        fire(new BeforeSuite());
+        fire(new AfterSuite());
+
+        Mockito.verify(executor, Mockito.never()).createNetwork(Matchers.anyString(), Matchers.any(Network.class));
+        Mockito.verify(executor, Mockito.never()).removeNetwork(Matchers.anyString());
+        Assert.assertTrue(localDockerNetworkRegistry.getNetworkIds().contains("1234"));
+    }
+
+    @Test
+    public void shouldNotRemoveNetworkWithSameNameAndOtherConfiguration() {
+
+        DockerClientExecutor executor = Mockito.mock(DockerClientExecutor.class);
+        com.github.dockerjava.api.model.Network existing = Mockito.mock(com.github.dockerjava.api.model.Network.class);
+        Mockito.when(existing.getId()).thenReturn("1234");
+        Mockito.when(existing.getDriver()).thenReturn("overlay");
+        Mockito.when(executor.findNetwork("mynetwork")).thenReturn(existing);
+
+        String config =
+                "networks:\n" +
+                        "  mynetwork:\n " +
+                        "    driver: bridge\n" +
+                        "tomcat6:\n" +
+                        "  image: tutum/tomcat:6.0\n";
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("dockerContainers", config);
+        parameters.put("reuseNetworks", "true");
+
+        CubeConfiguration cubeConfiguration = CubeConfiguration.fromMap(new HashMap<String, String>());
+        bind(ApplicationScoped.class, CubeConfiguration.class, cubeConfiguration);
+
+        CubeDockerConfiguration dockerConfiguration = CubeDockerConfiguration.fromMap(parameters, null);
+        bind(ApplicationScoped.class, CubeDockerConfiguration.class, dockerConfiguration);
+
+        bind(ApplicationScoped.class, NetworkRegistry.class, new LocalDockerNetworkRegistry());
+        bind(ApplicationScoped.class, DockerClientExecutor.class, executor);
+
+        try {
+            fire(new BeforeSuite());
+            Assert.fail("Network with the same name and another configuration should not be reused");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause().getMessage().contains("mynetwork"));
+        }
+        Mockito.verify(executor, Mockito.never()).removeNetwork(Matchers.anyString());
+        Mockito.verify(executor, Mockito.never()).createNetwork(Matchers.anyString(), Matchers.any(Network.class));
+    }
 }
@@ -0,0 +1,157 @@
+package org.arquillian.cube.docker.impl.client;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.util.HostResourceLedger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceAdmissionControllerTest {
+
+    private static final long GB = 1024L * 1024L * 1024L;
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File ledgerDirectory;
+    private HostResourceLedger ledger;
+    private HostResourceLedger otherForkLedger;
+
+    @Before
+    public void setup() throws IOException {
+        ledgerDirectory = folder.newFolder();
+        ledger = new HostResourceLedger(ledgerDirectory);
+        otherForkLedger = new HostResourceLedger(ledgerDirectory);
+    }
+
+    @After
+    public void releaseLedgers() {
+        ledger.releaseAll();
+        otherForkLedger.releaseAll();
+    }
+
+    @Test
+    public void shouldWaitUntilOtherForkReleasesMemory() throws Exception {
+        final ResourceAdmissionController otherFork = new ResourceAdmissionController(otherForkLedger, 4 * GB, 8, TIMEOUT);
+        otherFork.admit("elasticsearch", container(3 * GB, null, null));
+        final ResourceAdmissionController admission = new ResourceAdmissionController(ledger, 4 * GB, 8, TIMEOUT);
+
+        final CountDownLatch admitted = new CountDownLatch(1);
+        Thread wildfly = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    admission.admit("wildfly", container(2 * GB, null, null));
+                    admitted.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        wildfly.start();
+
+        assertThat(admitted.await(200, TimeUnit.MILLISECONDS), is(false));
+        otherFork.release("elasticsearch");
+        assertThat(admitted.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(admission.getUsedMemory(), is(2 * GB));
+    }
+
+    @Test
+    public void shouldFailFastWhenContainersOfSameSuiteUseTheResources() throws Exception {
+        ResourceAdmissionController admission = new ResourceAdmissionController(ledger, 4 * GB, 8, TIMEOUT);
+        admission.admit("elasticsearch", container(3 * GB, null, null));
+
+        long start = System.currentTimeMillis();
+        try {
+            admission.admit("wildfly", container(2 * GB, 1024, null));
+            fail("Container not fitting next to the containers of the suite should not be admitted");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("wildfly"));
+            assertThat(e.getMessage(), containsString("memory=" + 2 * GB));
+            assertThat(e.getMessage(), containsString("cpus=1.0"));
+        }
+        assertThat(System.currentTimeMillis() - start, lessThan(TIMEOUT));
+        assertThat(admission.getUsedMemory(), is(3 * GB));
+    }
+
+    @Test
+    public void shouldCountCpusOfCpuSetAndShares() throws Exception {
+        ResourceAdmissionController admission = new ResourceAdmissionController(ledger, 0, 8, TIMEOUT);
+        admission.admit("db", container(null, null, "0-3,6"));
+        admission.admit("app", container(null, 2048, null));
+
+        assertThat(admission.getUsedCpus(), is(7.0));
+    }
+
+    @Test
+    public void shouldCountReusedContainers() throws Exception {
+        ResourceAdmissionController otherFork = new ResourceAdmissionController(otherForkLedger, 4 * GB, 8, 100);
+        otherFork.hold("elasticsearch", container(3 * GB, null, null));
+        ResourceAdmissionController admission = new ResourceAdmissionController(ledger, 4 * GB, 8, 100);
+
+        try {
+            admission.admit("wildfly", container(2 * GB, null, null));
+            fail("Container not fitting next to reused containers should not be admitted");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("wildfly"));
+        }
+    }
+
+    @Test
+    public void shouldRejectContainerBiggerThanHost() throws Exception {
+        ResourceAdmissionController admission = new ResourceAdmissionController(ledger, GB, 1, TIMEOUT);
+        try {
+            admission.admit("oracle", container(4 * GB, null, null));
+            fail("Container bigger than the host should be rejected");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("oracle"));
+        }
+        assertThat(admission.getUsedMemory(), is(0L));
+    }
+
+    @Test
+    public void shouldFailWhenOtherForksDoNotReleaseResourcesBeforeTimeout() throws Exception {
+        ResourceAdmissionController otherFork = new ResourceAdmissionController(otherForkLedger, 4 * GB, 8, TIMEOUT);
+        otherFork.admit("elasticsearch", container(3 * GB, null, null));
+        ResourceAdmissionController admission = new ResourceAdmissionController(ledger, 4 * GB, 8, 100);
+        try {
+            admission.admit("wildfly", container(2 * GB, 1024, null));
+            fail("Container not fitting before the timeout should not be admitted");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("wildfly"));
+            assertThat(e.getMessage(), containsString("memory=" + 2 * GB));
+        }
+        assertThat(admission.getUsedMemory(), is(0L));
+    }
+
+    @Test
+    public void shouldAlwaysAdmitContainersWithoutLimits() throws Exception {
+        ResourceAdmissionController admission = new ResourceAdmissionController(ledger, GB, 1, TIMEOUT);
+        admission.admit("oracle", container(GB, null, null));
+        admission.admit("redis", container(null, null, null));
+
+        assertThat(admission.getUsedMemory(), is(GB));
+    }
+
+    private CubeContainer container(Long memory, Integer cpuShares, String cpuSet) {
+        CubeContainer container = new CubeContainer();
+        container.setMemoryLimit(memory);
+        container.setCpuShares(cpuShares);
+        container.setCpuSet(cpuSet);
+        return container;
+    }
+}
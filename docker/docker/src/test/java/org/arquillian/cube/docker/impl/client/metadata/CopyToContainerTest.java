@@ -0,0 +1,159 @@
+package org.arquillian.cube.docker.impl.client.metadata;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.impl.util.IOUtil;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CopyToContainerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private DockerClientExecutor executor;
+
+    @Test
+    public void shouldStreamArchiveAsTar() throws IOException {
+        File data = temporaryFolder.newFile("data.sql");
+        Files.write(data.toPath(), "insert".getBytes(StandardCharsets.UTF_8));
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "fixtures.jar")
+            .add(new StringAsset("key=value"), "config/app.properties")
+            .add(new FileAsset(data), "sql/data.sql");
+
+        final File copied = temporaryFolder.newFolder();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                IOUtil.untar((InputStream) invocation.getArguments()[1], copied);
+                return null;
+            }
+        }).when(executor).copyStreamToContainer(eq("db"), any(InputStream.class), eq("/fixtures"));
+
+        new CopyToContainer("db", executor).copyArchive(archive, "/fixtures");
+
+        assertThat(new String(Files.readAllBytes(new File(copied, "config/app.properties").toPath()), StandardCharsets.UTF_8), is("key=value"));
+        assertThat(new String(Files.readAllBytes(new File(copied, "sql/data.sql").toPath()), StandardCharsets.UTF_8), is("insert"));
+    }
+
+    @Test
+    public void shouldStreamLargeNestedArchives() throws IOException {
+        byte[] library = new byte[3 * 1024 * 1024];
+        for (int i = 0; i < library.length; i++) {
+            library[i] = (byte) i;
+        }
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "app.jar")
+            .add(new ByteArrayAsset(library), "lib/library.bin")
+            .add(new StringAsset("key=value"), "config/app.properties");
+
+        final File copied = temporaryFolder.newFolder();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                IOUtil.untar((InputStream) invocation.getArguments()[1], copied);
+                return null;
+            }
+        }).when(executor).copyStreamToContainer(eq("app"), any(InputStream.class), eq("/deployments"));
+
+        new CopyToContainer("app", executor).copyArchive(archive, "/deployments");
+
+        assertThat(Arrays.equals(Files.readAllBytes(new File(copied, "lib/library.bin").toPath()), library), is(true));
+        assertThat(new String(Files.readAllBytes(new File(copied, "config/app.properties").toPath()), StandardCharsets.UTF_8), is("key=value"));
+    }
+
+    @Test
+    public void shouldFailCopyWhenAssetCannotBeRead() {
+        final IllegalArgumentException unreadable = new IllegalArgumentException("unreadable");
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "broken.jar")
+            .add(new Asset() {
+                @Override
+                public InputStream openStream() {
+                    throw unreadable;
+                }
+            }, "broken.txt");
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                try {
+                    IOUtils.toByteArray((InputStream) invocation.getArguments()[1]);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            }
+        }).when(executor).copyStreamToContainer(eq("app"), any(InputStream.class), eq("/deployments"));
+
+        try {
+            new CopyToContainer("app", executor).copyArchive(archive, "/deployments");
+            fail("Copy of an archive that cannot be read should fail");
+        } catch (IllegalStateException e) {
+            assertThat(e.getCause(), is((Throwable) unreadable));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldFailCopyWhenAssetFailsWhileDockerClientIsWaiting() {
+        final IllegalArgumentException unreadable = new IllegalArgumentException("unreadable");
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "slow.jar")
+            .add(new Asset() {
+                @Override
+                public InputStream openStream() {
+                    // gives docker client time to wait for the first bytes
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw unreadable;
+                }
+            }, "slow.txt");
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                try {
+                    IOUtils.toByteArray((InputStream) invocation.getArguments()[1]);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            }
+        }).when(executor).copyStreamToContainer(eq("app"), any(InputStream.class), eq("/deployments"));
+
+        try {
+            new CopyToContainer("app", executor).copyArchive(archive, "/deployments");
+            fail("Copy of an archive that cannot be read should fail");
+        } catch (IllegalStateException e) {
+            assertThat(e.getCause(), is((Throwable) unreadable));
+        }
+    }
+}
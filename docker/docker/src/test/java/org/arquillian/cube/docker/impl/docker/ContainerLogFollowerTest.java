@@ -0,0 +1,133 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.arquillian.cube.LogQuery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+
+public class ContainerLogFollowerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldSplitFramesIntoTimestampedLines() throws IOException {
+        ContainerLogFollower follower = new ContainerLogFollower("tomcat", 10, null, 0, 0);
+
+        follower.onFrame(frame(StreamType.STDOUT, "2016-05-01T10:00:00.100000000Z Starting"));
+        follower.onFrame(frame(StreamType.STDOUT, " server\n2016-05-01T10:00:01.5Z Started\n"));
+        follower.onFrame(frame(StreamType.STDERR, "2016-05-01T10:00:02Z Warning\n"));
+
+        List<ContainerLogFollower.LogLine> lines = follower.getLines();
+        assertThat(lines.size(), is(3));
+        assertThat(lines.get(0).getText(), is("Starting server"));
+        assertThat(lines.get(1).getTimestamp(), is(1462096801500L));
+        assertThat(lines.get(2).isStdErr(), is(true));
+
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        assertThat(follower.copyTo(true, false, false, 1, stdout), is(true));
+        assertThat(new String(stdout.toByteArray(), StandardCharsets.UTF_8), is("Started\n"));
+    }
+
+    @Test
+    public void shouldKeepOnlyLastLinesAndRotateFiles() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ContainerLogFollower follower = new ContainerLogFollower("tomcat", 2, directory, 10, 1);
+
+        follower.onFrame(frame(StreamType.STDOUT, "line-1\nline-2\nline-3\n"));
+        follower.completed();
+
+        assertThat(follower.getLines().size(), is(2));
+        assertThat(follower.getDroppedLines(), is(1L));
+        assertThat(follower.copyTo(true, true, false, -1, new ByteArrayOutputStream()), is(false));
+        assertThat(follower.getLines().get(1).getSequence(), is(2L));
+
+        assertThat(new String(Files.readAllBytes(follower.logFile(0).toPath()), StandardCharsets.UTF_8), is("line-3\n"));
+        assertThat(new String(Files.readAllBytes(follower.logFile(1).toPath()), StandardCharsets.UTF_8), is("line-2\n"));
+        assertThat(follower.logFile(2).exists(), is(false));
+    }
+
+    @Test
+    public void shouldQueryAndWaitForLines() throws Exception {
+        final ContainerLogFollower follower = new ContainerLogFollower("tomcat", 10, null, 0, 0);
+        LogContainerCmd logContainerCmd = mock(LogContainerCmd.class);
+        when(logContainerCmd.exec(any(ResultCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getArguments()[0];
+            }
+        });
+        follower.follow(logContainerCmd);
+        follower.onFrame(frame(StreamType.STDOUT, "2016-05-01T10:00:00Z Deploying app.war\n2016-05-01T10:00:05Z Ready\n"));
+
+        assertThat(follower.getLines(LogQuery.containing("app.war")).size(), is(1));
+        assertThat(follower.getLines(LogQuery.all().since(1462096801000L)).get(0).getText(), is("Ready"));
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                follower.onFrame(frame(StreamType.STDOUT, "2016-05-01T10:00:09Z Deployed app.war in 9s\n"));
+            }
+        });
+        writer.start();
+        ContainerLogFollower.LogLine line = follower.waitForLine(LogQuery.matching("Deployed .*\\.war"), 10000);
+        writer.join();
+
+        assertThat(line.getText(), is("Deployed app.war in 9s"));
+        assertThat(follower.waitForLine(LogQuery.containing("Undeployed"), 10), is((ContainerLogFollower.LogLine) null));
+    }
+
+    @Test
+    public void shouldDecodeCharactersSplitBetweenFrames() {
+        ContainerLogFollower follower = new ContainerLogFollower("tomcat", 10, null, 0, 0);
+        byte[] content = "Démarré\n".getBytes(StandardCharsets.UTF_8);
+
+        follower.onFrame(new Frame(StreamType.STDOUT, Arrays.copyOfRange(content, 0, 2)));
+        follower.onFrame(new Frame(StreamType.STDOUT, Arrays.copyOfRange(content, 2, content.length)));
+
+        assertThat(follower.getLines().get(0).getText(), is("Démarré"));
+    }
+
+    @Test
+    public void shouldWaitForLinesFromGivenSequence() throws Exception {
+        final ContainerLogFollower follower = new ContainerLogFollower("tomcat", 10, null, 0, 0);
+        LogContainerCmd logContainerCmd = mock(LogContainerCmd.class);
+        when(logContainerCmd.exec(any(ResultCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getArguments()[0];
+            }
+        });
+        follower.follow(logContainerCmd);
+        follower.onFrame(frame(StreamType.STDOUT, "2016-05-01T10:00:00Z Ready\n2016-05-01T10:00:05Z Stopping\n"));
+
+        assertThat(follower.waitForLine(LogQuery.containing("Ready"), 2, 10), is((ContainerLogFollower.LogLine) null));
+        follower.onFrame(frame(StreamType.STDOUT, "2016-05-01T10:00:09Z Ready\n"));
+        assertThat(follower.waitForLine(LogQuery.containing("Ready"), 2, 10).getSequence(), is(2L));
+    }
+
+    private static Frame frame(StreamType streamType, String content) {
+        return new Frame(streamType, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.arquillian.cube.spi.metadata.CanSampleStatistics.Sample;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.model.Statistics;
+
+public class ContainerStatsSamplerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void shouldComputeUsageFromConsecutiveStatistics() throws IOException {
+        ContainerStatsSampler sampler = new ContainerStatsSampler("tomcat", 10);
+
+        sampler.onStatistics(statistics(1000, 10000, 100), 1);
+        sampler.onStatistics(statistics(1500, 12000, 200), 2);
+
+        List<Sample> samples = sampler.getSamples();
+        assertThat(samples.size(), is(1));
+        Sample sample = samples.get(0);
+        // 500 of 2000 system nanoseconds on 2 cpus
+        assertThat(sample.getCpuPercent(), is(50.0));
+        assertThat(sample.getMemoryUsage(), is(200L));
+        assertThat(sample.getMemoryLimit(), is(1024L));
+        assertThat(sample.getBlockRead(), is(30L));
+        assertThat(sample.getBlockWrite(), is(5L));
+        assertThat(sample.getNetworkReceived(), is(300L));
+        assertThat(sample.getNetworkSent(), is(70L));
+    }
+
+    @Test
+    public void shouldMergeSamplesWhenCapacityIsReached() throws IOException {
+        ContainerStatsSampler sampler = new ContainerStatsSampler("tomcat", 4);
+
+        sampler.onStatistics(statistics(0, 0, 0), 0);
+        long cpu = 0;
+        for (int i = 1; i <= 9; i++) {
+            // odd samples use a whole cpu, even samples none
+            cpu += i % 2 == 1 ? 1000 : 0;
+            sampler.onStatistics(statistics(cpu, i * 2000, i * 100), i);
+        }
+
+        List<Sample> samples = sampler.getSamples();
+        // merged by pairs after 4 statistics, then by four after 8, the last one is still pending
+        assertThat(samples.size(), is(3));
+        assertThat(samples.get(0).getTimestamp(), is(4L));
+        assertThat(samples.get(0).getCpuPercent(), is(50.0));
+        assertThat(samples.get(0).getMemoryUsage(), is(400L));
+        assertThat(samples.get(1).getTimestamp(), is(8L));
+        assertThat(samples.get(1).getMemoryUsage(), is(800L));
+        assertThat(samples.get(2).getCpuPercent(), is(100.0));
+    }
+
+    private static Statistics statistics(long totalUsage, long systemUsage, long memoryUsage) throws IOException {
+        String json = "{"
+            + "\"cpu_stats\":{\"cpu_usage\":{\"total_usage\":" + totalUsage + ",\"percpu_usage\":[0,0]},"
+            + "\"system_cpu_usage\":" + systemUsage + "},"
+            + "\"memory_stats\":{\"usage\":" + memoryUsage + ",\"limit\":1024},"
+            + "\"blkio_stats\":{\"io_service_bytes_recursive\":["
+            + "{\"major\":8,\"minor\":0,\"op\":\"Read\",\"value\":30},"
+            + "{\"major\":8,\"minor\":0,\"op\":\"Write\",\"value\":5},"
+            + "{\"major\":8,\"minor\":0,\"op\":\"Total\",\"value\":35}]},"
+            + "\"networks\":{\"eth0\":{\"rx_bytes\":100,\"tx_bytes\":20},\"eth1\":{\"rx_bytes\":200,\"tx_bytes\":50}}"
+            + "}";
+        return MAPPER.readValue(json, Statistics.class);
+    }
+}
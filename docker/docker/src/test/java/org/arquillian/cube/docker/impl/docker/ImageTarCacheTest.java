@@ -0,0 +1,64 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImageTarCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldStoreAndOpenVerifiedTar() throws IOException {
+        ImageTarCache cache = new ImageTarCache(folder.newFolder());
+        assertThat(cache.contains("postgres:9.5"), is(false));
+
+        cache.store("postgres:9.5", new ByteArrayInputStream("layers".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(cache.contains("postgres:9.5"), is(true));
+        assertThat(cache.contains("postgres"), is(false));
+        assertThat(read(cache.open("postgres:9.5")), is("layers"));
+    }
+
+    @Test
+    public void shouldUseLatestTagWhenImageHasNoTag() throws IOException {
+        ImageTarCache cache = new ImageTarCache(folder.newFolder());
+
+        cache.store("localhost:5000/lordofthejars/redis", new ByteArrayInputStream("redis".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(cache.contains("localhost:5000/lordofthejars/redis:latest"), is(true));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectTarNotMatchingChecksum() throws IOException {
+        ImageTarCache cache = new ImageTarCache(folder.newFolder());
+        cache.store("postgres:9.5", new ByteArrayInputStream("layers".getBytes(StandardCharsets.UTF_8)));
+
+        Files.write(cache.tarOf("postgres:9.5").toPath(), "corrupted".getBytes(StandardCharsets.UTF_8));
+
+        cache.open("postgres:9.5").close();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.arquillian.cube.docker.impl.docker;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Volume;
+import com.github.dockerjava.core.command.CreateContainerCmdImpl;
+
+public class TmpfsHostConfigTest {
+
+    @Test
+    public void shouldSerializeTmpfsAndShmSizeOfCreateContainerCommand() throws Exception {
+        CreateContainerCmd createContainerCmd = new CreateContainerCmdImpl(mock(CreateContainerCmd.Exec.class), "postgres");
+        TmpfsHostConfig.install(createContainerCmd)
+                .withTmpfs(Collections.singletonMap("/var/lib/postgresql/data", "rw,size=64m"))
+                .withShmSize(256L * 1024 * 1024);
+        createContainerCmd.withBinds(new Bind("/tmp/sql", new Volume("/docker-entrypoint-initdb.d")));
+
+        String json = new ObjectMapper().writeValueAsString(createContainerCmd);
+        JsonNode hostConfig = new ObjectMapper().readTree(json).get("HostConfig");
+
+        assertThat(json.indexOf("\"ShmSize\""), is(json.lastIndexOf("\"ShmSize\"")));
+        assertThat(hostConfig.get("Tmpfs").get("/var/lib/postgresql/data").asText(), is("rw,size=64m"));
+        assertThat(hostConfig.get("ShmSize").isNumber(), is(true));
+        assertThat(hostConfig.get("ShmSize").asLong(), is(256L * 1024 * 1024));
+        assertThat(hostConfig.get("Binds").get(0).asText(), is("/tmp/sql:/docker-entrypoint-initdb.d:rw"));
+    }
+}
@@ -49,6 +49,20 @@ public class DockerComposeConverterTest {
     assertThat(env, containsInAnyOrder("RACK_ENV=development"));
   }
 
+  @Test
+  public void shouldTransformTmpfsAndShmSize() throws URISyntaxException, IOException {
+    URI tmpfsDockerCompose = DockerComposeConverterTest.class.getResource("/tmpfs-docker-compose.yml").toURI();
+    DockerComposeConverter dockerComposeConverter = DockerComposeConverter.create(Paths.get(tmpfsDockerCompose));
+
+    DockerCompositions convert = dockerComposeConverter.convert();
+    CubeContainer db = convert.get("db");
+    assertThat(db.getTmpfs(), containsInAnyOrder("/var/lib/postgresql/data"));
+    assertThat(db.getShmSize(), is(256L * 1024 * 1024));
+
+    CubeContainer cache = convert.get("cache");
+    assertThat(cache.getTmpfs(), containsInAnyOrder("/data:rw,size=64m", "/tmp"));
+  }
+
   @Test
   public void shouldReadEnvironmentVarsFromFile() throws URISyntaxException, IOException {
     URI readEnvsDockerCompose = DockerComposeConverterTest.class.getResource("/read-envs-docker-compose.yml").toURI();
@@ -1,11 +1,38 @@
 package org.arquillian.cube.docker.impl.model;
 
 import static org.mockito.Matchers.anyString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.cube.docker.impl.client.config.Await;
 import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.docker.ContainerLogFollower;
 import org.arquillian.cube.docker.impl.docker.DockerClientExecutor;
+import org.arquillian.cube.spi.Cube;
+import org.arquillian.cube.spi.CubeControlException;
 import org.arquillian.cube.spi.event.lifecycle.AfterCreate;
 import org.arquillian.cube.spi.event.lifecycle.AfterDestroy;
 import org.arquillian.cube.spi.event.lifecycle.AfterStart;
@@ -14,6 +41,8 @@ import org.arquillian.cube.spi.event.lifecycle.BeforeCreate;
 import org.arquillian.cube.spi.event.lifecycle.BeforeDestroy;
 import org.arquillian.cube.spi.event.lifecycle.BeforeStart;
 import org.arquillian.cube.spi.event.lifecycle.BeforeStop;
+import org.arquillian.cube.spi.metadata.CanRestart;
+import org.arquillian.cube.spi.metadata.CanSnapshot;
 import org.jboss.arquillian.core.api.Injector;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
@@ -21,15 +50,24 @@ import org.jboss.arquillian.core.test.AbstractManagerTestBase;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Matchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.InspectContainerCmd;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.command.InspectExecResponse;
+import com.github.dockerjava.api.command.LogContainerCmd;
 import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Ports;
+import com.github.dockerjava.api.model.StreamType;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DockerCubeTest extends AbstractManagerTestBase {
@@ -113,4 +151,193 @@ public class DockerCubeTest extends AbstractManagerTestBase {
         assertEventFired(BeforeDestroy.class, 1);
         assertEventFired(AfterDestroy.class, 1);
     }
+
+    @Test
+    public void shouldRestartWithoutFiringLifecycleEvents() {
+        cube.create();
+        cube.start();
+
+        cube.getMetadata(CanRestart.class).restart();
+
+        verify(executor).restartContainer(ID);
+        verify(executor, times(1)).startContainer(eq(ID), any(CubeContainer.class));
+        assertEventFired(BeforeStop.class, 0);
+        assertEventFired(BeforeStart.class, 1);
+        assertThat(cube.state(), is(Cube.State.STARTED));
+    }
+
+    @Test
+    public void shouldRestoreSnapshotInPlace() {
+        when(executor.copyArchiveFromContainer(ID, "/var/lib/data/"))
+            .thenReturn(new ByteArrayInputStream("data".getBytes()));
+        InspectExecResponse cleared = mock(InspectExecResponse.class);
+        when(cleared.getExitCode()).thenReturn(0);
+        when(executor.execStartVerbose(eq(ID), Matchers.<String>anyVararg()))
+            .thenReturn(new DockerClientExecutor.ExecInspection("", cleared));
+        cube.create();
+        cube.start();
+
+        CanSnapshot snapshot = cube.getMetadata(CanSnapshot.class);
+        snapshot.snapshot("/var/lib/data/");
+        snapshot.restore();
+
+        InOrder inOrder = inOrder(executor);
+        inOrder.verify(executor).pauseContainer(ID);
+        inOrder.verify(executor).copyArchiveFromContainer(ID, "/var/lib/data/");
+        inOrder.verify(executor).unpauseContainer(ID);
+        inOrder.verify(executor).execStartVerbose(eq(ID), eq("sh"), eq("-c"), anyString(), eq("/var/lib/data"));
+        inOrder.verify(executor).pauseContainer(ID);
+        inOrder.verify(executor).copyStreamToContainer(eq(ID), any(InputStream.class), eq("/var/lib"));
+        inOrder.verify(executor).unpauseContainer(ID);
+        verify(executor, never()).stopContainer(ID);
+        verify(executor, times(1)).createContainer(eq(ID), any(CubeContainer.class));
+        verify(executor, times(1)).startContainer(eq(ID), any(CubeContainer.class));
+        assertThat(cube.state(), is(Cube.State.STARTED));
+
+        cube.stop();
+        cube.destroy();
+        assertThat(snapshot.hasSnapshot(), is(false));
+    }
+
+    @Test
+    public void shouldCommitWarmSnapshotOnlyWhenItDoesNotExist() {
+        CubeContainer cubeContainer = new CubeContainer();
+        cubeContainer.setRemoveVolumes(false);
+        cubeContainer.setWarmSnapshot(true);
+        String warmImage = "arquillian-cube/warm:1234";
+        when(executor.warmSnapshotImage(cubeContainer)).thenReturn(warmImage);
+        DockerCube warmCube = injectorInst.get().inject(new DockerCube(ID, cubeContainer, executor));
+
+        when(executor.imageExists(warmImage)).thenReturn(false);
+        warmCube.create();
+        warmCube.start();
+        verify(executor).commitContainer(ID, warmImage);
+
+        warmCube.stop();
+        warmCube.destroy();
+
+        when(executor.imageExists(warmImage)).thenReturn(true);
+        warmCube.create();
+        warmCube.start();
+        verify(executor, times(1)).commitContainer(ID, warmImage);
+    }
+
+    @Test
+    public void shouldStartOnlyOnceWhenStartedConcurrently() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    cube.create();
+                    cube.start();
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        executorService.shutdown();
+
+        verify(executor, times(1)).createContainer(eq(ID), any(CubeContainer.class));
+        verify(executor, times(1)).startContainer(eq(ID), any(CubeContainer.class));
+        assertEventFired(AfterStart.class, 1);
+        assertThat(cube.state(), is(Cube.State.STARTED));
+    }
+
+    @Test
+    public void shouldStopWhileStartIsAwaitingTheContainer() throws Exception {
+        CubeContainer cubeContainer = new CubeContainer();
+        cubeContainer.setRemoveVolumes(false);
+        Await await = new Await();
+        await.setStrategy("native");
+        cubeContainer.setAwait(await);
+        final DockerCube awaitedCube = injectorInst.get().inject(new DockerCube(ID, cubeContainer, executor));
+
+        final CountDownLatch awaiting = new CountDownLatch(1);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        when(executor.waitContainer(ID)).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                awaiting.countDown();
+                stopped.await(5, TimeUnit.SECONDS);
+                return 0;
+            }
+        });
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<Void> start = executorService.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                awaitedCube.create();
+                awaitedCube.start();
+                return null;
+            }
+        });
+        assertThat(awaiting.await(5, TimeUnit.SECONDS), is(true));
+
+        // stop is not blocked by the await in flight
+        awaitedCube.stop();
+        stopped.countDown();
+
+        try {
+            start.get(5, TimeUnit.SECONDS);
+            fail("Start of a container stopped while awaited should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof CubeControlException, is(true));
+        }
+        executorService.shutdown();
+
+        assertThat(awaitedCube.state(), is(Cube.State.STOPPED));
+        assertEventFired(AfterStart.class, 0);
+        awaitedCube.destroy();
+        assertThat(awaitedCube.state(), is(Cube.State.DESTROYED));
+    }
+
+    @Test
+    public void shouldNotMatchLogOfPreviousBootWhenRestarted() {
+        CubeContainer cubeContainer = new CubeContainer();
+        Await await = new Await();
+        await.setStrategy("log");
+        await.setMatch("Started");
+        await.setIterations(1);
+        await.setSleepPollingTime(10);
+        cubeContainer.setAwait(await);
+        final DockerCube awaitedCube = injectorInst.get().inject(new DockerCube(ID, cubeContainer, executor));
+
+        final ContainerLogFollower follower = new ContainerLogFollower(ID, 10, null, 0, 0);
+        final LogContainerCmd logContainerCmd = mock(LogContainerCmd.class);
+        when(logContainerCmd.exec(any(ResultCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                final ResultCallback<Frame> callback = (ResultCallback<Frame>) invocation.getArguments()[0];
+                if (follower.getLines().isEmpty()) {
+                    // only the first boot logs the awaited line
+                    callback.onNext(new Frame(StreamType.STDOUT,
+                            "2016-05-01T10:00:00Z Started\n".getBytes(StandardCharsets.UTF_8)));
+                }
+                return callback;
+            }
+        });
+        when(executor.getLogFollower(ID)).thenReturn(follower);
+        when(executor.followLog(ID)).thenAnswer(new Answer<ContainerLogFollower>() {
+            @Override
+            public ContainerLogFollower answer(InvocationOnMock invocation) throws Throwable {
+                follower.follow(logContainerCmd);
+                return follower;
+            }
+        });
+
+        awaitedCube.create();
+        awaitedCube.start();
+        try {
+            awaitedCube.restart();
+            fail("Restart should wait for a line logged by the new boot");
+        } catch (CubeControlException e) {
+            assertThat(awaitedCube.state(), is(Cube.State.START_FAILED));
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package org.arquillian.cube.docker.impl.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.arquillian.cube.docker.impl.client.config.CubeContainer;
+import org.arquillian.cube.docker.impl.client.config.Link;
+import org.arquillian.cube.docker.impl.client.config.PortBinding;
+import org.junit.Test;
+
+public class ConfigUtilTest {
+
+    @Test
+    public void shouldIgnoreDynamicNamesAndPortsInWarmSnapshotHash() {
+        CubeContainer first = container("db_1111", 40001);
+        first.setContainerName("app_1111");
+        CubeContainer second = container("db_2222", 40002);
+        second.setContainerName("app_2222");
+
+        assertThat(ConfigUtil.warmSnapshotHash(first, "sha256:abc"), is(ConfigUtil.warmSnapshotHash(second, "sha256:abc")));
+    }
+
+    @Test
+    public void shouldChangeWarmSnapshotHashWithImageAndContent() {
+        String hash = ConfigUtil.warmSnapshotHash(container("db", 40001), "sha256:abc");
+
+        assertThat(ConfigUtil.warmSnapshotHash(container("db", 40001), "sha256:def"), is(not(hash)));
+
+        CubeContainer otherEnv = container("db", 40001);
+        otherEnv.getEnv().add("MODE=test");
+        assertThat(ConfigUtil.warmSnapshotHash(otherEnv, "sha256:abc"), is(not(hash)));
+
+        CubeContainer otherPort = container("db", 40001);
+        otherPort.setPortBindings(Arrays.asList(PortBinding.valueOf("40001->8081/tcp")));
+        assertThat(ConfigUtil.warmSnapshotHash(otherPort, "sha256:abc"), is(not(hash)));
+    }
+
+    private CubeContainer container(String linkName, int hostPort) {
+        CubeContainer container = new CubeContainer();
+        container.setEnv(new ArrayList<>(Arrays.asList("JAVA_OPTS=-Xmx512m", "DB_HOSTNAME=" + linkName)));
+        container.setLinks(Arrays.asList(new Link(linkName, linkName)));
+        container.setPortBindings(Arrays.asList(PortBinding.valueOf(hostPort + "->8080/tcp")));
+        container.setCmd(Arrays.asList("run"));
+        return container;
+    }
+}
@@ -0,0 +1,64 @@
+package org.arquillian.cube.docker.impl.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CpuSetAllocatorTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldAllocateDisjointCpusAcrossJvms() throws IOException {
+        File directory = folder.newFolder();
+        List<List<Integer>> nodes = Arrays.asList(Arrays.asList(0, 1, 2, 3), Arrays.asList(4, 5, 6, 7));
+        HostResourceLedger firstLedger = new HostResourceLedger(directory);
+        HostResourceLedger secondLedger = new HostResourceLedger(directory);
+        CpuSetAllocator first = new CpuSetAllocator(firstLedger, nodes);
+        CpuSetAllocator second = new CpuSetAllocator(secondLedger, nodes);
+
+        assertThat(first.allocate("db", 2), is("0,1"));
+        assertThat(first.allocate("db", 2), is("0,1"));
+        assertThat(second.allocate("db", 2), is("2,3"));
+        // does not fit in the partially used node, so it is taken from a single free node
+        assertThat(second.allocate("app", 3), is("4,5,6"));
+        assertThat(first.allocate("big", 3), nullValue());
+
+        first.release("db");
+        assertThat(first.allocate("big", 3), is("0,1,7"));
+        firstLedger.releaseAll();
+        secondLedger.releaseAll();
+    }
+
+    @Test
+    public void shouldReadNumaNodesOfHost() throws IOException {
+        File directory = folder.newFolder();
+        writeCpuList(directory, "node0", "0-1,4\n");
+        writeCpuList(directory, "node1", "2-3,5\n");
+
+        assertThat(CpuSetAllocator.readNumaNodes(directory, 6),
+                is(Arrays.asList(Arrays.asList(0, 1, 4), Arrays.asList(2, 3, 5))));
+        assertThat(CpuSetAllocator.readNumaNodes(directory, 2),
+                is(Arrays.asList(Arrays.asList(0, 1))));
+        assertThat(CpuSetAllocator.readNumaNodes(new File(directory, "missing"), 3),
+                is(Arrays.asList(Arrays.asList(0, 1, 2))));
+    }
+
+    private void writeCpuList(File directory, String node, String cpuList) throws IOException {
+        File nodeDirectory = new File(directory, node);
+        nodeDirectory.mkdirs();
+        Files.write(new File(nodeDirectory, "cpulist").toPath(), cpuList.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,163 @@
+package org.arquillian.cube.docker.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertThat;
+
+public class HostResourceLedgerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldNotReserveSamePortTwice() throws IOException {
+        File directory = folder.newFolder();
+        HostResourceLedger first = new HostResourceLedger(directory);
+        HostResourceLedger second = new HostResourceLedger(directory);
+
+        Set<Integer> ports = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            ports.add(first.reservePort());
+            ports.add(second.reservePort());
+        }
+
+        assertThat(ports.size(), is(40));
+        first.releaseAll();
+        second.releaseAll();
+    }
+
+    @Test
+    public void shouldReserveConcurrentlyFromLedgersOfSameJvm() throws Exception {
+        File directory = folder.newFolder();
+        final HostResourceLedger first = new HostResourceLedger(directory);
+        final HostResourceLedger second = new HostResourceLedger(directory);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> ports = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            final HostResourceLedger ledger = i % 2 == 0 ? first : second;
+            ports.add(executorService.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return ledger.reservePort();
+                }
+            }));
+        }
+
+        Set<Integer> reserved = new HashSet<>();
+        for (Future<Integer> port : ports) {
+            reserved.add(port.get());
+        }
+        executorService.shutdown();
+
+        assertThat(reserved.size(), is(40));
+        first.releaseAll();
+        second.releaseAll();
+    }
+
+    @Test
+    public void shouldRemoveEntriesOfReleasedOwner() throws IOException {
+        File directory = folder.newFolder();
+        HostResourceLedger ledger = new HostResourceLedger(directory);
+
+        int port = ledger.reservePort();
+        assertThat(readLedger(directory), hasItem("port " + port + " " + ledger.getOwnerId()));
+
+        ledger.releaseAll();
+        assertThat(readLedger(directory).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReclaimEntriesOfStaleOwners() throws IOException {
+        File directory = folder.newFolder();
+        Files.write(new File(directory, HostResourceLedger.LEDGER_FILE).toPath(),
+                "name 00000000-0000-0000-0000-000000000000 dead-owner\n".getBytes(StandardCharsets.UTF_8));
+
+        HostResourceLedger ledger = new HostResourceLedger(directory);
+        String suffix = ledger.reserveNameSuffix().toString();
+
+        List<String> entries = readLedger(directory);
+        assertThat(entries, hasItem("name " + suffix + " " + ledger.getOwnerId()));
+        assertThat(entries, not(hasItem("name 00000000-0000-0000-0000-000000000000 dead-owner")));
+        ledger.releaseAll();
+    }
+
+    @Test
+    public void shouldShareLeasesWithSameVersion() throws IOException {
+        File directory = folder.newFolder();
+        HostResourceLedger first = new HostResourceLedger(directory);
+        HostResourceLedger second = new HostResourceLedger(directory);
+
+        assertThat(first.acquireLease("db", "v1"), is(HostResourceLedger.LeaseState.FIRST));
+        assertThat(second.acquireLease("db", "v1"), is(HostResourceLedger.LeaseState.SHARED));
+        assertThat(second.isLeaseReady("db", "v1"), is(false));
+
+        first.markLeaseReady("db", "v1");
+        assertThat(second.isLeaseReady("db", "v1"), is(true));
+        assertThat(first.isLeasedByOthers("db", "v1"), is(true));
+
+        assertThat(second.releaseLease("db", "v1", 0), is(false));
+        assertThat(first.isLeasedByOthers("db", "v1"), is(false));
+        assertThat(second.acquireLease("db", "v1"), is(HostResourceLedger.LeaseState.SHARED));
+
+        assertThat(first.releaseLease("db", "v1", 0), is(false));
+        assertThat(second.releaseLease("db", "v1", 0), is(true));
+        first.releaseAll();
+        second.releaseAll();
+    }
+
+    @Test
+    public void shouldReuseIdleLeasesUntilTheyExpire() throws IOException {
+        File directory = folder.newFolder();
+        HostResourceLedger first = new HostResourceLedger(directory);
+        HostResourceLedger second = new HostResourceLedger(directory);
+
+        first.acquireLease("db", "v1");
+        first.markLeaseReady("db", "v1");
+        assertThat(first.releaseLease("db", "v1", 60000), is(false));
+        first.releaseAll();
+
+        assertThat(second.acquireLease("db", "v2"), is(HostResourceLedger.LeaseState.OUTDATED));
+        assertThat(second.releaseLease("db", "v2", 1), is(false));
+
+        HostResourceLedger third = new HostResourceLedger(directory);
+        assertThat(third.acquireLease("db", "v2"), is(HostResourceLedger.LeaseState.SHARED));
+        assertThat(third.isLeaseReady("db", "v2"), is(true));
+        assertThat(third.releaseLease("db", "v2", 0), is(true));
+        assertThat(third.takeExpiredLeases().isEmpty(), is(true));
+        second.releaseAll();
+        third.releaseAll();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotShareLeasesWithDifferentVersion() throws IOException {
+        File directory = folder.newFolder();
+        HostResourceLedger first = new HostResourceLedger(directory);
+        HostResourceLedger second = new HostResourceLedger(directory);
+
+        first.acquireLease("db", "v1");
+        second.acquireLease("db", "v2");
+    }
+
+    private List<String> readLedger(File directory) throws IOException {
+        return Files.readAllLines(new File(directory, HostResourceLedger.LEDGER_FILE).toPath(), StandardCharsets.UTF_8);
+    }
+}
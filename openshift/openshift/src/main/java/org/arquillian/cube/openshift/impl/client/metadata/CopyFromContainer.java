@@ -9,13 +9,20 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.arquillian.cube.LogLine;
+import org.arquillian.cube.LogQuery;
 import org.arquillian.cube.impl.util.IOUtil;
 import org.arquillian.cube.openshift.impl.client.OpenShiftClient;
 import org.arquillian.cube.spi.metadata.CanCopyFromContainer;
 
 public class CopyFromContainer implements CanCopyFromContainer {
 
+    private static final long LOG_POLLING_MILLIS = 500;
+
     private final String cubeId;
     private final OpenShiftClient client;
     
@@ -66,4 +73,42 @@ public class CopyFromContainer implements CanCopyFromContainer {
         }
     }
 
+    @Override
+    public List<LogLine> logLines(LogQuery query) {
+        if (query.isTimeBounded()) {
+            throw new UnsupportedOperationException(String.format(
+                    "Log of pod %s is read without timestamps, so it cannot be queried by time: %s", cubeId, query));
+        }
+        String log = client.getClient().inNamespace(client.getClient().getNamespace()).pods().withName(cubeId).getLog();
+        final List<LogLine> selected = new ArrayList<>();
+        // pod logs are not timestamped nor split by stream
+        for (String text : log.split("\\r?\\n")) {
+            final LogLine line = new LogLine(0, false, text);
+            if (!text.isEmpty() && query.matches(line)) {
+                selected.add(line);
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public LogLine waitForLogLine(LogQuery query, long timeout, TimeUnit unit) {
+        final long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        try {
+            while (true) {
+                final List<LogLine> lines = logLines(query);
+                if (!lines.isEmpty()) {
+                    return lines.get(0);
+                }
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                Thread.sleep(Math.min(remaining, LOG_POLLING_MILLIS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
 }
@@ -1,12 +1,13 @@
 package org.arquillian.cube.spi;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.arquillian.cube.spi.metadata.CubeMetadata;
 
 public abstract class BaseCube<T> implements Cube<T> {
-    private Map<Class<? extends CubeMetadata>, Object> metadata = new HashMap<>();
+    // metadata might be added from parallel start threads while other threads look cubes up by metadata
+    private Map<Class<? extends CubeMetadata>, Object> metadata = new ConcurrentHashMap<>();
 
     @Override
     public <X extends CubeMetadata> boolean hasMetadata(Class<X> type) {
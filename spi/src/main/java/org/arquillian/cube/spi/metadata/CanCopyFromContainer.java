@@ -1,10 +1,29 @@
 package org.arquillian.cube.spi.metadata;
 
 import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.cube.LogLine;
+import org.arquillian.cube.LogQuery;
 
 public interface CanCopyFromContainer extends CubeMetadata {
 
     void copyDirectory(String from, String to);
 
     void copyLog(boolean follow, boolean stdout, boolean stderr, boolean timestamps, int tail, OutputStream outputStream);
+
+    /**
+     * @param query selecting the lines.
+     * @return recent lines of the log selected by the query, oldest first.
+     */
+    List<LogLine> logLines(LogQuery query);
+
+    /**
+     * @param query selecting the line.
+     * @param timeout maximum time to wait.
+     * @param unit of the timeout.
+     * @return first line of the log selected by the query, or null if none is logged before the timeout.
+     */
+    LogLine waitForLogLine(LogQuery query, long timeout, TimeUnit unit);
 }
@@ -1,6 +1,16 @@
 package org.arquillian.cube.spi.metadata;
 
+import org.jboss.shrinkwrap.api.Archive;
+
 public interface CanCopyToContainer extends CubeMetadata {
     void copyDirectory(String from, String to);
     void copyDirectory(String from);
+
+    /**
+     * Copies the content of given archive into a directory of the container, streaming it as a tar without
+     * exporting it to disk first.
+     * @param archive to copy.
+     * @param to directory of the container where the content of the archive is copied.
+     */
+    void copyArchive(Archive<?> archive, String to);
 }
@@ -0,0 +1,12 @@
+package org.arquillian.cube.spi.metadata;
+
+/**
+ * Cube whose process can be restarted while its container is kept.
+ */
+public interface CanRestart extends CubeMetadata {
+
+    /**
+     * Restarts the cube and waits until it is ready again, without running the actions bound to its stop and start.
+     */
+    void restart();
+}
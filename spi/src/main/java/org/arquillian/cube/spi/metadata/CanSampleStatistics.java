@@ -0,0 +1,91 @@
+package org.arquillian.cube.spi.metadata;
+
+import java.util.List;
+
+/**
+ * Metadata of cubes which resource usage is sampled while they run.
+ */
+public interface CanSampleStatistics extends CubeMetadata {
+
+    /**
+     * @return samples taken while the cube was running, oldest first. Older samples are merged as more are taken, so
+     * the number of samples is bounded for any running time.
+     */
+    List<Sample> samples();
+
+    public static class Sample {
+        private long timestamp;
+        private double cpuPercent;
+        private long memoryUsage;
+        private long memoryLimit;
+        private long blockRead;
+        private long blockWrite;
+        private long networkReceived;
+        private long networkSent;
+
+        public Sample(long timestamp, double cpuPercent, long memoryUsage, long memoryLimit, long blockRead,
+                long blockWrite, long networkReceived, long networkSent) {
+            this.timestamp = timestamp;
+            this.cpuPercent = cpuPercent;
+            this.memoryUsage = memoryUsage;
+            this.memoryLimit = memoryLimit;
+            this.blockRead = blockRead;
+            this.blockWrite = blockWrite;
+            this.networkReceived = networkReceived;
+            this.networkSent = networkSent;
+        }
+
+        /**
+         * @return time in milliseconds when the sample was taken.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return average cpu used since the previous sample, where 100 is one whole cpu.
+         */
+        public double getCpuPercent() {
+            return cpuPercent;
+        }
+
+        /**
+         * @return peak memory used in bytes since the previous sample.
+         */
+        public long getMemoryUsage() {
+            return memoryUsage;
+        }
+
+        public long getMemoryLimit() {
+            return memoryLimit;
+        }
+
+        /**
+         * @return bytes read from block devices since the container was started.
+         */
+        public long getBlockRead() {
+            return blockRead;
+        }
+
+        /**
+         * @return bytes written to block devices since the container was started.
+         */
+        public long getBlockWrite() {
+            return blockWrite;
+        }
+
+        /**
+         * @return bytes received by all network interfaces since the container was started.
+         */
+        public long getNetworkReceived() {
+            return networkReceived;
+        }
+
+        /**
+         * @return bytes sent by all network interfaces since the container was started.
+         */
+        public long getNetworkSent() {
+            return networkSent;
+        }
+    }
+}
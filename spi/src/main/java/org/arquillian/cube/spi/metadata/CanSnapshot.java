@@ -0,0 +1,24 @@
+package org.arquillian.cube.spi.metadata;
+
+/**
+ * Cube which state can be captured and restored without going through its whole startup again.
+ */
+public interface CanSnapshot extends CubeMetadata {
+
+    /**
+     * Captures current content of given directories, replacing any previous snapshot.
+     */
+    void snapshot(String... directories);
+
+    /**
+     * Replaces the content of the directories of the running cube with the one captured in last snapshot.
+     */
+    void restore();
+
+    boolean hasSnapshot();
+
+    /**
+     * Deletes last snapshot, if any.
+     */
+    void discard();
+}
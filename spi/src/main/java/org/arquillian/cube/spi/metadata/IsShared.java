@@ -0,0 +1,12 @@
+package org.arquillian.cube.spi.metadata;
+
+/**
+ * Cube started by current JVM that other JVMs can use at the same time.
+ */
+public interface IsShared extends CubeMetadata {
+
+    /**
+     * @return true if other JVMs are still using the cube, so it must not be stopped by current one.
+     */
+    boolean isUsedByOthers();
+}